@@ -5,23 +5,32 @@ import com.hrone.common.exception.ServiceException;
 import com.hrone.common.utils.StringUtils;
 import com.hrone.common.utils.ServletUtils;
 import com.hrone.common.enums.LoginStatus;
+import com.hrone.framework.async.AsyncBatchWriter;
+import com.hrone.framework.security.jwt.JwtPrincipal;
 import com.hrone.framework.security.jwt.JwtUtils;
+import com.hrone.framework.security.jwt.JwtVerifyResult;
+import com.hrone.framework.security.jwt.RefreshTokenService;
+import com.hrone.framework.security.jwt.TokenRevocationService;
+import com.hrone.framework.service.CaptchaService;
+import com.hrone.framework.service.LoginLockService;
+import com.hrone.framework.service.OnlineUserService;
+import com.hrone.framework.service.PasswordService;
 import com.hrone.common.constant.CacheConstants;
 import com.hrone.common.constant.Constants;
-import com.hrone.common.utils.RedisCache;
+import com.hrone.common.constant.UserConstants;
 import com.hrone.system.domain.SysUser;
 import com.hrone.system.service.ISysUserService;
 import com.hrone.system.domain.SysLoginLog;
-import com.hrone.system.service.ISysLoginLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.UUID;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import java.util.Date;
 
 /**
@@ -31,6 +40,7 @@ import java.util.Date;
  * 1. 根据用户名查询用户
  * 2. 校验用户状态与密码（演示环境使用明文对比）
  * 3. 颁发 JWT 并返回
+ * 4. 同时返回刷新令牌；Access Token 过期后调用 /auth/refresh 续期，无需重新登录
  *
  * 说明：
  * - 为了聚焦学习 JWT，本示例未接入加密与验证码，后续阶段可继续完善
@@ -43,15 +53,30 @@ public class AuthController {
 	private ISysUserService userService;
 
 	@Autowired
-	private RedisCache redisCache;
+	private AsyncBatchWriter<SysLoginLog> loginLogWriter;
 
 	@Autowired
-	private ISysLoginLogService loginLogService;
+	private TokenRevocationService revocationService;
+
+	@Autowired
+	private OnlineUserService onlineUserService;
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private PasswordService passwordService;
+
+	@Autowired
+	private LoginLockService loginLockService;
+
+	@Autowired
+	private CaptchaService captchaService;
 
 	@Value("${jwt.secret:HROne-Dev-Secret-Key-ChangeMe-For-Production-Use}")
 	private String jwtSecret;
 
-	@Value("${jwt.expire-minutes:120}")
+	@Value("${jwt.expire-minutes:30}")
 	private long jwtExpireMinutes;
 
 	@PostMapping("/login")
@@ -61,39 +86,45 @@ public class AuthController {
 			if (body == null || StringUtils.isEmpty(body.getUsername()) || StringUtils.isEmpty(body.getPassword())) {
 				throw new ServiceException("用户名或密码不能为空", 400);
 			}
-			// 验证码校验（开启）
-			if (StringUtils.isEmpty(body.getCaptchaUuid()) || StringUtils.isEmpty(body.getCaptchaCode())) {
-				throw new ServiceException("验证码不能为空", 400);
-			}
-			String redisKey = CacheConstants.CAPTCHA_CODE_KEY + body.getCaptchaUuid();
-			String cached = redisCache.get(redisKey);
-			if (cached == null) {
-				throw new ServiceException("验证码已过期", 400);
-			}
-			if (!cached.equalsIgnoreCase(body.getCaptchaCode())) {
-				throw new ServiceException("验证码错误", 400);
-			}
-			redisCache.delete(redisKey);
+			// 失败次数锁定：本地已锁定时直接拒绝，不查库、不做 BCrypt
+			String ip = ServletUtils.getRemoteAddr();
+			loginLockService.checkLocked(username, ip);
+			// 验证码校验（原子地读取并删除，只能使用一次）
+			captchaService.validate(body.getCaptchaUuid(), body.getCaptchaCode());
 
 			SysUser user = userService.selectUserByUserName(body.getUsername());
 			if (user == null) {
+				loginLockService.recordFailure(username, ip);
 				throw new ServiceException("用户不存在", 404);
 			}
 			if (!"0".equals(user.getStatus())) {
 				throw new ServiceException("用户状态异常，已停用", 403);
 			}
 
-			// 密码校验：兼容明文与BCrypt
-			if (!passwordMatches(body.getPassword(), user.getPassword())) {
+			// 密码校验：兼容明文与BCrypt（在独立线程池中执行，繁忙时返回 503）
+			if (!passwordService.matches(body.getPassword(), user.getPassword())) {
+				loginLockService.recordFailure(username, ip);
 				throw new ServiceException("用户名或密码错误", 401);
 			}
+			loginLockService.clearFailures(username);
+			// 明文或低强度密码在后台重新加密
+			passwordService.upgradeIfNecessary(user.getUserId(), body.getPassword(), user.getPassword());
 
 			long expireMs = TimeUnit.MINUTES.toMillis(jwtExpireMinutes);
-			String token = JwtUtils.generateToken(String.valueOf(user.getUserId()), null, jwtSecret, expireMs);
+			long expiresAt = System.currentTimeMillis() + expireMs;
+			String tokenId = JwtUtils.newTokenId();
+			String familyId = JwtUtils.newTokenId();
+			String token = JwtUtils.generateToken(String.valueOf(user.getUserId()), tokenId,
+				Collections.<String, Object>singletonMap(RefreshTokenService.FAMILY_CLAIM, familyId), jwtSecret, expireMs);
+			String refreshToken = refreshTokenService.create(familyId, user.getUserId(), user.getUserName(), tokenId, expiresAt);
+			// 登记在线会话（滑动过期）
+			onlineUserService.register(user.getUserId(), user.getUserName(), tokenId, familyId, expiresAt);
 
 			Map<String, Object> data = new HashMap<>();
 			data.put("token", token);
 			data.put("expireMinutes", jwtExpireMinutes);
+			data.put("refreshToken", refreshToken);
+			data.put("refreshExpireDays", refreshTokenService.getRefreshExpireDays());
 			data.put("userId", user.getUserId());
 			data.put("userName", user.getUserName());
 			data.put("nickName", user.getNickName());
@@ -110,48 +141,106 @@ public class AuthController {
 	}
 
 	/**
-	 * 生成简单验证码（文本），返回 uuid 与 code（演示用）
+	 * 刷新 Access Token：轮换刷新令牌，并按主键确认用户仍然有效（不校验验证码与密码）
+	 *
+	 * 用户已停用或删除时注销整个 family 并返回 401；改密、停用时的注销由 UserCredentialChangedEvent 完成
 	 */
-	@GetMapping("/captcha")
-	public AjaxResult captcha() {
-		String uuid = UUID.randomUUID().toString().replace("-", "");
-		String code = randomCode(4);
-		redisCache.set(CacheConstants.CAPTCHA_CODE_KEY + uuid, code, CacheConstants.CAPTCHA_EXPIRATION, TimeUnit.MINUTES);
+	@PostMapping("/refresh")
+	public AjaxResult refresh(@RequestBody RefreshBody body) {
+		if (body == null || StringUtils.isEmpty(body.getRefreshToken())) {
+			throw new ServiceException("刷新令牌不能为空", 400);
+		}
+		long expireMs = TimeUnit.MINUTES.toMillis(jwtExpireMinutes);
+		long expiresAt = System.currentTimeMillis() + expireMs;
+		String tokenId = JwtUtils.newTokenId();
+		RefreshTokenService.RefreshResult result = refreshTokenService.rotate(body.getRefreshToken(), tokenId, expiresAt);
+		if (result.getStatus() == RefreshTokenService.RefreshResult.Status.REUSED && result.getAccessTokenId() != null) {
+			onlineUserService.remove(result.getAccessTokenId());
+		}
+		if (result.getStatus() != RefreshTokenService.RefreshResult.Status.OK) {
+			throw new ServiceException("刷新令牌无效或已过期", 401);
+		}
+
+		String refreshToken = result.getRefreshToken();
+		String familyId = refreshToken.substring(0, refreshToken.indexOf('.'));
+		SysUser user = result.getUserId() != null ? userService.getById(result.getUserId()) : null;
+		if (user == null || !"0".equals(user.getDelFlag()) || !UserConstants.USER_NORMAL.equals(user.getStatus())) {
+			refreshTokenService.revokeFamily(familyId);
+			if (result.getAccessTokenId() != null) {
+				// 旧 Access Token 的过期时间不超过本次签发的过期时间
+				revocationService.revoke(result.getAccessTokenId(), expiresAt);
+				onlineUserService.remove(result.getAccessTokenId());
+			}
+			throw new ServiceException("用户状态异常，请重新登录", 401);
+		}
+		String token = JwtUtils.generateToken(String.valueOf(result.getUserId()), tokenId,
+			Collections.<String, Object>singletonMap(RefreshTokenService.FAMILY_CLAIM, familyId), jwtSecret, expireMs);
+		// 会话随 Access Token 迁移；旧 Token 的会话删除后，其后续访问会在下次刷新时被注销
+		onlineUserService.register(result.getUserId(), result.getUserName(), tokenId, familyId, expiresAt);
+		if (result.getAccessTokenId() != null) {
+			onlineUserService.remove(result.getAccessTokenId());
+		}
+
 		Map<String, Object> data = new HashMap<>();
-		data.put("uuid", uuid);
-		data.put("code", code); // 演示直接返回文本；生产应返回图片/前端不展示真实code
-		data.put("expireMinutes", CacheConstants.CAPTCHA_EXPIRATION);
-		return AjaxResult.success(data);
+		data.put("token", token);
+		data.put("expireMinutes", jwtExpireMinutes);
+		data.put("refreshToken", refreshToken);
+		data.put("refreshExpireDays", refreshTokenService.getRefreshExpireDays());
+		return AjaxResult.success("刷新成功").put("data", data);
 	}
 
-	private String randomCode(int len) {
-		String digits = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
-		StringBuilder sb = new StringBuilder(len);
-		for (int i = 0; i < len; i++) {
-			int idx = (int) (Math.random() * digits.length());
-			sb.append(digits.charAt(idx));
+	/**
+	 * 退出登录：注销当前 Token 与刷新令牌（未携带或 Token 无效时直接返回成功）
+	 */
+	@PostMapping("/logout")
+	public AjaxResult logout(HttpServletRequest request) {
+		String auth = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (auth != null && auth.startsWith(Constants.TOKEN_PREFIX)) {
+			JwtVerifyResult result = JwtUtils.verify(auth.substring(Constants.TOKEN_PREFIX.length()), jwtSecret);
+			if (result.isValid()) {
+				JwtPrincipal principal = result.getPrincipal();
+				revocationService.revoke(principal.getTokenId(), principal.getExpiresAt());
+				if (principal.getTokenId() != null) {
+					onlineUserService.remove(principal.getTokenId());
+				}
+				Object familyId = principal.getClaim(RefreshTokenService.FAMILY_CLAIM);
+				if (familyId != null) {
+					refreshTokenService.revokeFamily(String.valueOf(familyId));
+				}
+			}
 		}
-		return sb.toString();
+		return AjaxResult.success("退出成功");
 	}
 
-	private boolean passwordMatches(String raw, String stored) {
-		if (stored != null && stored.startsWith("$2a$")) {
-			return new BCryptPasswordEncoder().matches(raw, stored);
+	/**
+	 * 生成图片验证码，返回 uuid 与 PNG（Base64）；按 IP 限制签发频率
+	 */
+	@GetMapping("/captcha")
+	public AjaxResult captcha() {
+		CaptchaService.Captcha captcha = captchaService.create(ServletUtils.getRemoteAddr());
+		Map<String, Object> data = new HashMap<>();
+		data.put("uuid", captcha.getUuid());
+		data.put("img", captcha.getImg());
+		if (captcha.getCode() != null) {
+			data.put("code", captcha.getCode()); // 仅联调时开启 captcha.expose-code
 		}
-		return raw != null && raw.equals(stored);
+		data.put("expireMinutes", CacheConstants.CAPTCHA_EXPIRATION);
+		return AjaxResult.success(data);
 	}
 
 	private void recordLogin(String username, LoginStatus status, String message) {
 		SysLoginLog log = new SysLoginLog();
 		log.setUserName(StringUtils.isNotEmpty(username) ? username : "anonymous");
-		log.setStatus(status.name());
+		// 状态列为 CHAR(1)：0成功 1失败
+		log.setStatus(status == LoginStatus.SUCCESS ? Constants.LOGIN_SUCCESS_STATUS : Constants.LOGIN_FAIL_STATUS);
 		log.setMsg(message);
 		log.setLoginTime(new Date());
 		if (ServletUtils.getRequest() != null) {
 			log.setIpaddr(ServletUtils.getRequest().getRemoteAddr());
 			log.setLoginLocation(ServletUtils.getRequest().getRequestURI());
 		}
-		loginLogService.insertLoginLog(log);
+		// 放入异步批量写入器，不在登录请求中写库
+		loginLogWriter.offer(log);
 	}
 
 	/**
@@ -195,6 +284,19 @@ public class AuthController {
 			this.captchaCode = captchaCode;
 		}
 	}
-}
 
+	/**
+	 * 刷新请求体
+	 */
+	public static class RefreshBody {
+		private String refreshToken;
+
+		public String getRefreshToken() {
+			return refreshToken;
+		}
 
+		public void setRefreshToken(String refreshToken) {
+			this.refreshToken = refreshToken;
+		}
+	}
+}
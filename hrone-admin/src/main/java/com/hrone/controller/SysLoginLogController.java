@@ -3,13 +3,18 @@ package com.hrone.controller;
 import com.hrone.common.annotation.OperLog;
 import com.hrone.common.core.controller.BaseController;
 import com.hrone.common.core.domain.AjaxResult;
+import com.hrone.common.core.page.KeysetCursor;
 import com.hrone.common.enums.BusinessType;
+import com.hrone.common.utils.export.ExportFormat;
+import com.hrone.common.utils.export.ExportUtils;
+import com.hrone.framework.aspectj.RequiresPermissions;
+import com.hrone.framework.service.LogRetentionService;
 import com.hrone.system.domain.SysLoginLog;
 import com.hrone.system.service.ISysLoginLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 
 /**
  * 登录日志接口
@@ -21,10 +26,36 @@ public class SysLoginLogController extends BaseController {
 	@Autowired
 	private ISysLoginLogService loginLogService;
 
+	@Autowired
+	private LogRetentionService logRetentionService;
+
+	/**
+	 * 列表（按时间倒序的游标分页）
+	 *
+	 * 筛选：userName、status、ipaddr、params[beginTime]、params[endTime]（yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss）
+	 * 翻页：把上一页返回的 nextCursor 作为 cursor 传回；count=true 时返回 total
+	 */
 	@GetMapping("/list")
-	public AjaxResult list(SysLoginLog loginLog) {
-		List<SysLoginLog> list = loginLogService.selectLoginLogList(loginLog);
-		return AjaxResult.success(list).put("total", list.size());
+	public AjaxResult list(SysLoginLog loginLog, @RequestParam(required = false) String cursor,
+						   @RequestParam(defaultValue = "20") int pageSize,
+						   @RequestParam(defaultValue = "false") boolean count) {
+		return AjaxResult.success(loginLogService.selectLoginLogPage(loginLog, KeysetCursor.parse(cursor), pageSize, count));
+	}
+
+	/**
+	 * 导出（筛选条件同列表；format=xlsx 或 csv）
+	 *
+	 * 边查边写：数据库游标逐行读取，逐行写入响应，内存占用与导出行数无关
+	 */
+	@RequiresPermissions("monitor:logininfor:export")
+	@OperLog(title = "登录日志", businessType = BusinessType.EXPORT)
+	@GetMapping("/export")
+	public void export(SysLoginLog loginLog, @RequestParam(required = false) String format, HttpServletResponse response) {
+		ExportUtils.export(response, ExportFormat.of(format), "login_log", new String[]{
+			"访问编号", "用户账号", "登录地址", "登录地点", "浏览器", "操作系统", "登录状态", "提示消息", "访问时间"
+		}, writer -> loginLogService.exportLoginLog(loginLog, log -> writer.writeRow(
+			log.getInfoId(), log.getUserName(), log.getIpaddr(), log.getLoginLocation(), log.getBrowser(),
+			log.getOs(), "1".equals(log.getStatus()) ? "失败" : "成功", log.getMsg(), log.getLoginTime())));
 	}
 
 	@OperLog(title = "登录日志", businessType = BusinessType.DELETE)
@@ -39,5 +70,14 @@ public class SysLoginLogController extends BaseController {
 		loginLogService.cleanLoginLog();
 		return AjaxResult.success("登录日志已清空");
 	}
-}
 
+	/**
+	 * 删除 days 天之前的登录日志（过期的整月分区直接删除，其余分批删除）
+	 */
+	@RequiresPermissions("monitor:logininfor:remove")
+	@OperLog(title = "登录日志", businessType = BusinessType.CLEAN)
+	@DeleteMapping("/clean/{days}")
+	public AjaxResult cleanBefore(@PathVariable int days) {
+		return AjaxResult.success(logRetentionService.purgeOlderThan(LogRetentionService.LogTable.LOGIN_LOG, days));
+	}
+}
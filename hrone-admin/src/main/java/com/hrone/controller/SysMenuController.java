@@ -4,9 +4,13 @@ import com.hrone.common.annotation.OperLog;
 import com.hrone.common.core.controller.BaseController;
 import com.hrone.common.core.domain.AjaxResult;
 import com.hrone.common.enums.BusinessType;
+import com.hrone.common.utils.StringUtils;
+import com.hrone.framework.service.MenuTreeCache;
 import com.hrone.system.domain.SysMenu;
 import com.hrone.system.service.ISysMenuService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,6 +27,9 @@ public class SysMenuController extends BaseController {
     @Autowired
     private ISysMenuService menuService;
 
+    @Autowired
+    private MenuTreeCache menuTreeCache;
+
     /**
      * 查询菜单列表
      * 
@@ -35,15 +42,19 @@ public class SysMenuController extends BaseController {
     }
 
     /**
-     * 查询菜单树结构
+     * 查询菜单树结构（不带查询条件时返回缓存的完整菜单树）
      * 
      * GET /system/menu/tree
      */
     @GetMapping("/tree")
-    public AjaxResult tree(SysMenu menu) {
+    public ResponseEntity<byte[]> tree(SysMenu menu) {
+        if (StringUtils.isEmpty(menu.getMenuName()) && StringUtils.isEmpty(menu.getVisible())
+                && StringUtils.isEmpty(menu.getStatus())) {
+            return json(menuTreeCache.getFullMenuTree());
+        }
         List<SysMenu> menus = menuService.selectMenuList(menu);
         List<SysMenu> tree = menuService.buildMenuTree(menus);
-        return AjaxResult.success(tree);
+        return json(menuTreeCache.toJson(AjaxResult.success(tree)));
     }
 
     /**
@@ -91,15 +102,20 @@ public class SysMenuController extends BaseController {
     }
 
     /**
-     * 根据用户ID查询菜单（用于前端路由）
+     * 根据用户ID查询菜单（用于前端路由，按角色组合缓存）
      * 
      * GET /system/menu/user/{userId}
      */
     @GetMapping("/user/{userId}")
-    public AjaxResult getMenuByUser(@PathVariable Long userId) {
-        List<SysMenu> menus = menuService.selectMenusByUserId(userId);
-        List<SysMenu> tree = menuService.buildMenuTree(menus);
-        return AjaxResult.success(tree);
+    public ResponseEntity<byte[]> getMenuByUser(@PathVariable Long userId) {
+        return json(menuTreeCache.getUserMenuTree(userId));
+    }
+
+    /**
+     * 直接写出已序列化的 JSON
+     */
+    private ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 }
 
@@ -3,13 +3,19 @@ package com.hrone.controller;
 import com.hrone.common.annotation.OperLog;
 import com.hrone.common.core.controller.BaseController;
 import com.hrone.common.core.domain.AjaxResult;
+import com.hrone.common.core.page.KeysetCursor;
 import com.hrone.common.enums.BusinessType;
+import com.hrone.common.utils.export.ExportFormat;
+import com.hrone.common.utils.export.ExportUtils;
+import com.hrone.framework.aspectj.RequiresPermissions;
+import com.hrone.framework.async.AsyncBatchWriter;
+import com.hrone.framework.service.LogRetentionService;
 import com.hrone.system.domain.SysOperLog;
 import com.hrone.system.service.ISysOperLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 
 /**
  * 操作日志接口
@@ -21,10 +27,56 @@ public class SysOperLogController extends BaseController {
 	@Autowired
 	private ISysOperLogService operLogService;
 
+	@Autowired
+	private LogRetentionService logRetentionService;
+
+	@Autowired
+	private AsyncBatchWriter<SysOperLog> operLogWriter;
+
+	/**
+	 * 列表（按时间倒序的游标分页）
+	 *
+	 * 筛选：title、businessType、status、operName、operIp、params[beginTime]、params[endTime]（yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss）
+	 * 翻页：把上一页返回的 nextCursor 作为 cursor 传回；count=true 时返回 total
+	 */
 	@GetMapping("/list")
-	public AjaxResult list(SysOperLog operLog) {
-		List<SysOperLog> list = operLogService.selectOperLogList(operLog);
-		return AjaxResult.success(list).put("total", list.size());
+	public AjaxResult list(SysOperLog operLog, @RequestParam(required = false) String cursor,
+						   @RequestParam(defaultValue = "20") int pageSize,
+						   @RequestParam(defaultValue = "false") boolean count) {
+		return AjaxResult.success(operLogService.selectOperLogPage(operLog, KeysetCursor.parse(cursor), pageSize, count));
+	}
+
+	/**
+	 * 导出（筛选条件同列表；format=xlsx 或 csv）
+	 *
+	 * 边查边写：数据库游标逐行读取，逐行写入响应，内存占用与导出行数无关
+	 */
+	@RequiresPermissions("monitor:operlog:export")
+	@OperLog(title = "操作日志", businessType = BusinessType.EXPORT)
+	@GetMapping("/export")
+	public void export(SysOperLog operLog, @RequestParam(required = false) String format, HttpServletResponse response) {
+		ExportUtils.export(response, ExportFormat.of(format), "oper_log", new String[]{
+			"日志编号", "模块标题", "业务类型", "请求方式", "方法名称", "操作人员", "主机地址", "操作地点",
+			"请求URL", "请求参数", "返回参数", "状态", "错误消息", "操作时间"
+		}, writer -> operLogService.exportOperLog(operLog, log -> writer.writeRow(
+			log.getOperId(), log.getTitle(), businessTypeName(log.getBusinessType()), log.getRequestMethod(),
+			log.getMethod(), log.getOperName(), log.getOperIp(), log.getOperLocation(), log.getOperUrl(),
+			log.getOperParam(), log.getJsonResult(), Integer.valueOf(1).equals(log.getStatus()) ? "异常" : "正常",
+			log.getErrorMsg(), log.getOperTime())));
+	}
+
+	private static String businessTypeName(Integer type) {
+		BusinessType[] types = BusinessType.values();
+		return type != null && type >= 0 && type < types.length ? types[type].name() : String.valueOf(type);
+	}
+
+	/**
+	 * 异步写入器运行指标（队列积压、丢弃、溢写与回放）
+	 */
+	@RequiresPermissions("monitor:operlog:list")
+	@GetMapping("/writer-stats")
+	public AjaxResult writerStats() {
+		return AjaxResult.success(operLogWriter.getStats());
 	}
 
 	@OperLog(title = "操作日志", businessType = BusinessType.DELETE)
@@ -39,5 +91,14 @@ public class SysOperLogController extends BaseController {
 		operLogService.cleanOperLog();
 		return AjaxResult.success("操作日志已清空");
 	}
-}
 
+	/**
+	 * 删除 days 天之前的操作日志（过期的整月分区直接删除，其余分批删除）
+	 */
+	@RequiresPermissions("monitor:operlog:remove")
+	@OperLog(title = "操作日志", businessType = BusinessType.CLEAN)
+	@DeleteMapping("/clean/{days}")
+	public AjaxResult cleanBefore(@PathVariable int days) {
+		return AjaxResult.success(logRetentionService.purgeOlderThan(LogRetentionService.LogTable.OPER_LOG, days));
+	}
+}
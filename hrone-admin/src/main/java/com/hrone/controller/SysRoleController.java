@@ -7,6 +7,7 @@ import com.hrone.common.core.controller.BaseController;
 import com.hrone.common.core.domain.AjaxResult;
 import com.hrone.common.core.page.TableDataInfo;
 import com.hrone.common.enums.BusinessType;
+import com.hrone.framework.aspectj.RequiresPermissions;
 import com.hrone.system.domain.SysRole;
 import com.hrone.system.service.ISysRoleService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -69,6 +70,7 @@ public class SysRoleController extends BaseController {
      * 
      * POST /system/role
      */
+    @RequiresPermissions("system:role:add")
     @OperLog(title = "角色管理", businessType = BusinessType.INSERT)
     @PostMapping
     public AjaxResult add(@RequestBody SysRole role) {
@@ -80,6 +82,7 @@ public class SysRoleController extends BaseController {
      * 
      * PUT /system/role
      */
+    @RequiresPermissions("system:role:edit")
     @OperLog(title = "角色管理", businessType = BusinessType.UPDATE)
     @PutMapping
     public AjaxResult edit(@RequestBody SysRole role) {
@@ -107,5 +110,52 @@ public class SysRoleController extends BaseController {
     public AjaxResult removeBatch(@RequestBody Long[] roleIds) {
         return toAjax(roleService.deleteRoleByIds(roleIds));
     }
-}
 
+    /**
+     * 查询角色的菜单ID
+     * 
+     * GET /system/role/{roleId}/menus
+     */
+    @GetMapping("/{roleId}/menus")
+    public AjaxResult menus(@PathVariable Long roleId) {
+        return AjaxResult.success(roleService.selectMenuIdsByRoleId(roleId));
+    }
+
+    /**
+     * 设置角色菜单（覆盖原有菜单）
+     * 
+     * PUT /system/role/{roleId}/menus
+     * 
+     * 请求体：[1, 100, 1000]（不存在的菜单ID会被忽略）
+     */
+    @RequiresPermissions("system:role:edit")
+    @OperLog(title = "角色管理", businessType = BusinessType.GRANT)
+    @PutMapping("/{roleId}/menus")
+    public AjaxResult authMenu(@PathVariable Long roleId, @RequestBody Long[] menuIds) {
+        return AjaxResult.success("变更" + roleService.authRoleMenu(roleId, menuIds) + "条菜单授权");
+    }
+
+    /**
+     * 查询角色的部门ID（自定义数据权限）
+     * 
+     * GET /system/role/{roleId}/depts
+     */
+    @GetMapping("/{roleId}/depts")
+    public AjaxResult depts(@PathVariable Long roleId) {
+        return AjaxResult.success(roleService.selectDeptIdsByRoleId(roleId));
+    }
+
+    /**
+     * 设置角色部门（覆盖原有部门）
+     * 
+     * PUT /system/role/{roleId}/depts
+     * 
+     * 请求体：[103, 104]（不存在或已删除的部门ID会被忽略）
+     */
+    @RequiresPermissions("system:role:edit")
+    @OperLog(title = "角色管理", businessType = BusinessType.GRANT)
+    @PutMapping("/{roleId}/depts")
+    public AjaxResult authDept(@PathVariable Long roleId, @RequestBody Long[] deptIds) {
+        return AjaxResult.success("变更" + roleService.authRoleDept(roleId, deptIds) + "条部门授权");
+    }
+}
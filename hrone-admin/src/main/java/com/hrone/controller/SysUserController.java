@@ -8,6 +8,7 @@ import com.hrone.common.core.domain.AjaxResult;
 import com.hrone.common.core.page.TableDataInfo;
 import com.hrone.common.exception.ServiceException;
 import com.hrone.common.enums.BusinessType;
+import com.hrone.framework.aspectj.RequiresPermissions;
 import com.hrone.system.domain.SysUser;
 import com.hrone.system.service.ISysUserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -182,5 +183,22 @@ public class SysUserController extends BaseController {
         
         return AjaxResult.success("成功删除" + successCount + "个用户");
     }
+    
+    /**
+     * 设置用户角色（覆盖原有角色）
+     * 
+     * 访问地址：PUT http://localhost:8080/system/user/2/roles
+     * 
+     * 请求体：
+     * [2, 3]
+     * 
+     * 需要 system:user:edit 权限；角色必须存在且为正常状态，不能授予超级管理员角色
+     */
+    @RequiresPermissions("system:user:edit")
+    @OperLog(title = "用户管理", businessType = BusinessType.GRANT)
+    @PutMapping("/{userId}/roles")
+    public AjaxResult authRole(@PathVariable Long userId, @RequestBody Long[] roleIds) {
+        userService.insertUserAuth(userId, roleIds);
+        return AjaxResult.success();
+    }
 }
-
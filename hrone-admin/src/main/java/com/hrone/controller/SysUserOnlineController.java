@@ -0,0 +1,44 @@
+package com.hrone.controller;
+
+import com.hrone.common.annotation.OperLog;
+import com.hrone.common.core.controller.BaseController;
+import com.hrone.common.core.domain.AjaxResult;
+import com.hrone.common.enums.BusinessType;
+import com.hrone.framework.aspectj.RequiresPermissions;
+import com.hrone.framework.service.OnlineUserService;
+import com.hrone.system.domain.SysUserOnline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 在线用户接口
+ */
+@RestController
+@RequestMapping("/monitor/online")
+public class SysUserOnlineController extends BaseController {
+
+	@Autowired
+	private OnlineUserService onlineUserService;
+
+	@RequiresPermissions("monitor:online:list")
+	@GetMapping("/list")
+	public AjaxResult list(String ipaddr, String userName) {
+		List<SysUserOnline> list = onlineUserService.list(ipaddr, userName);
+		return AjaxResult.success(list).put("total", list.size());
+	}
+
+	/**
+	 * 强退用户：按 Token ID 注销，所有节点在下次请求时拒绝该 Token
+	 */
+	@RequiresPermissions("monitor:online:forceLogout")
+	@OperLog(title = "在线用户", businessType = BusinessType.FORCE)
+	@DeleteMapping("/{tokenId}")
+	public AjaxResult forceLogout(@PathVariable String tokenId) {
+		if (!onlineUserService.forceLogout(tokenId)) {
+			return AjaxResult.error("会话不存在或已过期");
+		}
+		return AjaxResult.success("强退成功");
+	}
+}
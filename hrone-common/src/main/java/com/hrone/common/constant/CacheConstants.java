@@ -27,6 +27,21 @@ public class CacheConstants {
      */
     public static final String LOGIN_TOKEN_KEY = "login_tokens:";
     
+    /**
+     * 已注销token redis key
+     */
+    public static final String REVOKED_TOKEN_KEY = "revoked_tokens:";
+    
+    /**
+     * 刷新令牌 redis key
+     */
+    public static final String REFRESH_TOKEN_KEY = "refresh_tokens:";
+    
+    /**
+     * 用户的刷新令牌 family 集合 redis key（用户停用、改密时按用户注销）
+     */
+    public static final String REFRESH_USER_KEY = "refresh_user_families:";
+    
     /**
      * 验证码 redis key
      */
@@ -82,6 +97,11 @@ public class CacheConstants {
      */
     public static final String DEPT_INFO_KEY = "dept_info:";
     
+    /**
+     * 日志保留任务 redis 锁（多节点只允许一个执行分区维护与清理）
+     */
+    public static final String LOG_RETENTION_LOCK_KEY = "log_retention_lock";
+    
     /**
      * 登录token过期时间（分钟）
      * 默认30分钟
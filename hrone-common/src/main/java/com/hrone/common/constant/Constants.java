@@ -107,6 +107,11 @@ public class Constants {
      */
     public static final String LOGIN_USER_KEY = "login_user_key";
     
+    /**
+     * 已验证的令牌主体（request attribute）
+     */
+    public static final String LOGIN_PRINCIPAL_KEY = "login_principal_key";
+    
     /**
      * 用户ID
      */
@@ -0,0 +1,53 @@
+package com.hrone.common.core.page;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 列表总数的本地短期缓存
+ * 
+ * 功能说明：
+ * 1. 大表带条件的 COUNT 需要扫描全部匹配行，翻页时重复统计没有必要
+ * 2. 同一查询条件的总数缓存 ttlMillis，过期后重新统计
+ * 3. 条目数超过 maxEntries 时整体清空，避免条件组合过多占用内存
+ * 
+ * @author hrone
+ */
+public class CountCache {
+    
+    private final long ttlMillis;
+    
+    private final int maxEntries;
+    
+    /**
+     * 查询条件 -> {总数, 过期时间}
+     */
+    private final Map<String, long[]> cache = new ConcurrentHashMap<>();
+    
+    public CountCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+    
+    /**
+     * 读取总数，未命中或已过期时统计并缓存
+     * 
+     * @param key 查询条件
+     * @param counter 统计逻辑
+     * @return 总数
+     */
+    public long get(String key, Supplier<Long> counter) {
+        long now = System.currentTimeMillis();
+        long[] entry = cache.get(key);
+        if (entry != null && entry[1] > now) {
+            return entry[0];
+        }
+        long count = counter.get();
+        if (cache.size() >= maxEntries) {
+            cache.clear();
+        }
+        cache.put(key, new long[]{count, now + ttlMillis});
+        return count;
+    }
+}
@@ -0,0 +1,63 @@
+package com.hrone.common.core.page;
+
+import com.hrone.common.exception.ServiceException;
+import com.hrone.common.utils.StringUtils;
+
+import java.util.Date;
+
+/**
+ * 游标分页位置（上一页最后一行的 时间、ID）
+ * 
+ * 功能说明：
+ * 1. 按 (时间 倒序, ID 倒序) 分页时，下一页只需查询“排在该位置之后”的行
+ * 2. 查询沿 (时间, ID) 索引定位后顺序读取 pageSize 行，任意深度的页与第一页开销相同
+ * 3. 对外以不透明字符串传递：毫秒时间戳_ID
+ * 
+ * @author hrone
+ */
+public class KeysetCursor {
+    
+    private final Date time;
+    
+    private final Long id;
+    
+    public KeysetCursor(Date time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+    
+    /**
+     * 解析游标字符串
+     * 
+     * @param cursor 游标（为空表示第一页）
+     * @return 游标，第一页返回 null
+     */
+    public static KeysetCursor parse(String cursor) {
+        if (StringUtils.isEmpty(cursor)) {
+            return null;
+        }
+        int sep = cursor.indexOf('_');
+        try {
+            if (sep > 0) {
+                return new KeysetCursor(new Date(Long.parseLong(cursor.substring(0, sep))),
+                        Long.valueOf(cursor.substring(sep + 1)));
+            }
+        } catch (NumberFormatException e) {
+            // 按无效游标处理
+        }
+        throw new ServiceException("分页游标无效", 400);
+    }
+    
+    public Date getTime() {
+        return time;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    @Override
+    public String toString() {
+        return time.getTime() + "_" + id;
+    }
+}
@@ -0,0 +1,81 @@
+package com.hrone.common.core.page;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ * 
+ * 功能说明：
+ * 1. rows 为本页数据，hasMore 表示是否还有下一页
+ * 2. nextCursor 为下一页的游标（最后一页为 null），原样传回即可翻页
+ * 3. total 只在请求时返回；totalEstimated 为 true 表示是按表统计信息估算的行数
+ * 
+ * @param <T> 数据类型
+ * @author hrone
+ */
+public class KeysetPage<T> implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private List<T> rows;
+    
+    private boolean hasMore;
+    
+    private String nextCursor;
+    
+    private Long total;
+    
+    private Boolean totalEstimated;
+    
+    /**
+     * 由多查一行的结果构建分页（查询时 LIMIT pageSize + 1）
+     * 
+     * @param rows 查询结果（最多 pageSize + 1 行）
+     * @param pageSize 每页条数
+     * @param cursorOf 行 -> 游标
+     * @param <T> 数据类型
+     * @return 分页结果
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, KeysetCursor> cursorOf) {
+        KeysetPage<T> page = new KeysetPage<>();
+        page.hasMore = rows.size() > pageSize;
+        page.rows = page.hasMore ? rows.subList(0, pageSize) : rows;
+        if (page.hasMore) {
+            page.nextCursor = cursorOf.apply(page.rows.get(pageSize - 1)).toString();
+        }
+        return page;
+    }
+    
+    public List<T> getRows() {
+        return rows;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public Long getTotal() {
+        return total;
+    }
+    
+    public Boolean getTotalEstimated() {
+        return totalEstimated;
+    }
+    
+    /**
+     * 设置总数
+     * 
+     * @param total 总数
+     * @param estimated 是否为估算值
+     */
+    public void setTotal(Long total, boolean estimated) {
+        this.total = total;
+        this.totalEstimated = estimated;
+    }
+}
@@ -10,6 +10,8 @@ public enum BusinessType {
 	DELETE,
 	EXPORT,
 	IMPORT,
-	CLEAN
+	CLEAN,
+	FORCE,
+	GRANT
 }
 
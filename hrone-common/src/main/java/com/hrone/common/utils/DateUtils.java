@@ -248,6 +248,33 @@ public class DateUtils extends org.apache.commons.lang3.time.DateUtils {
         }
     }
     
+    /**
+     * 解析时间范围的边界（格式：yyyy-MM-dd HH:mm:ss 或 yyyy-MM-dd）
+     * 
+     * 使用场景：列表查询的 beginTime / endTime，按 [开始, 结束) 区间查询
+     * - 开始时间原样返回
+     * - 结束时间只有日期时返回次日0点（包含当天），带时间时返回下一秒（包含该秒）
+     * 
+     * @param dateStr 日期字符串
+     * @param end 是否为结束时间
+     * @return Date对象，为空或格式错误时返回 null
+     * 
+     * 示例：
+     * parseRangeBound("2025-11-05", true) = 2025-11-06 00:00:00
+     */
+    public static Date parseRangeBound(String dateStr, boolean end) {
+        if (StringUtils.isEmpty(dateStr)) {
+            return null;
+        }
+        String text = dateStr.trim();
+        if (text.length() == YYYY_MM_DD.length()) {
+            Date date = parseDate(text);
+            return date != null && end ? addDays(date, 1) : date;
+        }
+        Date time = parseDateTime(text);
+        return time != null && end ? addSeconds(time, 1) : time;
+    }
+    
     /**
      * 解析字符串为 LocalDateTime（格式：yyyy-MM-dd HH:mm:ss）
      * 
@@ -195,14 +195,30 @@ public class ServletUtils {
         return url.toString();
     }
     
+    /**
+     * 获取容器解析的客户端IP地址（用于安全控制）
+     * 
+     * 说明：
+     * - 返回 request.getRemoteAddr()；开启 server.forward-headers-strategy=native 后，
+     *   只有直连地址属于 server.tomcat.remoteip.internal-proxies 时才会按 X-Forwarded-For 解析
+     * - 不信任客户端直接提交的代理请求头
+     * 
+     * @return 客户端IP地址（无请求时返回 null）
+     */
+    public static String getRemoteAddr() {
+        HttpServletRequest request = getRequest();
+        return request != null ? request.getRemoteAddr() : null;
+    }
+    
     /**
      * 获取客户端IP地址
      * 
-     * 使用场景：记录访问日志、安全控制
+     * 使用场景：记录访问日志（仅用于展示）
      * 
      * 说明：
      * - 考虑了代理和负载均衡的情况
      * - 优先从 X-Forwarded-For 等头部获取真实IP
+     * - 请求头可由客户端任意伪造，限流、锁定等安全控制请使用 getRemoteAddr()
      * 
      * @return 客户端IP地址
      * 
@@ -1,22 +1,37 @@
 package com.hrone.common.utils;
 
-import  java.util.ArrayList;
-import java.util.Iterator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 /**
  * 树形结构工具类
- * 
+ *
  * 用于将扁平化的列表数据转换为树形结构
- * 
+ *
+ * 实现方式：先一次遍历按父节点ID分组，再从根节点开始非递归地挂接子节点，
+ * 时间复杂度 O(n)（指定排序时为 O(n log n)），树再深也不会栈溢出；
+ * 存在环或父节点缺失的节点不会出现在结果中
+ *
  * @author hrone
  */
 public class TreeUtils {
 
+    /**
+     * 建议开启并行排序的节点数
+     */
+    public static final int PARALLEL_THRESHOLD = 10000;
+
     /**
      * 构建树形结构（泛型版本）
-     * 
+     *
      * @param list 扁平化的数据列表
      * @param getId 获取节点ID的函数
      * @param getParentId 获取父节点ID的函数
@@ -30,49 +45,71 @@ public class TreeUtils {
                                          Function<T, Object> getId,
                                          Function<T, Object> getParentId,
                                          Function<T, List<T>> getChildren,
-                                         java.util.function.BiConsumer<T, List<T>> setChildren,
+                                         BiConsumer<T, List<T>> setChildren,
                                          Object rootId) {
+        return buildTree(list, getId, getParentId, setChildren, rootId, null, false);
+    }
+
+    /**
+     * 构建树形结构，同级节点按 comparator 排序（排序稳定，相等时保持原顺序）
+     *
+     * @param list 扁平化的数据列表
+     * @param getId 获取节点ID的函数
+     * @param getParentId 获取父节点ID的函数
+     * @param setChildren 设置子节点列表的函数
+     * @param rootId 根节点ID（通常为0或null）
+     * @param comparator 同级排序规则（为空时保持原顺序）
+     * @param parallel 是否并行排序各组同级节点（节点数很多时使用）
+     * @param <T> 数据类型
+     * @return 树形结构列表
+     */
+    public static <T> List<T> buildTree(List<T> list,
+                                         Function<T, Object> getId,
+                                         Function<T, Object> getParentId,
+                                         BiConsumer<T, List<T>> setChildren,
+                                         Object rootId,
+                                         Comparator<? super T> comparator,
+                                         boolean parallel) {
         List<T> result = new ArrayList<>();
-        
+        Map<Object, List<T>> groups = new HashMap<>();
         for (T item : list) {
             Object parentId = getParentId.apply(item);
-            
-            // 如果是根节点
             if (isRoot(parentId, rootId)) {
                 result.add(item);
-                // 递归查找子节点
-                setChildren.accept(item, getChildList(list, item, getId, getParentId, getChildren, setChildren));
+            } else {
+                groups.computeIfAbsent(parentId, k -> new ArrayList<>()).add(item);
+            }
+        }
+
+        if (comparator != null) {
+            result.sort(comparator);
+            sortGroups(groups.values(), comparator, parallel);
+        }
+
+        // 从根节点开始逐层挂接子节点
+        Deque<T> pending = new ArrayDeque<>(result);
+        while (!pending.isEmpty()) {
+            T node = pending.poll();
+            List<T> children = groups.remove(getId.apply(node));
+            if (children == null) {
+                children = new ArrayList<>();
+            } else {
+                pending.addAll(children);
             }
+            setChildren.accept(node, children);
         }
-        
+
         return result;
     }
 
-    /**
-     * 递归查找子节点
-     */
-    private static <T> List<T> getChildList(List<T> list,
-                                             T parent,
-                                             Function<T, Object> getId,
-                                             Function<T, Object> getParentId,
-                                             Function<T, List<T>> getChildren,
-                                             java.util.function.BiConsumer<T, List<T>> setChildren) {
-        List<T> childList = new ArrayList<>();
-        
-        Object parentId = getId.apply(parent);
-        
-        for (T item : list) {
-            Object itemParentId = getParentId.apply(item);
-            
-            // 如果是当前节点的子节点
-            if (parentId != null && parentId.equals(itemParentId)) {
-                childList.add(item);
-                // 递归查找子节点的子节点
-                setChildren.accept(item, getChildList(list, item, getId, getParentId, getChildren, setChildren));
+    private static <T> void sortGroups(Collection<List<T>> groups, Comparator<? super T> comparator, boolean parallel) {
+        if (parallel) {
+            groups.parallelStream().forEach(group -> group.sort(comparator));
+        } else {
+            for (List<T> group : groups) {
+                group.sort(comparator);
             }
         }
-        
-        return childList;
     }
 
     /**
@@ -82,42 +119,55 @@ public class TreeUtils {
         if (rootId == null) {
             return parentId == null;
         }
-        
+
         if (rootId instanceof Long) {
             return rootId.equals(parentId) || (parentId == null) || "0".equals(String.valueOf(parentId)) || Long.valueOf(0).equals(parentId);
         }
-        
+
         return rootId.equals(parentId);
     }
 
     /**
      * 查找所有子节点ID（包含自己）
-     * 
+     *
      * @param list 所有节点列表
      * @param parent 父节点
      * @param getId 获取ID的函数
      * @param getParentId 获取父ID的函数
      * @param <T> 数据类型
-     * @return 所有子节点ID列表（包含父节点ID）
+     * @return 所有子节点ID列表（包含父节点ID，先序）
      */
     public static <T> List<Object> getChildIds(List<T> list,
                                                  T parent,
                                                  Function<T, Object> getId,
                                                  Function<T, Object> getParentId) {
-        List<Object> ids = new ArrayList<>();
-        
-        // 添加父节点ID
-        ids.add(getId.apply(parent));
-        
-        // 递归添加子节点ID
-        Object parentId = getId.apply(parent);
+        Map<Object, List<T>> groups = new HashMap<>();
         for (T item : list) {
-            if (parentId.equals(getParentId.apply(item))) {
-                ids.addAll(getChildIds(list, item, getId, getParentId));
+            groups.computeIfAbsent(getParentId.apply(item), k -> new ArrayList<>()).add(item);
+        }
+
+        List<Object> ids = new ArrayList<>();
+        Deque<T> stack = new ArrayDeque<>();
+        stack.push(parent);
+        while (!stack.isEmpty()) {
+            Object id = getId.apply(stack.pop());
+            ids.add(id);
+            List<T> children = groups.remove(id);
+            if (children != null) {
+                // 逆序入栈，保持与原列表一致的先序
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
             }
         }
-        
+
         return ids;
     }
-}
 
+    /**
+     * 按 key 比较，key 为空的排在最后（用于 orderNum 等可空排序字段）
+     */
+    public static <T, U extends Comparable<? super U>> Comparator<T> nullsLast(Function<T, U> key) {
+        return Comparator.comparing(key, Comparator.nullsLast(Comparator.<U>naturalOrder()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.hrone.common.utils.export;
+
+import com.hrone.common.exception.ServiceException;
+
+import java.io.OutputStream;
+
+/**
+ * 导出格式
+ * 
+ * @author hrone
+ */
+public enum ExportFormat {
+    
+    CSV("text/csv;charset=UTF-8", "csv"),
+    
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+    
+    private final String contentType;
+    
+    private final String extension;
+    
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    /**
+     * 创建写入器
+     * 
+     * @param out 输出流
+     * @param sheetName 工作表名称（仅 XLSX）
+     * @return 写入器
+     */
+    public RowWriter createWriter(OutputStream out, String sheetName) {
+        return this == XLSX ? new XlsxRowWriter(out, sheetName) : new CsvRowWriter(out);
+    }
+    
+    /**
+     * 按名称解析（忽略大小写，为空时为 XLSX）
+     * 
+     * @param name 格式名称
+     * @return 导出格式
+     */
+    public static ExportFormat of(String name) {
+        if (name == null || name.isEmpty()) {
+            return XLSX;
+        }
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new ServiceException("不支持的导出格式：" + name, 400);
+    }
+}
@@ -0,0 +1,92 @@
+package com.hrone.common.utils.export;
+
+import com.hrone.common.utils.DateUtils;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.function.Consumer;
+
+/**
+ * 流式导出工具类
+ * 
+ * 功能说明：
+ * 1. 设置下载响应头，把数据逐行写入响应输出流，不在内存中汇总
+ * 2. 第一行数据写入后立即刷新（提交响应头），浏览器马上开始下载，不必等缓冲区写满
+ * 3. 此前出错（如查询条件错误）时重置响应，由全局异常处理器返回正常的错误信息；
+ *    已开始下载后出错只能中断连接，客户端会得到不完整的文件
+ * 
+ * 使用示例：
+ * ExportUtils.export(response, ExportFormat.XLSX, "oper_log", new String[]{"编号", "标题"},
+ *         writer -> service.export(query, log -> writer.writeRow(log.getId(), log.getTitle())));
+ * 
+ * @author hrone
+ */
+public class ExportUtils {
+    
+    /**
+     * 输出缓冲区大小（字节）
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * 流式导出
+     * 
+     * @param response 响应对象
+     * @param format 导出格式
+     * @param baseName 文件名（不含时间与扩展名，只能是 ASCII）
+     * @param header 表头
+     * @param rows 写入数据行
+     */
+    public static void export(HttpServletResponse response, ExportFormat format, String baseName,
+                              String[] header, Consumer<RowWriter> rows) {
+        String fileName = baseName + "_" + DateUtils.format(new Date(), DateUtils.YYYYMMDDHHMMSS) + "." + format.getExtension();
+        response.setContentType(format.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        response.setHeader("Cache-Control", "no-store");
+        try {
+            OutputStream out = new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE);
+            RowWriter writer = format.createWriter(out, baseName);
+            writer.writeRow((Object[]) header);
+            rows.accept(new RowWriter() {
+                
+                private boolean started;
+                
+                @Override
+                public void writeRow(Object... cells) {
+                    writer.writeRow(cells);
+                    if (!started) {
+                        started = true;
+                        writer.flush();
+                    }
+                }
+                
+                @Override
+                public void flush() {
+                    writer.flush();
+                }
+                
+                @Override
+                public void close() {
+                    // 由外层关闭
+                }
+            });
+            writer.close();
+            out.flush();
+        } catch (IOException e) {
+            throw abort(response, new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            throw abort(response, e);
+        }
+    }
+    
+    private static RuntimeException abort(HttpServletResponse response, RuntimeException e) {
+        if (!response.isCommitted()) {
+            response.reset();
+        }
+        return e;
+    }
+}
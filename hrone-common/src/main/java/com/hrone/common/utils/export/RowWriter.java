@@ -0,0 +1,32 @@
+package com.hrone.common.utils.export;
+
+/**
+ * 逐行导出写入器
+ * 
+ * 功能说明：
+ * 1. 每次写入一行，写入后即可丢弃该行数据，内存占用与总行数无关
+ * 2. 第一行通常为表头
+ * 3. IO 异常包装为 UncheckedIOException，便于在 lambda 中使用
+ * 
+ * @author hrone
+ */
+public interface RowWriter extends AutoCloseable {
+    
+    /**
+     * 写入一行
+     * 
+     * @param cells 单元格（字符串、数字、日期等，null 为空单元格）
+     */
+    void writeRow(Object... cells);
+    
+    /**
+     * 把已写入的数据刷新到底层输出流（响应流刷新后即提交响应头，浏览器开始下载）
+     */
+    void flush();
+    
+    /**
+     * 写入文件结尾；不关闭底层输出流
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,283 @@
+package com.hrone.common.utils.export;
+
+import com.hrone.common.utils.DateUtils;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * XLSX 流式导出写入器
+ *
+ * 功能说明：
+ * 1. 直接按 OOXML 格式边写边压缩到输出流：工作表 XML 由 StAX 逐行写入 zip 条目，
+ *    不在内存或临时文件中保留任何行，写出的第一行即可开始下载
+ * 2. 单个工作表写满 1048576 行后自动新建工作表并重复表头
+ * 3. 工作簿、关系、内容类型等描述文件在 close() 时写入（zip 条目顺序不影响读取）
+ *
+ * 技术要点：
+ * - 文本使用内联字符串（inlineStr），不需要共享字符串表
+ * - 日期按 yyyy-MM-dd HH:mm:ss 文本输出；表头加粗
+ * - XML 不允许的控制字符被去掉；超过单元格上限 32767 的文本被截断
+ * - 未使用父 pom 中已管理的 poi-ooxml（4.1.2）的 SXSSF：它把行写入临时文件，
+ *   直到 write() 才向输出流写出 zip，无法在导出过程中开始下载
+ *
+ * @author hrone
+ */
+public class XlsxRowWriter implements RowWriter {
+
+    /**
+     * 单个工作表最大行数
+     */
+    public static final int MAX_ROWS_PER_SHEET = 1048576;
+
+    /**
+     * 单元格最大字符数
+     */
+    private static final int MAX_CELL_LENGTH = 32767;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private static final String STYLES =
+            "<styleSheet xmlns=\"" + NS_MAIN + "\">"
+            + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+            + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+            + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>"
+            + "</styleSheet>";
+
+    private static final XMLOutputFactory XML_FACTORY = XMLOutputFactory.newInstance();
+
+    private final ZipOutputStream zip;
+
+    private final String sheetName;
+
+    /**
+     * StAX 每次只写几个字节，先缓冲再交给压缩流，避免频繁调用 Deflater
+     */
+    private final BufferedOutputStream buffer;
+
+    private XMLStreamWriter xml;
+
+    /**
+     * 表头（每个工作表的第一行）
+     */
+    private Object[] header;
+
+    private int sheetCount;
+
+    private int rowInSheet;
+
+    /**
+     * @param out 输出流（close() 不会关闭它）
+     * @param sheetName 工作表名称（多个工作表时依次追加序号）
+     */
+    public XlsxRowWriter(OutputStream out, String sheetName) {
+        // 屏蔽 close，由调用方管理输出流
+        this.zip = new ZipOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+        this.zip.setLevel(Deflater.BEST_SPEED);
+        this.buffer = new BufferedOutputStream(zip, BUFFER_SIZE);
+        this.sheetName = sheetName;
+    }
+
+    @Override
+    public void writeRow(Object... cells) {
+        try {
+            if (header == null) {
+                header = cells;
+            }
+            if (xml == null || rowInSheet >= MAX_ROWS_PER_SHEET) {
+                startSheet();
+            }
+            writeCells(cells, rowInSheet == 0 && cells == header);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new UncheckedIOException(new IOException(e));
+        }
+    }
+
+    private void startSheet() throws IOException, XMLStreamException {
+        endSheet();
+        sheetCount++;
+        rowInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+        xml = XML_FACTORY.createXMLStreamWriter(buffer, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeStartElement("worksheet");
+        xml.writeDefaultNamespace(NS_MAIN);
+        xml.writeStartElement("sheetData");
+        if (sheetCount > 1 && header != null) {
+            writeCells(header, true);
+        }
+    }
+
+    private void writeCells(Object[] cells, boolean bold) throws XMLStreamException {
+        rowInSheet++;
+        xml.writeStartElement("row");
+        xml.writeAttribute("r", String.valueOf(rowInSheet));
+        for (Object value : cells) {
+            xml.writeStartElement("c");
+            if (bold) {
+                xml.writeAttribute("s", "1");
+            }
+            if (value instanceof Number) {
+                xml.writeStartElement("v");
+                xml.writeCharacters(value.toString());
+                xml.writeEndElement();
+            } else if (value != null) {
+                String text = value instanceof Date ? DateUtils.formatDateTime((Date) value) : value.toString();
+                xml.writeAttribute("t", "inlineStr");
+                xml.writeStartElement("is");
+                xml.writeStartElement("t");
+                xml.writeAttribute("xml", "http://www.w3.org/XML/1998/namespace", "space", "preserve");
+                xml.writeCharacters(clean(text));
+                xml.writeEndElement();
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    private void endSheet() throws IOException, XMLStreamException {
+        if (xml == null) {
+            return;
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+        xml = null;
+        buffer.flush();
+        zip.closeEntry();
+    }
+
+    @Override
+    public void flush() {
+        try {
+            if (xml != null) {
+                xml.flush();
+            }
+            buffer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new UncheckedIOException(new IOException(e));
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (sheetCount == 0) {
+                startSheet();
+            }
+            endSheet();
+            writeEntry("xl/workbook.xml", workbook());
+            writeEntry("xl/_rels/workbook.xml.rels", workbookRels());
+            writeEntry("xl/styles.xml", STYLES);
+            writeEntry("[Content_Types].xml", contentTypes());
+            writeEntry("_rels/.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            zip.finish();
+            zip.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new UncheckedIOException(new IOException(e));
+        }
+    }
+
+    private String workbook() {
+        StringBuilder sb = new StringBuilder("<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\"><sheets>");
+        for (int i = 1; i <= sheetCount; i++) {
+            String name = sheetCount == 1 ? sheetName : sheetName + i;
+            sb.append("<sheet name=\"").append(escapeAttribute(name)).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return sb.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRels() {
+        StringBuilder sb = new StringBuilder("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            sb.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(NS_REL)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        sb.append("<Relationship Id=\"rId").append(sheetCount + 1).append("\" Type=\"").append(NS_REL)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return sb.append("</Relationships>").toString();
+    }
+
+    private String contentTypes() {
+        StringBuilder sb = new StringBuilder("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetCount; i++) {
+            sb.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return sb.append("</Types>").toString();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" + content).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * 去掉 XML 1.0 不允许的字符，并截断到单元格上限
+     */
+    private static String clean(String text) {
+        int length = Math.min(text.length(), MAX_CELL_LENGTH);
+        StringBuilder sb = null;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            boolean valid = c >= 0x20 ? c != 0xFFFE && c != 0xFFFF : c == '\t' || c == '\n' || c == '\r';
+            if (!valid && sb == null) {
+                sb = new StringBuilder(length).append(text, 0, i);
+            } else if (valid && sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : length < text.length() ? text.substring(0, length) : text;
+    }
+
+    private static String escapeAttribute(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,129 @@
+package com.hrone.framework.aspectj;
+
+import com.hrone.framework.service.PermissionRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的权限/角色校验器（每个注解方法一个）
+ *
+ * 说明：
+ * - 权限：每个所需权限解析为“能覆盖它的授权”位图掩码，校验时与用户位图按位与，通配授权不增加校验开销
+ * - 角色：每个角色标识解析为角色ID，校验时在用户的角色ID中查找
+ * - 记录编译时的权限索引代号，索引重建后由调用方重新编译
+ */
+public final class AuthorizationMatcher {
+
+	private final String[] values;
+
+	private final Logical logical;
+
+	private final int generation;
+
+	/**
+	 * 权限校验：每个所需权限的掩码；角色校验时为 null
+	 */
+	private final long[][] masks;
+
+	/**
+	 * 角色校验：每个角色标识对应的角色ID（不存在时为 -1）；权限校验时为 null
+	 */
+	private final long[] roleIds;
+
+	private AuthorizationMatcher(String[] values, Logical logical, int generation, long[][] masks, long[] roleIds) {
+		this.values = values;
+		this.logical = logical;
+		this.generation = generation;
+		this.masks = masks;
+		this.roleIds = roleIds;
+	}
+
+	/**
+	 * 编译权限表达式
+	 */
+	public static AuthorizationMatcher permissions(String[] perms, Logical logical, PermissionRegistry.Snapshot snapshot) {
+		long[][] masks = new long[perms.length][];
+		for (int i = 0; i < perms.length; i++) {
+			masks[i] = snapshot.impliers(perms[i]);
+		}
+		return new AuthorizationMatcher(perms, logical, snapshot.getGeneration(), masks, null);
+	}
+
+	/**
+	 * 编译角色表达式
+	 */
+	public static AuthorizationMatcher roles(String[] roleKeys, Logical logical, PermissionRegistry.Snapshot snapshot) {
+		long[] ids = new long[roleKeys.length];
+		for (int i = 0; i < roleKeys.length; i++) {
+			Long roleId = snapshot.roleId(roleKeys[i].trim());
+			ids[i] = roleId != null ? roleId : -1L;
+		}
+		return new AuthorizationMatcher(roleKeys, logical, snapshot.getGeneration(), null, ids);
+	}
+
+	/**
+	 * 是否为角色校验
+	 */
+	public boolean isRoleMatcher() {
+		return roleIds != null;
+	}
+
+	/**
+	 * 权限索引重建后需要重新编译
+	 */
+	public boolean isStale(PermissionRegistry.Snapshot snapshot) {
+		return generation != snapshot.getGeneration();
+	}
+
+	/**
+	 * 校验
+	 *
+	 * @param permissionBits 用户权限位图
+	 * @param userRoleIds    用户角色ID
+	 */
+	public boolean matches(long[] permissionBits, long[] userRoleIds) {
+		int n = values.length;
+		if (n == 0) {
+			return true;
+		}
+		for (int i = 0; i < n; i++) {
+			boolean ok = isRoleMatcher() ? contains(userRoleIds, roleIds[i])
+				: PermissionRegistry.containsAny(permissionBits, masks[i]);
+			if (ok && logical == Logical.OR) {
+				return true;
+			}
+			if (!ok && logical == Logical.AND) {
+				return false;
+			}
+		}
+		return logical == Logical.AND;
+	}
+
+	/**
+	 * 未满足的权限或角色（仅用于错误提示）
+	 */
+	public List<String> missing(long[] permissionBits, long[] userRoleIds) {
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < values.length; i++) {
+			boolean ok = isRoleMatcher() ? contains(userRoleIds, roleIds[i])
+				: PermissionRegistry.containsAny(permissionBits, masks[i]);
+			if (!ok) {
+				result.add(values[i]);
+			}
+		}
+		return result;
+	}
+
+	private static boolean contains(long[] ids, long id) {
+		if (id < 0) {
+			return false;
+		}
+		for (long value : ids) {
+			if (value == id) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
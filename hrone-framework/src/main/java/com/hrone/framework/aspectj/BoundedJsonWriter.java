@@ -0,0 +1,335 @@
+package com.hrone.framework.aspectj;
+
+import org.springframework.validation.Errors;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpSession;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 有长度上限的 JSON 写出器（用于操作日志的请求参数与返回结果）
+ *
+ * 说明：
+ * - 边遍历边写入线程内复用的缓冲区，写满 maxLength 个字符立即停止，并以“...”结尾；
+ *   超长字符串（包括 StringBuilder 等 CharSequence）、集合只读取需要的部分，不整体复制，单次调用的内存占用与数据大小无关
+ * - 例外：其余 java.* 类型按 toString() 输出，toString() 本身会生成完整字符串；
+ *   这类类型（时间、UUID、URI 等）的字符串形式很短，Optional、Map.Entry 则展开后再按上限写入
+ * - 文件、请求、响应、流、会话、校验结果等类型输出为类型名，不展开
+ * - 名称在 maskFields 中（忽略大小写）或包含 password 的字段输出为 ******
+ * - 嵌套超过 MAX_DEPTH 层或出现循环引用时不再展开
+ */
+public final class BoundedJsonWriter {
+
+	private static final int MAX_DEPTH = 8;
+
+	private static final String ELLIPSIS = "...";
+
+	private static final String MASK = "\"******\"";
+
+	private static final Class<?>[] SKIPPED_TYPES = {
+		MultipartFile.class, ServletRequest.class, ServletResponse.class, HttpSession.class, Errors.class,
+		InputStream.class, OutputStream.class, Reader.class, Writer.class, File.class, Path.class, Class.class,
+		ClassLoader.class, Thread.class
+	};
+
+	/**
+	 * 类 -> 可读属性（按类缓存，避免每次内省）
+	 */
+	private static final ClassValue<List<PropertyDescriptor>> PROPERTIES = new ClassValue<List<PropertyDescriptor>>() {
+		@Override
+		protected List<PropertyDescriptor> computeValue(Class<?> type) {
+			List<PropertyDescriptor> result = new ArrayList<>();
+			try {
+				for (PropertyDescriptor pd : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+					Method getter = pd.getReadMethod();
+					if (getter != null && Modifier.isPublic(getter.getModifiers()) && getter.getParameterCount() == 0) {
+						result.add(pd);
+					}
+				}
+			} catch (IntrospectionException e) {
+				// 无法内省的类型不展开属性
+			}
+			return result;
+		}
+	};
+
+	/**
+	 * 到达上限时抛出，用于从任意深度直接退出（不生成堆栈）
+	 */
+	private static final RuntimeException LIMIT_REACHED = new RuntimeException("limit", null, false, false) {
+	};
+
+	private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+	private final int maxLength;
+
+	private final Set<String> maskFields;
+
+	/**
+	 * @param maxLength  输出的最大字符数
+	 * @param maskFields 需要脱敏的字段名
+	 */
+	public BoundedJsonWriter(int maxLength, Collection<String> maskFields) {
+		if (maxLength <= ELLIPSIS.length()) {
+			throw new IllegalArgumentException("maxLength 过小");
+		}
+		this.maxLength = maxLength;
+		this.maskFields = new HashSet<>();
+		for (String field : maskFields) {
+			this.maskFields.add(field.trim().toLowerCase(Locale.ROOT));
+		}
+	}
+
+	/**
+	 * 序列化为不超过 maxLength 个字符的 JSON（超出时截断，不保证截断后仍是合法 JSON）
+	 */
+	public String write(Object value) {
+		State state = STATE.get();
+		if (state == null || state.buffer.capacity() < maxLength + 1) {
+			state = new State(maxLength + 1);
+			STATE.set(state);
+		}
+		StringBuilder out = state.buffer;
+		out.setLength(0);
+		state.seen.clear();
+		state.limit = maxLength;
+		try {
+			writeValue(state, value, 0);
+		} catch (RuntimeException e) {
+			if (e != LIMIT_REACHED) {
+				throw e;
+			}
+			out.setLength(maxLength - ELLIPSIS.length());
+			out.append(ELLIPSIS);
+		} finally {
+			state.seen.clear();
+		}
+		return out.toString();
+	}
+
+	private void writeValue(State state, Object value, int depth) {
+		StringBuilder out = state.buffer;
+		if (value == null) {
+			append(state, "null");
+		} else if (value instanceof CharSequence) {
+			writeString(state, (CharSequence) value);
+		} else if (value instanceof Character) {
+			writeString(state, String.valueOf((char) (Character) value));
+		} else if (value instanceof Number || value instanceof Boolean) {
+			append(state, value.toString());
+		} else if (value instanceof Date) {
+			writeString(state, state.dateFormat.format((Date) value));
+		} else if (value instanceof Enum) {
+			writeString(state, ((Enum<?>) value).name());
+		} else if (isSkipped(value)) {
+			writeString(state, "<" + value.getClass().getSimpleName() + ">");
+		} else if (depth >= MAX_DEPTH || state.seen.containsKey(value)) {
+			writeString(state, "<" + value.getClass().getSimpleName() + ">");
+		} else {
+			state.seen.put(value, Boolean.TRUE);
+			try {
+				if (value instanceof Map) {
+					writeMap(state, (Map<?, ?>) value, depth);
+				} else if (value instanceof Map.Entry) {
+					append(state, '{');
+					writeEntry(state, (Map.Entry<?, ?>) value, depth);
+					append(state, '}');
+				} else if (value instanceof Optional) {
+					writeValue(state, ((Optional<?>) value).orElse(null), depth + 1);
+				} else if (value instanceof Iterable) {
+					append(state, '[');
+					boolean first = true;
+					for (Object item : (Iterable<?>) value) {
+						first = comma(state, first);
+						writeValue(state, item, depth + 1);
+					}
+					append(state, ']');
+				} else if (value.getClass().isArray()) {
+					append(state, '[');
+					int length = Array.getLength(value);
+					for (int i = 0; i < length; i++) {
+						comma(state, i == 0);
+						writeValue(state, Array.get(value, i), depth + 1);
+					}
+					append(state, ']');
+				} else if (value.getClass().getName().startsWith("java.")) {
+					writeString(state, value.toString());
+				} else {
+					writeBean(state, value, depth);
+				}
+			} finally {
+				state.seen.remove(value);
+			}
+		}
+		if (out.length() > state.limit) {
+			throw LIMIT_REACHED;
+		}
+	}
+
+	private void writeMap(State state, Map<?, ?> map, int depth) {
+		append(state, '{');
+		boolean first = true;
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			first = comma(state, first);
+			writeEntry(state, entry, depth);
+		}
+		append(state, '}');
+	}
+
+	private void writeEntry(State state, Map.Entry<?, ?> entry, int depth) {
+		Object key = entry.getKey();
+		// 字符串键最多复制 limit 个字符（更长的部分反正写不出来）
+		String name = key instanceof CharSequence ? head((CharSequence) key, state.limit) : String.valueOf(key);
+		writeString(state, name);
+		append(state, ':');
+		if (isMasked(name)) {
+			append(state, MASK);
+		} else {
+			writeValue(state, entry.getValue(), depth + 1);
+		}
+	}
+
+	private static String head(CharSequence text, int length) {
+		return text.length() <= length ? text.toString() : text.subSequence(0, length).toString();
+	}
+
+	private void writeBean(State state, Object bean, int depth) {
+		append(state, '{');
+		boolean first = true;
+		for (PropertyDescriptor pd : PROPERTIES.get(bean.getClass())) {
+			Object value;
+			try {
+				value = pd.getReadMethod().invoke(bean);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				continue;
+			}
+			if (value == null) {
+				continue;
+			}
+			first = comma(state, first);
+			writeString(state, pd.getName());
+			append(state, ':');
+			if (isMasked(pd.getName())) {
+				append(state, MASK);
+			} else {
+				writeValue(state, value, depth + 1);
+			}
+		}
+		append(state, '}');
+	}
+
+	/**
+	 * 写入带转义的字符串，逐字符读取，超出上限的部分不读取
+	 */
+	private static void writeString(State state, CharSequence text) {
+		StringBuilder out = state.buffer;
+		append(state, '"');
+		for (int i = 0, n = text.length(); i < n; i++) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						out.append(String.format("\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+			}
+			if (out.length() > state.limit) {
+				throw LIMIT_REACHED;
+			}
+		}
+		append(state, '"');
+	}
+
+	private static boolean comma(State state, boolean first) {
+		if (!first) {
+			append(state, ',');
+		}
+		return false;
+	}
+
+	private static void append(State state, char c) {
+		state.buffer.append(c);
+		if (state.buffer.length() > state.limit) {
+			throw LIMIT_REACHED;
+		}
+	}
+
+	private static void append(State state, String text) {
+		state.buffer.append(text);
+		if (state.buffer.length() > state.limit) {
+			throw LIMIT_REACHED;
+		}
+	}
+
+	private boolean isMasked(String name) {
+		String lower = name.toLowerCase(Locale.ROOT);
+		return maskFields.contains(lower) || lower.contains("password");
+	}
+
+	private static boolean isSkipped(Object value) {
+		for (Class<?> type : SKIPPED_TYPES) {
+			if (type.isInstance(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 线程内复用的缓冲区与状态
+	 */
+	private static final class State {
+
+		private final StringBuilder buffer;
+
+		private final IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<>();
+
+		private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+		private int limit;
+
+		private State(int capacity) {
+			this.buffer = new StringBuilder(capacity + 16);
+		}
+	}
+}
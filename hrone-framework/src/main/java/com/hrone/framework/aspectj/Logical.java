@@ -0,0 +1,11 @@
+package com.hrone.framework.aspectj;
+
+/**
+ * 权限注解的组合方式
+ */
+public enum Logical {
+	/** 必须全部满足 */
+	AND,
+	/** 满足其一即可 */
+	OR
+}
@@ -1,30 +1,60 @@
 package com.hrone.framework.aspectj;
 
-import com.alibaba.fastjson2.JSON;
 import com.hrone.common.annotation.OperLog;
 import com.hrone.common.constant.Constants;
 import com.hrone.common.utils.ServletUtils;
+import com.hrone.common.utils.StringUtils;
+import com.hrone.framework.async.AsyncBatchWriter;
 import com.hrone.system.domain.SysOperLog;
-import com.hrone.system.service.ISysOperLogService;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
 import java.util.Date;
 
 /**
  * 操作日志记录切面
+ *
+ * 请求线程只负责采集（请求信息、参数与结果序列化），写库交给异步批量写入器；
+ * 参数与结果由 BoundedJsonWriter 序列化，写到列长度上限即停止，敏感字段脱敏
  */
 @Aspect
 @Component
 public class OperLogAspect {
 
+	/**
+	 * 参数、结果、错误消息列的长度上限（VARCHAR(2000)），超长会导致整批插入失败
+	 */
+	private static final int MAX_TEXT_LENGTH = 2000;
+
 	@Autowired
-	private ISysOperLogService operLogService;
+	private AsyncBatchWriter<SysOperLog> operLogWriter;
+
+	/**
+	 * 参数、结果序列化后的最大字符数（不能超过列长度）
+	 */
+	@Value("${oper-log.max-length:2000}")
+	private int maxLength;
+
+	/**
+	 * 需要脱敏的字段名（逗号分隔，忽略大小写；包含 password 的字段总是脱敏）
+	 */
+	@Value("${oper-log.mask-fields:password,oldPassword,newPassword,token,refreshToken,secret,captchaCode}")
+	private String maskFields;
+
+	private BoundedJsonWriter jsonWriter;
+
+	@PostConstruct
+	public void init() {
+		jsonWriter = new BoundedJsonWriter(Math.min(maxLength, MAX_TEXT_LENGTH), Arrays.asList(maskFields.split(",")));
+	}
 
 	@AfterReturning(pointcut = "@annotation(controllerLog)", returning = "jsonResult")
 	public void doAfterReturning(JoinPoint joinPoint, OperLog controllerLog, Object jsonResult) {
@@ -57,17 +87,22 @@ public class OperLogAspect {
 			operLog.setOperName(String.valueOf(userId));
 		}
 
-		operLog.setOperParam(JSON.toJSONString(joinPoint.getArgs()));
+		operLog.setOperParam(jsonWriter.write(joinPoint.getArgs()));
 		if (jsonResult != null) {
-			operLog.setJsonResult(JSON.toJSONString(jsonResult));
+			operLog.setJsonResult(jsonWriter.write(jsonResult));
 			operLog.setStatus(0);
 		}
 		if (e != null) {
 			operLog.setStatus(1);
-			operLog.setErrorMsg(e.getMessage());
+			operLog.setErrorMsg(truncate(e.getMessage()));
 		}
 
-		operLogService.insertOperLog(operLog);
+		// 放入异步批量写入器，不在请求线程中写库
+		operLogWriter.offer(operLog);
+	}
+
+	private static String truncate(String text) {
+		return text != null && text.length() > MAX_TEXT_LENGTH ? StringUtils.substring(text, 0, MAX_TEXT_LENGTH) : text;
 	}
 }
 
@@ -3,45 +3,126 @@ package com.hrone.framework.aspectj;
 import com.hrone.common.constant.Constants;
 import com.hrone.common.exception.ServiceException;
 import com.hrone.common.utils.ServletUtils;
-import com.hrone.common.utils.StringUtils;
-import com.hrone.system.domain.SysMenu;
-import com.hrone.system.service.ISysMenuService;
+import com.hrone.framework.service.PermissionCacheService;
+import com.hrone.framework.service.PermissionRegistry;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 权限切面（第7阶段：RBAC演示）
  *
  * 校验顺序：
- * 1) 若已登录（过滤器写入 login_user_key），则从数据库加载该用户的权限集合进行校验
- * 2) 若未登录或未取到权限集合，回退到请求头 X-Perms（用于本地快速演示）
+ * 1) 若已登录（过滤器写入 login_user_key），则从权限缓存（本地 + Redis，未命中再查库）获取该用户的权限位图与角色ID
+ * 2) 使用预编译的校验器比较：@RequiresPermissions 支持通配授权与 AND/OR，@RequiresRoles 按角色标识校验
+ *
+ * 校验器在应用启动完成后按 Controller 方法一次性编译，按 Method 缓存；权限索引重建后在下次访问时重新编译
  */
 @Aspect
 @Component
 public class PermissionAspect {
 
+	private static final Logger log = LoggerFactory.getLogger(PermissionAspect.class);
+
 	private static final String REQUEST_PERMS_KEY = "login_user_perms";
 
+	private static final String REQUEST_ROLES_KEY = "login_user_roles";
+
+	@Autowired
+	private PermissionCacheService permissionCacheService;
+
+	@Autowired
+	private PermissionRegistry permissionRegistry;
+
 	@Autowired
-	private ISysMenuService menuService;
+	private ApplicationContext applicationContext;
+
+	/**
+	 * 方法 -> 权限校验器
+	 */
+	private final Map<Method, AuthorizationMatcher> permissionMatchers = new ConcurrentHashMap<>();
+
+	/**
+	 * 方法 -> 角色校验器
+	 */
+	private final Map<Method, AuthorizationMatcher> roleMatchers = new ConcurrentHashMap<>();
+
+	/**
+	 * 启动完成后编译所有 Controller 方法上的注解
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void compileAll() {
+		try {
+			PermissionRegistry.Snapshot snapshot = permissionRegistry.current();
+			int count = 0;
+			for (RequestMappingHandlerMapping mapping : applicationContext.getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+				for (HandlerMethod handler : mapping.getHandlerMethods().values()) {
+					Method method = handler.getMethod();
+					RequiresPermissions perms = AnnotatedElementUtils.findMergedAnnotation(method, RequiresPermissions.class);
+					if (perms != null) {
+						permissionMatchers.put(method, AuthorizationMatcher.permissions(perms.value(), perms.logical(), snapshot));
+						count++;
+					}
+					RequiresRoles roles = AnnotatedElementUtils.findMergedAnnotation(method, RequiresRoles.class);
+					if (roles != null) {
+						roleMatchers.put(method, AuthorizationMatcher.roles(roles.value(), roles.logical(), snapshot));
+						count++;
+					}
+				}
+			}
+			log.info("权限注解已编译：{}个", count);
+		} catch (RuntimeException e) {
+			log.warn("编译权限注解失败，将在首次访问时编译：{}", e.getMessage());
+		}
+	}
+
+	@Before("@annotation(req)")
+	public void checkPermission(JoinPoint joinPoint, RequiresPermissions req) {
+		if (req.value().length == 0) {
+			return;
+		}
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		PermissionRegistry.Snapshot snapshot = permissionRegistry.current();
+		AuthorizationMatcher matcher = permissionMatchers.get(method);
+		if (matcher == null || matcher.isStale(snapshot)) {
+			matcher = AuthorizationMatcher.permissions(req.value(), req.logical(), snapshot);
+			permissionMatchers.put(method, matcher);
+		}
+		check(matcher, "权限");
+	}
 
 	@Before("@annotation(req)")
-	public void checkPermission(JoinPoint
-											joinPoint, RequiresPermissions req) {
-		String[] needed = req.value();
-		if (needed == null || needed.length == 0) {
+	public void checkRole(JoinPoint joinPoint, RequiresRoles req) {
+		if (req.value().length == 0) {
 			return;
 		}
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		PermissionRegistry.Snapshot snapshot = permissionRegistry.current();
+		AuthorizationMatcher matcher = roleMatchers.get(method);
+		if (matcher == null || matcher.isStale(snapshot)) {
+			matcher = AuthorizationMatcher.roles(req.value(), req.logical(), snapshot);
+			roleMatchers.put(method, matcher);
+		}
+		check(matcher, "角色");
+	}
+
+	private void check(AuthorizationMatcher matcher, String label) {
 		HttpServletRequest request = ServletUtils.getRequest();
 		if (request == null) {
 			throw new ServiceException("无法获取请求对象，权限校验失败", 500);
@@ -52,40 +133,24 @@ public class PermissionAspect {
 			throw new ServiceException("未认证，无法进行权限校验", 401);
 		}
 
-		Set<String> have = getOrLoadPermissions(request, uid);
-
-		// 最终校验
-		for (String p : needed) {
-			if (!have.contains(p)) {
-				throw new ServiceException("权限不足（缺少：" + p + "）", 403);
-			}
+		Long userId = Long.valueOf(String.valueOf(uid));
+		long[] perms = matcher.isRoleMatcher() ? null : getOrLoad(request, REQUEST_PERMS_KEY, userId);
+		long[] roles = matcher.isRoleMatcher() ? getOrLoad(request, REQUEST_ROLES_KEY, userId) : null;
+		if (!matcher.matches(perms, roles)) {
+			throw new ServiceException(label + "不足（缺少：" + String.join(",", matcher.missing(perms, roles)) + "）", 403);
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-	private Set<String> getOrLoadPermissions(HttpServletRequest request, Object uid) {
-		Object cached = request.getAttribute(REQUEST_PERMS_KEY);
-		if (cached instanceof Set) {
-			return (Set<String>) cached;
+	private long[] getOrLoad(HttpServletRequest request, String key, Long userId) {
+		Object cached = request.getAttribute(key);
+		if (cached instanceof long[]) {
+			return (long[]) cached;
 		}
 
-		Long userId = Long.valueOf(String.valueOf(uid));
-		Set<String> perms = new HashSet<>();
-		List<SysMenu> menus = menuService.selectMenusByUserId(userId);
-		if (menus != null) {
-			perms.addAll(menus.stream()
-				.map(SysMenu::getPerms)
-				.filter(StringUtils::isNotEmpty)
-				.flatMap(p -> java.util.Arrays.stream(p.split(",")))
-				.map(String::trim)
-				.filter(s -> !s.isEmpty())
-				.collect(Collectors.toSet()));
-		}
-
-		Set<String> immutable = Collections.unmodifiableSet(perms);
-		request.setAttribute(REQUEST_PERMS_KEY, immutable);
-		return immutable;
+		long[] value = REQUEST_PERMS_KEY.equals(key)
+			? permissionCacheService.getPermissionBits(userId)
+			: permissionCacheService.getRoleIds(userId);
+		request.setAttribute(key, value);
+		return value;
 	}
 }
-
-
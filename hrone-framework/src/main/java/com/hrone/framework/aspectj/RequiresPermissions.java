@@ -7,12 +7,15 @@ import java.lang.annotation.*;
  *
  * 用法：
  *  @RequiresPermissions({"system:user:list"})
+ *  @RequiresPermissions(value = {"system:user:edit", "system:user:add"}, logical = Logical.OR)
+ *
+ * 授权支持通配：拥有 system:user:* 或 *:*:* 即满足 system:user:list
  */
 @Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface RequiresPermissions {
 	String[] value() default {};
-}
-
 
+	Logical logical() default Logical.AND;
+}
@@ -0,0 +1,19 @@
+package com.hrone.framework.aspectj;
+
+import java.lang.annotation.*;
+
+/**
+ * 角色注解（按角色权限字符串 role_key 校验）
+ *
+ * 用法：
+ *  @RequiresRoles({"admin"})
+ *  @RequiresRoles(value = {"admin", "common"}, logical = Logical.OR)
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequiresRoles {
+	String[] value() default {};
+
+	Logical logical() default Logical.AND;
+}
@@ -0,0 +1,435 @@
+package com.hrone.framework.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 异步批量写入器
+ *
+ * 说明：
+ * - 请求线程只把记录放入无锁队列（CAS 入队，计数器限制容量），由一个后台线程批量取出交给 sink 写库
+ * - 凑满 batchSize 立即写入；不足时最多等待 lingerMs，再把已有记录一起写入；后台线程空闲时挂起，入队时唤醒
+ * - 队列写满时按 OverflowPolicy 处理，并累计丢弃数，不会阻塞请求线程（CALLER_RUNS 除外）
+ * - 写库失败时：未配置溢写文件的记为失败；配置了的追加到本地文件，每隔 replayIntervalMs 由单独的回放线程回放，
+ *   回放期间后台线程照常消费队列
+ * - close() 停止接收新记录，写完队列中剩余的记录后退出
+ *
+ * @param <T> 记录类型
+ */
+public class AsyncBatchWriter<T> implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(AsyncBatchWriter.class);
+
+	/**
+	 * 空闲时最长挂起时间
+	 */
+	private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * 队列写满时的处理策略
+	 */
+	public enum OverflowPolicy {
+		/** 丢弃新记录 */
+		DROP_NEWEST,
+		/** 丢弃队列中最旧的记录，放入新记录 */
+		DROP_OLDEST,
+		/** 由调用线程同步写入 */
+		CALLER_RUNS
+	}
+
+	/**
+	 * 写库失败时的处理策略
+	 */
+	public enum FailurePolicy {
+		/** 丢弃并记为失败 */
+		DROP,
+		/** 追加到本地溢写文件，稍后回放 */
+		SPILL
+	}
+
+	private final String name;
+
+	private final int capacity;
+
+	private final int batchSize;
+
+	private final long lingerMs;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final Consumer<List<T>> sink;
+
+	private final SpillFile<T> spill;
+
+	private final long replayIntervalMs;
+
+	private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * 已占用的队列名额（入队前先占位，超过容量即视为已满）
+	 */
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final Thread worker;
+
+	/**
+	 * 回放线程（未配置溢写文件时为空）
+	 */
+	private final Thread replayer;
+
+	/**
+	 * 是否已请求回放（由后台线程置位，回放线程清除）
+	 */
+	private final AtomicBoolean replayRequested = new AtomicBoolean();
+
+	private volatile boolean running = true;
+
+	/**
+	 * 后台线程是否正在挂起等待
+	 */
+	private volatile boolean waiting;
+
+	/**
+	 * 下次允许回放溢写文件的时间
+	 */
+	private volatile long nextReplayAt;
+
+	private final LongAdder accepted = new LongAdder();
+
+	private final LongAdder dropped = new LongAdder();
+
+	private final LongAdder written = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private final LongAdder batches = new LongAdder();
+
+	private final LongAdder spilled = new LongAdder();
+
+	private final LongAdder replayed = new LongAdder();
+
+	private final LongAdder callerRuns = new LongAdder();
+
+	private final LongAccumulator highWater = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @param name           名称（用于线程名与日志）
+	 * @param capacity       队列容量
+	 * @param batchSize      单批最大条数
+	 * @param lingerMs       凑批最长等待时间（毫秒）
+	 * @param overflowPolicy 队列写满时的处理策略
+	 * @param sink           批量写入逻辑
+	 */
+	public AsyncBatchWriter(String name, int capacity, int batchSize, long lingerMs,
+							OverflowPolicy overflowPolicy, Consumer<List<T>> sink) {
+		this(name, capacity, batchSize, lingerMs, overflowPolicy, sink, null, 0);
+	}
+
+	/**
+	 * @param name             名称（用于线程名与日志）
+	 * @param capacity         队列容量
+	 * @param batchSize        单批最大条数
+	 * @param lingerMs         凑批最长等待时间（毫秒）
+	 * @param overflowPolicy   队列写满时的处理策略
+	 * @param sink             批量写入逻辑
+	 * @param spill            写库失败时的溢写文件（为空时失败记录直接丢弃）
+	 * @param replayIntervalMs 写库失败后多久再回放溢写文件（毫秒）
+	 */
+	public AsyncBatchWriter(String name, int capacity, int batchSize, long lingerMs,
+							OverflowPolicy overflowPolicy, Consumer<List<T>> sink,
+							SpillFile<T> spill, long replayIntervalMs) {
+		if (capacity <= 0 || batchSize <= 0 || lingerMs < 0 || replayIntervalMs < 0) {
+			throw new IllegalArgumentException("capacity、batchSize 必须大于0，lingerMs、replayIntervalMs 不能小于0");
+		}
+		this.name = name;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.lingerMs = lingerMs;
+		this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.DROP_NEWEST;
+		this.sink = sink;
+		this.spill = spill;
+		this.replayIntervalMs = replayIntervalMs;
+		this.worker = new Thread(this::runLoop, "async-writer-" + name);
+		this.worker.setDaemon(true);
+		if (spill != null) {
+			this.replayer = new Thread(this::replayLoop, "async-writer-" + name + "-replay");
+			this.replayer.setDaemon(true);
+			this.replayer.start();
+		} else {
+			this.replayer = null;
+		}
+		this.worker.start();
+	}
+
+	/**
+	 * 提交一条记录（不阻塞；CALLER_RUNS 策略下队列满时同步写入）
+	 *
+	 * @return 是否被接收
+	 */
+	public boolean offer(T record) {
+		if (record == null) {
+			return false;
+		}
+		if (!running) {
+			dropped.increment();
+			return false;
+		}
+		if (enqueue(record)) {
+			accepted.increment();
+			return true;
+		}
+		switch (overflowPolicy) {
+			case DROP_OLDEST:
+				while (!enqueue(record)) {
+					if (dequeue() != null) {
+						dropped.increment();
+					}
+				}
+				accepted.increment();
+				return true;
+			case CALLER_RUNS:
+				accepted.increment();
+				callerRuns.increment();
+				write(Collections.singletonList(record));
+				return true;
+			case DROP_NEWEST:
+			default:
+				dropped.increment();
+				return false;
+		}
+	}
+
+	private boolean enqueue(T record) {
+		int n = size.incrementAndGet();
+		if (n > capacity) {
+			size.decrementAndGet();
+			return false;
+		}
+		queue.offer(record);
+		highWater.accumulate(n);
+		if (waiting) {
+			LockSupport.unpark(worker);
+		}
+		return true;
+	}
+
+	private T dequeue() {
+		T record = queue.poll();
+		if (record != null) {
+			size.decrementAndGet();
+		}
+		return record;
+	}
+
+	private int drainTo(List<T> batch) {
+		int n = 0;
+		T record;
+		while (batch.size() < batchSize && (record = dequeue()) != null) {
+			batch.add(record);
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * 队列为空时挂起（先登记等待再检查队列，避免错过入队时的唤醒）
+	 */
+	private void park(long nanos) {
+		waiting = true;
+		if (queue.isEmpty() && running) {
+			LockSupport.parkNanos(this, nanos);
+		}
+		waiting = false;
+	}
+
+	/**
+	 * 停止接收新记录，写完剩余记录后返回（最多等待 30 秒）；进行中的回放在当前批写完后停止，其余记录留待下次启动
+	 */
+	@Override
+	public void close() {
+		// 不中断工作线程，避免打断正在进行的写库
+		running = false;
+		LockSupport.unpark(worker);
+		if (replayer != null) {
+			LockSupport.unpark(replayer);
+		}
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+		try {
+			worker.join(TimeUnit.SECONDS.toMillis(30));
+			if (replayer != null) {
+				replayer.join(Math.max(deadline - System.currentTimeMillis(), 1));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		log.info("异步写入器[{}]已关闭：{}", name, getStats());
+	}
+
+	private void runLoop() {
+		List<T> batch = new ArrayList<>(batchSize);
+		while (running) {
+			if (drainTo(batch) == 0) {
+				replayIfDue();
+				park(IDLE_PARK_NANOS);
+				continue;
+			}
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+			while (batch.size() < batchSize && running) {
+				if (drainTo(batch) > 0) {
+					continue;
+				}
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					break;
+				}
+				park(remaining);
+			}
+			if (write(batch)) {
+				replayIfDue();
+			}
+			batch.clear();
+		}
+		// 收尾：写完队列中剩余的记录
+		while (drainTo(batch) > 0) {
+			write(batch);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * 写入一批；失败时按策略溢写或丢弃
+	 *
+	 * @return 是否写库成功
+	 */
+	private boolean write(List<T> batch) {
+		try {
+			sink.accept(batch);
+			written.add(batch.size());
+			batches.increment();
+			return true;
+		} catch (RuntimeException e) {
+			if (spill == null) {
+				failed.add(batch.size());
+				log.error("异步写入器[{}]批量写入失败（{}条）：{}", name, batch.size(), e.getMessage());
+				return false;
+			}
+			nextReplayAt = System.currentTimeMillis() + replayIntervalMs;
+			try {
+				if (spill.append(batch)) {
+					spilled.add(batch.size());
+					log.warn("异步写入器[{}]批量写入失败，已溢写到本地文件（{}条）：{}", name, batch.size(), e.getMessage());
+				} else {
+					failed.add(batch.size());
+					log.error("异步写入器[{}]批量写入失败且溢写文件已满，丢弃{}条：{}", name, batch.size(), e.getMessage());
+				}
+			} catch (IOException io) {
+				failed.add(batch.size());
+				log.error("异步写入器[{}]批量写入与溢写均失败（{}条）：{}，{}", name, batch.size(), e.getMessage(), io.getMessage());
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * 到期时通知回放线程（后台线程中调用，不在此处回放，避免回放大文件期间队列无人消费）
+	 */
+	private void replayIfDue() {
+		if (spill == null || System.currentTimeMillis() < nextReplayAt || !spill.hasPending()) {
+			return;
+		}
+		if (replayRequested.compareAndSet(false, true)) {
+			LockSupport.unpark(replayer);
+		}
+	}
+
+	private void replayLoop() {
+		while (running) {
+			if (!replayRequested.get()) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				continue;
+			}
+			try {
+				long count = spill.replay(sink, batchSize, () -> !running);
+				if (count > 0) {
+					replayed.add(count);
+					log.info("异步写入器[{}]已回放溢写记录{}条", name, count);
+				}
+			} catch (IOException | RuntimeException e) {
+				nextReplayAt = System.currentTimeMillis() + replayIntervalMs;
+				log.warn("异步写入器[{}]回放溢写文件失败，稍后重试：{}", name, e.getMessage());
+			} finally {
+				replayRequested.set(false);
+			}
+		}
+	}
+
+	/**
+	 * 运行指标（队列积压、丢弃、溢写等，用于观察背压）
+	 */
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("name", name);
+		stats.put("capacity", capacity);
+		stats.put("queueSize", getQueueSize());
+		stats.put("queueHighWater", highWater.get());
+		stats.put("accepted", getAcceptedCount());
+		stats.put("written", getWrittenCount());
+		stats.put("batches", getBatchCount());
+		stats.put("dropped", getDroppedCount());
+		stats.put("failed", getFailedCount());
+		stats.put("callerRuns", callerRuns.sum());
+		stats.put("spilled", spilled.sum());
+		stats.put("replayed", replayed.sum());
+		stats.put("deadLettered", spill != null ? spill.getDeadLetteredCount() : 0L);
+		stats.put("spillPending", spill != null && spill.hasPending());
+		return stats;
+	}
+
+	public long getAcceptedCount() {
+		return accepted.sum();
+	}
+
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public long getWrittenCount() {
+		return written.sum();
+	}
+
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	public long getBatchCount() {
+		return batches.sum();
+	}
+
+	public long getSpilledCount() {
+		return spilled.sum();
+	}
+
+	public long getReplayedCount() {
+		return replayed.sum();
+	}
+
+	public int getQueueSize() {
+		return Math.max(size.get(), 0);
+	}
+}
@@ -0,0 +1,281 @@
+package com.hrone.framework.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 本地溢写文件（写库失败的记录按行追加，数据库恢复后回放）
+ *
+ * 说明：
+ * - 每条记录编码为一行（如 JSON），只追加不修改
+ * - 回放时先把文件改名为 .replaying，之后的溢写写入新文件，互不影响
+ * - 回放中途数据库不可用（连接失败、瞬时错误）时，把未回放的行写回 .replaying，下次从该处继续，已写入的不会重复
+ * - 其他错误视为记录本身有问题（超长、违反约束等）：逐条重试后，仍失败的行移入 .dead 死信文件并计数，
+ *   不再回放，避免一条坏记录永久阻塞其后的所有记录
+ * - 文件（含死信文件）超过 maxBytes 后不再追加
+ *
+ * @param <T> 记录类型
+ */
+public class SpillFile<T> {
+
+	private static final Logger log = LoggerFactory.getLogger(SpillFile.class);
+
+	private final Path file;
+
+	private final Path replayFile;
+
+	private final Path deadFile;
+
+	private final long maxBytes;
+
+	private final Function<T, String> encoder;
+
+	private final Function<String, T> decoder;
+
+	private final LongAdder deadLettered = new LongAdder();
+
+	/**
+	 * @param file     溢写文件路径
+	 * @param maxBytes 文件最大字节数
+	 * @param encoder  记录 -> 单行文本（不能包含换行）
+	 * @param decoder  单行文本 -> 记录
+	 */
+	public SpillFile(Path file, long maxBytes, Function<T, String> encoder, Function<String, T> decoder) {
+		this.file = file;
+		this.replayFile = file.resolveSibling(file.getFileName() + ".replaying");
+		this.deadFile = file.resolveSibling(file.getFileName() + ".dead");
+		this.maxBytes = maxBytes;
+		this.encoder = encoder;
+		this.decoder = decoder;
+	}
+
+	/**
+	 * 追加一批记录
+	 *
+	 * @return 是否已写入（文件已满时返回 false）
+	 */
+	public synchronized boolean append(List<T> records) throws IOException {
+		if (Files.exists(file) && Files.size(file) >= maxBytes) {
+			return false;
+		}
+		Path dir = file.toAbsolutePath().getParent();
+		if (dir != null) {
+			Files.createDirectories(dir);
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+			StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			for (T record : records) {
+				writer.write(encoder.apply(record));
+				writer.write('\n');
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 是否有待回放的记录
+	 */
+	public boolean hasPending() {
+		return Files.exists(replayFile) || Files.exists(file);
+	}
+
+	/**
+	 * 已移入死信文件（或因死信文件已满而丢弃）的条数
+	 */
+	public long getDeadLetteredCount() {
+		return deadLettered.sum();
+	}
+
+	/**
+	 * 回放所有待回放的记录（只允许一个线程调用）
+	 *
+	 * @param stop 每批之前检查，返回 true 时保留未回放的记录并提前返回
+	 * @return 已写入的条数
+	 * @throws RuntimeException 写库失败（数据库不可用），未回放的记录已保留
+	 */
+	public long replay(Consumer<List<T>> sink, int batchSize, BooleanSupplier stop) throws IOException {
+		synchronized (this) {
+			if (!Files.exists(replayFile)) {
+				if (!Files.exists(file)) {
+					return 0;
+				}
+				Files.move(file, replayFile, StandardCopyOption.ATOMIC_MOVE);
+			}
+		}
+
+		long count = 0;
+		List<String> lines = new ArrayList<>(batchSize);
+		try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+			while (true) {
+				lines.clear();
+				String line;
+				while (lines.size() < batchSize && (line = reader.readLine()) != null) {
+					if (!line.isEmpty()) {
+						lines.add(line);
+					}
+				}
+				if (lines.isEmpty()) {
+					break;
+				}
+				if (stop.getAsBoolean()) {
+					keepRemaining(lines, reader);
+					return count;
+				}
+				try {
+					count += writeLines(lines, sink);
+				} catch (RuntimeException e) {
+					// writeLines 已从 lines 中去掉写入成功的行
+					keepRemaining(lines, reader);
+					throw e;
+				}
+			}
+		}
+		Files.delete(replayFile);
+		return count;
+	}
+
+	/**
+	 * 写入一批行；数据库不可用时抛出，此时 lines 只剩未写入的行。其他失败的行移入死信文件
+	 *
+	 * @return 写入成功的条数
+	 */
+	private int writeLines(List<String> lines, Consumer<List<T>> sink) throws IOException {
+		List<String> decoded = new ArrayList<>(lines.size());
+		List<T> records = new ArrayList<>(lines.size());
+		List<String> dead = new ArrayList<>();
+		for (String line : lines) {
+			try {
+				records.add(decoder.apply(line));
+				decoded.add(line);
+			} catch (RuntimeException e) {
+				// 进程崩溃时可能留下不完整的行
+				dead.add(line);
+				log.warn("溢写文件[{}]存在无法解析的记录，已移入死信文件：{}", file, e.getMessage());
+			}
+		}
+		if (records.isEmpty()) {
+			deadLetter(dead);
+			return 0;
+		}
+		try {
+			sink.accept(records);
+			deadLetter(dead);
+			return records.size();
+		} catch (RuntimeException e) {
+			if (isUnavailable(e)) {
+				throw e;
+			}
+		}
+		// 批量失败且不是数据库不可用：逐条重试，找出有问题的记录
+		int ok = 0;
+		String lastError = null;
+		for (int i = 0; i < records.size(); i++) {
+			try {
+				sink.accept(Collections.singletonList(records.get(i)));
+				ok++;
+			} catch (RuntimeException single) {
+				if (isUnavailable(single)) {
+					// 保留当前及之后的行（含本批中尚未处理的），已写入与已判定为坏数据的不再回放
+					deadLetter(dead);
+					lines.clear();
+					lines.addAll(decoded.subList(i, decoded.size()));
+					throw single;
+				}
+				dead.add(decoded.get(i));
+				lastError = single.getMessage();
+			}
+		}
+		if (ok < records.size()) {
+			log.warn("溢写文件[{}]中有{}条记录写入失败，已移入死信文件：{}", file, records.size() - ok, lastError);
+		}
+		deadLetter(dead);
+		return ok;
+	}
+
+	/**
+	 * 追加到死信文件（死信文件已满时丢弃），并计数
+	 */
+	private void deadLetter(List<String> lines) throws IOException {
+		if (lines.isEmpty()) {
+			return;
+		}
+		deadLettered.add(lines.size());
+		if (Files.exists(deadFile) && Files.size(deadFile) >= maxBytes) {
+			log.error("死信文件[{}]已满，丢弃{}条记录", deadFile, lines.size());
+			return;
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(deadFile, StandardCharsets.UTF_8,
+			StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * 是否为数据库不可用（连接失败、瞬时错误），这类错误稍后重试即可，与记录内容无关
+	 */
+	static boolean isUnavailable(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+			if (t instanceof DataAccessResourceFailureException || t instanceof TransientDataAccessException
+				|| t instanceof RecoverableDataAccessException || t instanceof CannotCreateTransactionException
+				|| t instanceof SQLTransientException || t instanceof SQLRecoverableException
+				|| t instanceof SQLNonTransientConnectionException || t instanceof ConnectException) {
+				return true;
+			}
+			// SQLSTATE 08xxx：连接异常
+			if (t instanceof SQLException && ((SQLException) t).getSQLState() != null
+				&& ((SQLException) t).getSQLState().startsWith("08")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 把当前批与尚未读取的行写回回放文件
+	 */
+	private void keepRemaining(List<String> current, BufferedReader reader) throws IOException {
+		Path tmp = replayFile.resolveSibling(replayFile.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			for (String line : current) {
+				writer.write(line);
+				writer.write('\n');
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					writer.write(line);
+					writer.write('\n');
+				}
+			}
+		}
+		Files.move(tmp, replayFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
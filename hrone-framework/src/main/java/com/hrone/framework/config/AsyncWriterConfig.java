@@ -0,0 +1,55 @@
+package com.hrone.framework.config;
+
+import com.alibaba.fastjson2.JSON;
+import com.hrone.framework.async.AsyncBatchWriter;
+import com.hrone.framework.async.SpillFile;
+import com.hrone.system.domain.SysLoginLog;
+import com.hrone.system.domain.SysOperLog;
+import com.hrone.system.service.ISysLoginLogService;
+import com.hrone.system.service.ISysOperLogService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 异步批量写入器配置（日志类数据不在请求线程中写库）
+ */
+@Configuration
+public class AsyncWriterConfig {
+
+	/**
+	 * 登录日志写入器（容器关闭时自动 close，写完剩余记录）
+	 */
+	@Bean(destroyMethod = "close")
+	public AsyncBatchWriter<SysLoginLog> loginLogWriter(ISysLoginLogService loginLogService,
+		@Value("${async.login-log.capacity:10000}") int capacity,
+		@Value("${async.login-log.batch-size:200}") int batchSize,
+		@Value("${async.login-log.linger-ms:1000}") long lingerMs,
+		@Value("${async.login-log.overflow-policy:DROP_NEWEST}") AsyncBatchWriter.OverflowPolicy overflowPolicy) {
+		return new AsyncBatchWriter<>("login-log", capacity, batchSize, lingerMs, overflowPolicy,
+			loginLogService::insertLoginLogBatch);
+	}
+
+	/**
+	 * 操作日志写入器；failure-policy 为 SPILL 时，写库失败的记录溢写到本地文件，数据库恢复后回放
+	 */
+	@Bean(destroyMethod = "close")
+	public AsyncBatchWriter<SysOperLog> operLogWriter(ISysOperLogService operLogService,
+		@Value("${async.oper-log.capacity:10000}") int capacity,
+		@Value("${async.oper-log.batch-size:200}") int batchSize,
+		@Value("${async.oper-log.linger-ms:1000}") long lingerMs,
+		@Value("${async.oper-log.overflow-policy:DROP_NEWEST}") AsyncBatchWriter.OverflowPolicy overflowPolicy,
+		@Value("${async.oper-log.failure-policy:SPILL}") AsyncBatchWriter.FailurePolicy failurePolicy,
+		@Value("${async.oper-log.spill-file:logs/spill/oper-log.jsonl}") String spillFile,
+		@Value("${async.oper-log.spill-max-mb:100}") long spillMaxMb,
+		@Value("${async.oper-log.replay-interval-ms:30000}") long replayIntervalMs) {
+		SpillFile<SysOperLog> spill = failurePolicy == AsyncBatchWriter.FailurePolicy.SPILL
+			? new SpillFile<>(Paths.get(spillFile), spillMaxMb * 1024 * 1024, JSON::toJSONString,
+				line -> JSON.parseObject(line, SysOperLog.class))
+			: null;
+		return new AsyncBatchWriter<>("oper-log", capacity, batchSize, lingerMs, overflowPolicy,
+			operLogService::insertOperLogBatch, spill, replayIntervalMs);
+	}
+}
@@ -3,6 +3,7 @@ package com.hrone.framework.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.hrone.system.aspectj.DataScopeInnerInterceptor;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -35,6 +36,7 @@ public class MybatisPlusConfig {
      * MyBatis-Plus拦截器
      * 
      * 作用：
+     * - 添加数据权限插件（须在分页插件之前，count 语句才会带上数据权限条件）
      * - 添加分页插件
      * - 添加其他插件（如乐观锁、防全表更新删除等）
      * 
@@ -44,6 +46,9 @@ public class MybatisPlusConfig {
     public MybatisPlusInterceptor mybatisPlusInterceptor() {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
         
+        // 添加数据权限插件（改写 @DataScope 方法内的查询）
+        interceptor.addInnerInterceptor(new DataScopeInnerInterceptor());
+        
         // 添加分页插件
         PaginationInnerInterceptor paginationInnerInterceptor = new PaginationInnerInterceptor();
         
@@ -3,20 +3,27 @@ package com.hrone.framework.security.jwt;
 import com.alibaba.fastjson2.JSON;
 import com.hrone.common.constant.Constants;
 import com.hrone.common.core.domain.AjaxResult;
+import com.hrone.framework.security.route.AuthMode;
+import com.hrone.framework.security.route.RouteMatcher;
+import com.hrone.framework.security.route.RouteRuleProperties;
+import com.hrone.framework.service.OnlineUserService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -24,9 +31,15 @@ import java.util.Set;
  *
  * 说明：
  * - 从 Authorization: Bearer xxx 读取 Token 并校验
- * - 校验通过：将 userId 放入 request attribute，键为 Constants.LOGIN_USER_KEY
+ * - 校验通过：将 userId 放入 request attribute，键为 Constants.LOGIN_USER_KEY；
+ *   完整的 JwtPrincipal 放入 Constants.LOGIN_PRINCIPAL_KEY
  * - 校验失败：对受保护路径返回 401
- * - 白名单：/auth/**、/error、/druid/**、/test/**、/actuator/**
+ * - 路由认证模式由 hrone.security.rules 配置，启动时编译为 RouteMatcher：
+ *   PUBLIC 直接放行，OPTIONAL 有效 Token 时解析用户，API_KEY 校验请求头，AUTHENTICATED 必须登录
+ * - 验签结果缓存在 JwtTokenCache 中，同一 Token 只解析一次
+ * - 已注销的 Token（按 jti）由 TokenRevocationService 判定，常规请求不产生 Redis 访问
+ * - 路由按容器规范化后的路径（servletPath + pathInfo）匹配，与 Spring MVC 分派所用路径一致；
+ *   原始 URI 含 ;参数、.. 段、反斜杠或编码的分隔符时直接返回 400，避免匹配与分派不一致
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -34,51 +47,148 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	@Value("${jwt.secret:HROne-Dev-Secret-Key-ChangeMe-For-Production-Use}")
 	private String jwtSecret;
 
-	private static final Set<String> WHITELIST_PREFIX = new HashSet<>(Arrays.asList(
-		"/auth/", "/error", "/druid/", "/test/", "/actuator/"
-	));
+	@Autowired
+	private JwtTokenCache tokenCache;
+
+	@Autowired
+	private TokenRevocationService revocationService;
+
+	@Autowired
+	private OnlineUserService onlineUserService;
+
+	@Autowired
+	private RouteRuleProperties routeProperties;
+
+	private RouteMatcher routeMatcher;
+
+	private Set<String> apiKeys;
+
+	/**
+	 * 原始 URI 中不允许出现的片段（小写比较）：路径参数、编码的 / \ . ; %、反斜杠
+	 */
+	private static final String[] REJECTED_URI_PARTS = {";", "%3b", "%2f", "%5c", "%2e", "%25", "\\"};
+
+	@PostConstruct
+	public void compileRoutes() {
+		routeMatcher = RouteMatcher.compile(routeProperties);
+		apiKeys = routeProperties.getApiKeys() == null
+			? Collections.<String>emptySet()
+			: new HashSet<>(routeProperties.getApiKeys());
+	}
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 		throws ServletException, IOException {
 
-		String path = request.getRequestURI();
-		if (isWhitelisted(path)) {
+		if (isSuspicious(request.getRequestURI())) {
+			writeError(response, HttpServletResponse.SC_BAD_REQUEST, "非法的请求路径");
+			return;
+		}
+		String path = normalizedPath(request);
+		AuthMode mode = routeMatcher.match(path);
+		if (mode == AuthMode.PUBLIC) {
 			filterChain.doFilter(request, response);
 			return;
 		}
-
-		String auth = request.getHeader(HttpHeaders.AUTHORIZATION);
-		String prefix = Constants.TOKEN_PREFIX; // "Bearer "
-		if (auth != null && auth.startsWith(prefix)) {
-			String token = auth.substring(prefix.length());
-			if (JwtUtils.validateToken(token, jwtSecret)) {
-				// 将 userId 放入请求作用域
-				String userId = JwtUtils.getSubject(token, jwtSecret);
-				request.setAttribute(Constants.LOGIN_USER_KEY, userId);
+		if (mode == AuthMode.API_KEY) {
+			String apiKey = request.getHeader(routeProperties.getApiKeyHeader());
+			if (apiKey != null && apiKeys.contains(apiKey)) {
 				filterChain.doFilter(request, response);
 				return;
 			}
+			writeUnauthorized(response);
+			return;
+		}
+
+		boolean authenticated = authenticate(request);
+		if (authenticated || mode == AuthMode.OPTIONAL) {
+			filterChain.doFilter(request, response);
+			return;
 		}
 
 		// 未携带或无效 Token
 		writeUnauthorized(response);
 	}
 
-	private boolean isWhitelisted(String path) {
-		for (String p : WHITELIST_PREFIX) {
-			if (path.startsWith(p)) {
+	/**
+	 * 校验 Bearer Token，通过时将用户信息写入请求作用域
+	 */
+	private boolean authenticate(HttpServletRequest request) {
+		String auth = request.getHeader(HttpHeaders.AUTHORIZATION);
+		String prefix = Constants.TOKEN_PREFIX; // "Bearer "
+		if (auth == null || !auth.startsWith(prefix)) {
+			return false;
+		}
+		String token = auth.substring(prefix.length());
+		JwtPrincipal principal = resolvePrincipal(token);
+		if (principal == null || principal.getSubject() == null) {
+			return false;
+		}
+		// 已注销（登出/强退）的 Token；本地布隆过滤器未命中时不访问 Redis
+		if (revocationService.isRevoked(principal.getTokenId())) {
+			return false;
+		}
+		// 记录访问（本地合并，定时批量顺延会话）
+		onlineUserService.touch(principal);
+		// 将 userId 放入请求作用域
+		request.setAttribute(Constants.LOGIN_USER_KEY, principal.getSubject());
+		request.setAttribute(Constants.LOGIN_PRINCIPAL_KEY, principal);
+		return true;
+	}
+
+	/**
+	 * 解析 Token 主体：优先查缓存，未命中时验签一次并写入缓存；无效返回 null
+	 */
+	private JwtPrincipal resolvePrincipal(String token) {
+		JwtPrincipal principal = tokenCache.get(token);
+		if (principal != null) {
+			return principal;
+		}
+		JwtVerifyResult result = JwtUtils.verify(token, jwtSecret);
+		if (!result.isValid()) {
+			return null;
+		}
+		tokenCache.put(token, result.getPrincipal());
+		return result.getPrincipal();
+	}
+
+	/**
+	 * 原始 URI 是否包含会导致“过滤器匹配路径”与“MVC 分派路径”不一致的内容
+	 */
+	private static boolean isSuspicious(String uri) {
+		String lower = uri.toLowerCase(Locale.ROOT);
+		for (String part : REJECTED_URI_PARTS) {
+			if (lower.contains(part)) {
+				return true;
+			}
+		}
+		for (String segment : lower.split("/")) {
+			if ("..".equals(segment) || ".".equals(segment)) {
 				return true;
 			}
 		}
-		return "/".equals(path);
+		return false;
+	}
+
+	/**
+	 * 容器解码、去除路径参数后的应用内路径（不含 context-path）
+	 */
+	private static String normalizedPath(HttpServletRequest request) {
+		String servletPath = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		String path = pathInfo == null ? servletPath : servletPath + pathInfo;
+		return path == null || path.isEmpty() ? "/" : path;
 	}
 
 	private void writeUnauthorized(HttpServletResponse response) throws IOException {
-		response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+		writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "未认证，或Token无效");
+	}
+
+	private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+		response.setStatus(status);
 		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
 		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-		AjaxResult body = AjaxResult.error("未认证，或Token无效").put("code", HttpServletResponse.SC_UNAUTHORIZED);
+		AjaxResult body = AjaxResult.error(message).put("code", status);
 		response.getWriter().write(JSON.toJSONString(body));
 	}
 }
@@ -0,0 +1,82 @@
+package com.hrone.framework.security.jwt;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 已验证的 Token 主体（不可变）
+ *
+ * 说明：
+ * - 由 JwtUtils.verify 一次解析得到，包含 subject、Token ID（jti）、签发时间、过期时间与自定义负载
+ * - 时间均为毫秒时间戳；自定义负载不含 sub/jti/iat/exp 等注册声明
+ */
+public final class JwtPrincipal {
+
+	private final String subject;
+
+	private final String tokenId;
+
+	private final long issuedAt;
+
+	private final long expiresAt;
+
+	private final Map<String, Object> claims;
+
+	public JwtPrincipal(String subject, String tokenId, long issuedAt, long expiresAt, Map<String, Object> claims) {
+		this.subject = subject;
+		this.tokenId = tokenId;
+		this.issuedAt = issuedAt;
+		this.expiresAt = expiresAt;
+		this.claims = (claims == null || claims.isEmpty())
+			? Collections.<String, Object>emptyMap()
+			: Collections.unmodifiableMap(new LinkedHashMap<>(claims));
+	}
+
+	public String getSubject() {
+		return subject;
+	}
+
+	/**
+	 * Token ID（jti），用于注销与在线会话；旧版本签发的 Token 可能为 null
+	 */
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	public long getIssuedAt() {
+		return issuedAt;
+	}
+
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	public Map<String, Object> getClaims() {
+		return claims;
+	}
+
+	/**
+	 * 获取自定义负载
+	 */
+	public Object getClaim(String name) {
+		return claims.get(name);
+	}
+
+	/**
+	 * 在指定时刻是否已过期
+	 */
+	public boolean isExpired(long now) {
+		return expiresAt <= now;
+	}
+
+	@Override
+	public String toString() {
+		return "JwtPrincipal{" +
+			"subject='" + subject + '\'' +
+			", tokenId='" + tokenId + '\'' +
+			", issuedAt=" + issuedAt +
+			", expiresAt=" + expiresAt +
+			'}';
+	}
+}
@@ -0,0 +1,129 @@
+package com.hrone.framework.security.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验证 Token 缓存（本地进程内）
+ *
+ * 说明：
+ * - 以 Token 的 SHA-256 摘要为键，缓存验签通过后的 JwtPrincipal，同一 Token 在本节点只解析一次
+ * - 条目按 Token 自身的过期时间失效，读取时发现过期即移除
+ * - 容量有上限：写满时先清理过期条目，仍超出则淘汰一部分旧条目
+ * - 提供命中/未命中计数，便于观察缓存效果
+ */
+@Component
+public class JwtTokenCache {
+
+	/**
+	 * 写满后一次淘汰的比例（按容量计）
+	 */
+	private static final int EVICT_PERCENT = 10;
+
+	private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("当前JVM不支持SHA-256", e);
+		}
+	});
+
+	private final Map<String, JwtPrincipal> entries = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	@Value("${jwt.cache.enabled:true}")
+	private boolean enabled;
+
+	@Value("${jwt.cache.max-size:10000}")
+	private int maxSize;
+
+	/**
+	 * 查询缓存的主体；未命中或已过期返回 null
+	 */
+	public JwtPrincipal get(String token) {
+		if (!enabled) {
+			return null;
+		}
+		String key = digest(token);
+		JwtPrincipal principal = entries.get(key);
+		if (principal == null) {
+			misses.increment();
+			return null;
+		}
+		if (principal.isExpired(System.currentTimeMillis())) {
+			entries.remove(key, principal);
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return principal;
+	}
+
+	/**
+	 * 缓存验签通过的 Token
+	 *
+	 * @param token     原始 Token
+	 * @param principal 校验得到的主体
+	 */
+	public void put(String token, JwtPrincipal principal) {
+		if (!enabled || principal.isExpired(System.currentTimeMillis())) {
+			return;
+		}
+		if (entries.size() >= maxSize) {
+			evict();
+		}
+		entries.put(digest(token), principal);
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * 先清理已过期条目；若仍超出上限，再按迭代顺序淘汰一部分
+	 */
+	private void evict() {
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(p -> p.isExpired(now));
+		int overflow = entries.size() - maxSize + Math.max(1, maxSize * EVICT_PERCENT / 100);
+		Iterator<String> it = entries.keySet().iterator();
+		while (overflow-- > 0 && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	private static String digest(String token) {
+		MessageDigest md = SHA256.get();
+		md.reset();
+		byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+		return Base64.getEncoder().withoutPadding().encodeToString(hash);
+	}
+}
@@ -1,25 +1,38 @@
 package com.hrone.framework.security.jwt;
 
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * JWT 工具类（兼容 jjwt 0.9.1）
  *
  * 功能：
- * 1) 生成 Token（HS256）
- * 2) 解析 Token，获取 Claims/Subject
- * 3) 校验 Token 是否有效（签名与是否过期）
+ * 1) 生成 Token（HS256，携带唯一的 jti）
+ * 2) 单次校验 Token，返回不可变的 JwtPrincipal（verify）
+ * 3) 解析 Token，获取 Claims/Subject
  *
  * 说明：
  * - 为了开箱即用，这里提供默认的密钥与过期时间，同时允许外部传入覆盖
- * - 后续集成 Spring Security 时，可将密钥与过期时间放入配置文件
+ * - 签名密钥按密钥字符串预先构建并缓存，不再每次调用都生成 byte[]
+ * - verify 只做一次 HMAC 校验；失败通过返回状态表达，不创建异常
  */
 public final class JwtUtils {
 
@@ -33,11 +46,31 @@ public final class JwtUtils {
 	 */
 	private static final long DEFAULT_EXPIRE_MS = TimeUnit.HOURS.toMillis(2);
 
+	private static final String HMAC_SHA256 = "HmacSHA256";
+
+	/**
+	 * 预构建的签名密钥（按密钥字符串缓存）
+	 */
+	private static final Map<String, SecretKeySpec> KEY_CACHE = new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+		try {
+			return Mac.getInstance(HMAC_SHA256);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("当前JVM不支持" + HMAC_SHA256, e);
+		}
+	});
+
+	/**
+	 * Token ID 的随机源（不可预测；每线程一个实例）
+	 */
+	private static final ThreadLocal<SecureRandom> SECURE_RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
 	private JwtUtils() {
 	}
 
 	/**
-	 * 生成 JWT
+	 * 生成 JWT（自动生成 jti）
 	 *
 	 * @param subject    标识主体（如用户名/用户ID）
 	 * @param claims     自定义负载（可为空）
@@ -46,57 +79,180 @@ public final class JwtUtils {
 	 * @return token 字符串
 	 */
 	public static String generateToken(String subject, Map<String, Object> claims, String secret, long expireMs) {
+		return generateToken(subject, newTokenId(), claims, secret, expireMs);
+	}
+
+	/**
+	 * 生成 JWT
+	 *
+	 * @param subject    标识主体（如用户名/用户ID）
+	 * @param tokenId    Token ID（jti），用于注销与在线会话
+	 * @param claims     自定义负载（可为空）
+	 * @param secret     签名密钥（为空使用默认）
+	 * @param expireMs   过期时间毫秒（<=0 使用默认）
+	 * @return token 字符串
+	 */
+	public static String generateToken(String subject, String tokenId, Map<String, Object> claims, String secret, long expireMs) {
 		long now = System.currentTimeMillis();
 		long exp = now + (expireMs > 0 ? expireMs : DEFAULT_EXPIRE_MS);
-		byte[] keyBytes = buildKey(secret);
 
-		return Jwts.builder()
-			.setClaims(claims)
+		JwtBuilder builder = Jwts.builder();
+		if (claims != null) {
+			// 0.9.1 的 setClaims 不接受 null
+			builder.setClaims(claims);
+		}
+		return builder
 			.setSubject(subject)
+			.setId(tokenId)
 			.setIssuedAt(new Date(now))
 			.setExpiration(new Date(exp))
-			.signWith(SignatureAlgorithm.HS256, keyBytes)
+			.signWith(SignatureAlgorithm.HS256, signingKey(secret))
 			.compact();
 	}
 
+	/**
+	 * 校验 Token 并返回主体（只解析、验签一次）
+	 *
+	 * 校验顺序：结构 → 签名 → 算法 → 过期时间；签名通过前不解析任何负载
+	 *
+	 * @param token  Token 字符串
+	 * @param secret 签名密钥（为空使用默认）
+	 * @return 校验结果，失败时 getPrincipal() 为 null
+	 */
+	public static JwtVerifyResult verify(String token, String secret) {
+		if (token == null || token.isEmpty()) {
+			return JwtVerifyResult.EMPTY;
+		}
+		int first = token.indexOf('.');
+		int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+		if (first <= 0 || second <= first + 1 || second == token.length() - 1 || token.indexOf('.', second + 1) >= 0) {
+			return JwtVerifyResult.MALFORMED;
+		}
+		if (!isBase64Url(token, 0, first) || !isBase64Url(token, first + 1, second)
+			|| !isBase64Url(token, second + 1, token.length())) {
+			return JwtVerifyResult.MALFORMED;
+		}
+
+		// 1) 签名
+		Mac mac = MAC.get();
+		try {
+			mac.init(signingKey(secret));
+		} catch (InvalidKeyException e) {
+			return JwtVerifyResult.INVALID_SIGNATURE;
+		}
+		byte[] expected = mac.doFinal(token.substring(0, second).getBytes(StandardCharsets.US_ASCII));
+		byte[] actual = Base64.getUrlDecoder().decode(token.substring(second + 1));
+		if (!MessageDigest.isEqual(expected, actual)) {
+			return JwtVerifyResult.INVALID_SIGNATURE;
+		}
+
+		// 2) 签名可信后再解析头部与负载
+		JSONObject header = JSON.parseObject(Base64.getUrlDecoder().decode(token.substring(0, first)));
+		if (header == null || !SignatureAlgorithm.HS256.getValue().equals(header.getString("alg"))) {
+			return JwtVerifyResult.UNSUPPORTED;
+		}
+		JSONObject payload = JSON.parseObject(Base64.getUrlDecoder().decode(token.substring(first + 1, second)));
+		if (payload == null) {
+			return JwtVerifyResult.MALFORMED;
+		}
+		long expiresAt = secondsToMillis(payload.get(Claims.EXPIRATION));
+		if (expiresAt <= 0) {
+			return JwtVerifyResult.MALFORMED;
+		}
+		long now = System.currentTimeMillis();
+		if (expiresAt <= now) {
+			return JwtVerifyResult.EXPIRED;
+		}
+		long notBefore = secondsToMillis(payload.get(Claims.NOT_BEFORE));
+		if (notBefore > now) {
+			return JwtVerifyResult.MALFORMED;
+		}
+
+		Map<String, Object> custom = new HashMap<>(payload);
+		custom.remove(Claims.SUBJECT);
+		custom.remove(Claims.ID);
+		custom.remove(Claims.ISSUED_AT);
+		custom.remove(Claims.EXPIRATION);
+		custom.remove(Claims.NOT_BEFORE);
+		return JwtVerifyResult.valid(new JwtPrincipal(
+			payload.getString(Claims.SUBJECT),
+			payload.getString(Claims.ID),
+			secondsToMillis(payload.get(Claims.ISSUED_AT)),
+			expiresAt,
+			custom));
+	}
+
+	/**
+	 * 生成 Token ID（128 位随机数的十六进制形式；也用作刷新令牌的 familyId，必须不可预测）
+	 */
+	public static String newTokenId() {
+		SecureRandom random = SECURE_RANDOM.get();
+		return toHex(random.nextLong()) + toHex(random.nextLong());
+	}
+
 	/**
 	 * 解析 JWT，返回 Claims（内部不捕获异常，调用方按需处理）
 	 */
 	public static Claims parseClaims(String token, String secret) {
-		byte[] keyBytes = buildKey(secret);
 		// 0.9.1 使用 Jwts.parser() 而非 parserBuilder()
 		return Jwts.parser()
-			.setSigningKey(keyBytes)
+			.setSigningKey(signingKey(secret))
 			.parseClaimsJws(token)
 			.getBody();
 	}
 
 	/**
 	 * 获取主体（subject）
+	 *
+	 * @deprecated 与 validateToken 组合使用会重复验签，请使用 {@link #verify(String, String)}
 	 */
+	@Deprecated
 	public static String getSubject(String token, String secret) {
 		return parseClaims(token, secret).getSubject();
 	}
 
 	/**
 	 * Token 是否有效（签名正确且未过期）
+	 *
+	 * @deprecated 请使用 {@link #verify(String, String)}，一次校验即可拿到主体
 	 */
+	@Deprecated
 	public static boolean validateToken(String token, String secret) {
-		try {
-			Claims claims = parseClaims(token, secret);
-			return claims.getExpiration() != null && claims.getExpiration().after(new Date());
-		} catch (Exception ex) {
-			return false;
-		}
+		return verify(token, secret).isValid();
 	}
 
 	/**
-	 * 构建签名密钥（byte[]）
+	 * 获取签名密钥（按密钥字符串缓存）
 	 */
-	private static byte[] buildKey(String secret) {
+	private static SecretKeySpec signingKey(String secret) {
 		String raw = (secret == null || secret.trim().isEmpty()) ? DEFAULT_SECRET : secret;
-		return raw.getBytes(StandardCharsets.UTF_8);
+		return KEY_CACHE.computeIfAbsent(raw,
+			s -> new SecretKeySpec(s.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS256.getJcaName()));
+	}
+
+	private static String toHex(long value) {
+		String hex = Long.toHexString(value);
+		return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
 	}
-}
 
+	private static long secondsToMillis(Object value) {
+		return value instanceof Number ? TimeUnit.SECONDS.toMillis(((Number) value).longValue()) : 0L;
+	}
 
+	/**
+	 * 是否为非空的 Base64URL（无填充）字符串
+	 */
+	private static boolean isBase64Url(String s, int from, int to) {
+		if (from >= to || (to - from) % 4 == 1) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			char c = s.charAt(i);
+			boolean ok = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+			if (!ok) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,63 @@
+package com.hrone.framework.security.jwt;
+
+/**
+ * Token 校验结果
+ *
+ * 说明：
+ * - 成功时携带 JwtPrincipal；失败时只携带状态，不创建异常对象
+ * - 失败结果为共享的常量实例
+ */
+public final class JwtVerifyResult {
+
+	/**
+	 * 校验状态
+	 */
+	public enum Status {
+		/** 有效 */
+		VALID,
+		/** 为空 */
+		EMPTY,
+		/** 格式错误 */
+		MALFORMED,
+		/** 签名不匹配 */
+		INVALID_SIGNATURE,
+		/** 不支持的签名算法 */
+		UNSUPPORTED,
+		/** 已过期 */
+		EXPIRED
+	}
+
+	static final JwtVerifyResult EMPTY = new JwtVerifyResult(Status.EMPTY, null);
+	static final JwtVerifyResult MALFORMED = new JwtVerifyResult(Status.MALFORMED, null);
+	static final JwtVerifyResult INVALID_SIGNATURE = new JwtVerifyResult(Status.INVALID_SIGNATURE, null);
+	static final JwtVerifyResult UNSUPPORTED = new JwtVerifyResult(Status.UNSUPPORTED, null);
+	static final JwtVerifyResult EXPIRED = new JwtVerifyResult(Status.EXPIRED, null);
+
+	private final Status status;
+
+	private final JwtPrincipal principal;
+
+	private JwtVerifyResult(Status status, JwtPrincipal principal) {
+		this.status = status;
+		this.principal = principal;
+	}
+
+	static JwtVerifyResult valid(JwtPrincipal principal) {
+		return new JwtVerifyResult(Status.VALID, principal);
+	}
+
+	public boolean isValid() {
+		return status == Status.VALID;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * 校验通过时返回主体，否则为 null
+	 */
+	public JwtPrincipal getPrincipal() {
+		return principal;
+	}
+}
@@ -0,0 +1,284 @@
+package com.hrone.framework.security.jwt;
+
+import com.hrone.common.constant.CacheConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 刷新令牌服务（Redis 存储，轮换 + 重放检测）
+ *
+ * 说明：
+ * - 刷新令牌格式为 {familyId}.{secret}；一次登录对应一个 family，保存在 refresh_tokens:{familyId}（Hash）
+ * - Redis 中只保存 secret 的 SHA-256 摘要，以及当前 Access Token 的 jti 与过期时间
+ * - 每次刷新都会轮换 secret（Lua 脚本内比较并替换，一次往返），旧的刷新令牌随即失效
+ * - 已轮换的 secret 摘要保存在 refresh_tokens:{familyId}:rotated（最近 MAX_ROTATED 个）；
+ *   只有提交的令牌与其中之一相同才视为旧令牌被重放：删除整个 family，并注销其当前 Access Token。
+ *   与当前、已轮换的摘要都不相同只返回无效，不影响 family（familyId 写在 Access Token 中，是公开的）
+ * - family 的过期时间在每次刷新时顺延（jwt.refresh-expire-days）
+ * - 每个用户的 family 记录在 refresh_user_families:{userId}（Set），用户停用、删除、改密时整体注销
+ */
+@Component
+public class RefreshTokenService {
+
+	/**
+	 * Access Token 中记录 family ID 的声明名
+	 */
+	public static final String FAMILY_CLAIM = "fid";
+
+	/**
+	 * 比较并轮换（KEYS[1] family，KEYS[2] 已轮换摘要列表）：
+	 * 不存在或摘要不匹配返回 {'0'}；与已轮换的摘要相同返回 {'-1', accessJti, accessExp} 并删除 family；
+	 * 成功返回 {'1', userId, userName, 旧 accessJti}
+	 */
+	private static final RedisScript<List> ROTATE_SCRIPT = new DefaultRedisScript<>(
+		"local cur = redis.call('hget', KEYS[1], 'hash') "
+			+ "if not cur then return {'0'} end "
+			+ "if cur ~= ARGV[1] then "
+			+ "  local used = redis.call('lrange', KEYS[2], 0, -1) "
+			+ "  for i = 1, #used do "
+			+ "    if used[i] == ARGV[1] then "
+			+ "      local v = redis.call('hmget', KEYS[1], 'accessJti', 'accessExp') "
+			+ "      redis.call('del', KEYS[1], KEYS[2]) "
+			+ "      return {'-1', v[1] or '', v[2] or '0'} "
+			+ "    end "
+			+ "  end "
+			+ "  return {'0'} "
+			+ "end "
+			+ "local v = redis.call('hmget', KEYS[1], 'userId', 'userName', 'accessJti') "
+			+ "redis.call('hmset', KEYS[1], 'hash', ARGV[2], 'accessJti', ARGV[3], 'accessExp', ARGV[4]) "
+			+ "redis.call('pexpire', KEYS[1], ARGV[5]) "
+			+ "redis.call('lpush', KEYS[2], cur) "
+			+ "redis.call('ltrim', KEYS[2], 0, tonumber(ARGV[6]) - 1) "
+			+ "redis.call('pexpire', KEYS[2], ARGV[5]) "
+			+ "return {'1', v[1] or '', v[2] or '', v[3] or ''}",
+		List.class);
+
+	/**
+	 * 每个 family 保留的已轮换摘要数量（用于识别旧令牌重放；更早的旧令牌只按无效处理）
+	 */
+	private static final int MAX_ROTATED = 64;
+
+	private static final String ROTATED_SUFFIX = ":rotated";
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private static final int SECRET_BYTES = 32;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private TokenRevocationService revocationService;
+
+	@Value("${jwt.refresh-expire-days:7}")
+	private long refreshExpireDays;
+
+	/**
+	 * 新建 family 并返回刷新令牌（登录时调用）
+	 *
+	 * @param familyId        family ID（同时写入 Access Token 的 fid 声明）
+	 * @param userId          用户ID
+	 * @param userName        用户名
+	 * @param accessTokenId   Access Token 的 jti
+	 * @param accessExpiresAt Access Token 过期时间（毫秒时间戳）
+	 */
+	public String create(String familyId, Long userId, String userName, String accessTokenId, long accessExpiresAt) {
+		String secret = newSecret();
+		Map<String, String> fields = new HashMap<>();
+		fields.put("userId", String.valueOf(userId));
+		fields.put("userName", userName != null ? userName : "");
+		fields.put("hash", digest(secret));
+		fields.put("accessJti", accessTokenId);
+		fields.put("accessExp", String.valueOf(accessExpiresAt));
+		String key = CacheConstants.REFRESH_TOKEN_KEY + familyId;
+		stringRedisTemplate.opsForHash().putAll(key, fields);
+		stringRedisTemplate.expire(key, refreshExpireDays, TimeUnit.DAYS);
+		String userKey = CacheConstants.REFRESH_USER_KEY + userId;
+		stringRedisTemplate.opsForSet().add(userKey, familyId);
+		stringRedisTemplate.expire(userKey, refreshExpireDays, TimeUnit.DAYS);
+		return familyId + "." + secret;
+	}
+
+	/**
+	 * 轮换刷新令牌
+	 *
+	 * @param refreshToken    客户端提交的刷新令牌
+	 * @param accessTokenId   新 Access Token 的 jti
+	 * @param accessExpiresAt 新 Access Token 过期时间（毫秒时间戳）
+	 */
+	public RefreshResult rotate(String refreshToken, String accessTokenId, long accessExpiresAt) {
+		int dot = refreshToken == null ? -1 : refreshToken.indexOf('.');
+		if (dot <= 0 || dot == refreshToken.length() - 1) {
+			return RefreshResult.INVALID;
+		}
+		String familyId = refreshToken.substring(0, dot);
+		String secret = newSecret();
+		String key = CacheConstants.REFRESH_TOKEN_KEY + familyId;
+		List<?> r = stringRedisTemplate.execute(ROTATE_SCRIPT,
+			Arrays.asList(key, key + ROTATED_SUFFIX),
+			digest(refreshToken.substring(dot + 1)),
+			digest(secret),
+			accessTokenId,
+			String.valueOf(accessExpiresAt),
+			String.valueOf(TimeUnit.DAYS.toMillis(refreshExpireDays)),
+			String.valueOf(MAX_ROTATED));
+		String code = r == null || r.isEmpty() ? "0" : String.valueOf(r.get(0));
+		if ("-1".equals(code)) {
+			// 旧令牌被重放：注销该 family 当前的 Access Token
+			String currentJti = String.valueOf(r.get(1));
+			if (!currentJti.isEmpty()) {
+				revocationService.revoke(currentJti, Long.parseLong(String.valueOf(r.get(2))));
+			}
+			return new RefreshResult(RefreshResult.Status.REUSED, null, null, currentJti.isEmpty() ? null : currentJti, null);
+		}
+		if (!"1".equals(code)) {
+			return RefreshResult.INVALID;
+		}
+		String userId = String.valueOf(r.get(1));
+		String previousJti = String.valueOf(r.get(3));
+		if (!userId.isEmpty() && !"null".equals(userId)) {
+			// 用户的 family 集合随 family 一起顺延
+			stringRedisTemplate.expire(CacheConstants.REFRESH_USER_KEY + userId, refreshExpireDays, TimeUnit.DAYS);
+		}
+		return new RefreshResult(RefreshResult.Status.OK,
+			userId.isEmpty() || "null".equals(userId) ? null : Long.valueOf(userId),
+			String.valueOf(r.get(2)),
+			previousJti.isEmpty() ? null : previousJti,
+			familyId + "." + secret);
+	}
+
+	/**
+	 * 删除 family（退出登录、强退）
+	 */
+	public void revokeFamily(String familyId) {
+		if (familyId != null && !familyId.isEmpty()) {
+			String key = CacheConstants.REFRESH_TOKEN_KEY + familyId;
+			stringRedisTemplate.delete(Arrays.asList(key, key + ROTATED_SUFFIX));
+		}
+	}
+
+	/**
+	 * 注销用户的全部 family（用户停用、删除、改密），并注销各 family 当前的 Access Token
+	 *
+	 * @return 被注销的 Access Token jti（调用方据此删除在线会话）
+	 */
+	public List<String> revokeUser(Long userId) {
+		String userKey = CacheConstants.REFRESH_USER_KEY + userId;
+		Set<String> familyIds = stringRedisTemplate.opsForSet().members(userKey);
+		List<String> accessTokenIds = new ArrayList<>();
+		if (familyIds != null) {
+			for (String familyId : familyIds) {
+				List<Object> v = stringRedisTemplate.opsForHash()
+					.multiGet(CacheConstants.REFRESH_TOKEN_KEY + familyId, Arrays.<Object>asList("accessJti", "accessExp"));
+				revokeFamily(familyId);
+				String jti = v.get(0) != null ? String.valueOf(v.get(0)) : null;
+				if (jti != null && !jti.isEmpty()) {
+					revocationService.revoke(jti, v.get(1) != null ? Long.parseLong(String.valueOf(v.get(1))) : 0L);
+					accessTokenIds.add(jti);
+				}
+			}
+		}
+		stringRedisTemplate.delete(userKey);
+		return accessTokenIds;
+	}
+
+	public long getRefreshExpireDays() {
+		return refreshExpireDays;
+	}
+
+	private static String newSecret() {
+		byte[] bytes = new byte[SECRET_BYTES];
+		RANDOM.nextBytes(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	private static String digest(String secret) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().withoutPadding().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("当前JVM不支持SHA-256", e);
+		}
+	}
+
+	/**
+	 * 轮换结果
+	 */
+	public static final class RefreshResult {
+
+		/**
+		 * 轮换状态
+		 */
+		public enum Status {
+			/** 成功 */
+			OK,
+			/** 不存在、已过期或与当前令牌不符 */
+			INVALID,
+			/** 已轮换的旧令牌被重放，family 已删除 */
+			REUSED
+		}
+
+		static final RefreshResult INVALID = new RefreshResult(Status.INVALID, null, null, null, null);
+
+		private final Status status;
+
+		private final Long userId;
+
+		private final String userName;
+
+		private final String accessTokenId;
+
+		private final String refreshToken;
+
+		private RefreshResult(Status status, Long userId, String userName, String accessTokenId, String refreshToken) {
+			this.status = status;
+			this.userId = userId;
+			this.userName = userName;
+			this.accessTokenId = accessTokenId;
+			this.refreshToken = refreshToken;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		public Long getUserId() {
+			return userId;
+		}
+
+		public String getUserName() {
+			return userName;
+		}
+
+		/**
+		 * OK 时为轮换前的 Access Token jti；REUSED 时为被注销的 Access Token jti
+		 */
+		public String getAccessTokenId() {
+			return accessTokenId;
+		}
+
+		/**
+		 * 新的刷新令牌（仅 OK 时有值）
+		 */
+		public String getRefreshToken() {
+			return refreshToken;
+		}
+	}
+}
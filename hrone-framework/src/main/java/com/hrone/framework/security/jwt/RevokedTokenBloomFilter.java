@@ -0,0 +1,87 @@
+package com.hrone.framework.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 已注销 Token ID 的布隆过滤器（本地内存）
+ *
+ * 说明：
+ * - mightContain 返回 false 时一定未注销，无需访问 Redis；返回 true 时需到 Redis 确认
+ * - 只增不删；过期的 ID 由 TokenRevocationService 定期重建过滤器时自然清除
+ * - 基于 AtomicLongArray，add 与 mightContain 可并发调用
+ */
+final class RevokedTokenBloomFilter {
+
+	private final AtomicLongArray bits;
+
+	private final long bitSize;
+
+	private final int hashCount;
+
+	/**
+	 * @param expectedInsertions 预计元素数量
+	 * @param fpp                期望误判率（0~1）
+	 */
+	RevokedTokenBloomFilter(int expectedInsertions, double fpp) {
+		long n = Math.max(1, expectedInsertions);
+		double p = (fpp <= 0 || fpp >= 1) ? 0.01 : fpp;
+		long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+		int words = (int) Math.max(1, (m + 63) >>> 6);
+		this.bits = new AtomicLongArray(words);
+		this.bitSize = (long) words << 6;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+	}
+
+	void add(String tokenId) {
+		long hash = hash64(tokenId);
+		long h1 = hash;
+		long h2 = mix64(hash);
+		for (int i = 0; i < hashCount; i++) {
+			long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+			setBit(index);
+		}
+	}
+
+	boolean mightContain(String tokenId) {
+		long hash = hash64(tokenId);
+		long h1 = hash;
+		long h2 = mix64(hash);
+		for (int i = 0; i < hashCount; i++) {
+			long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void setBit(long index) {
+		int word = (int) (index >>> 6);
+		long mask = 1L << index;
+		long old;
+		do {
+			old = bits.get(word);
+			if ((old & mask) != 0) {
+				return;
+			}
+		} while (!bits.compareAndSet(word, old, old | mask));
+	}
+
+	/**
+	 * FNV-1a 64 位哈希
+	 */
+	private static long hash64(String s) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return (z ^ (z >>> 33)) | 1L;
+	}
+}
@@ -0,0 +1,181 @@
+package com.hrone.framework.security.jwt;
+
+import com.hrone.common.constant.CacheConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 注销服务（Redis 注销名单 + 本地布隆过滤器）
+ *
+ * 说明：
+ * - 注销时写入 revoked_tokens:{jti}，过期时间为 Token 剩余有效期，到期后自动清理
+ * - 每个节点维护一个已注销 jti 的布隆过滤器：未命中（绝大多数请求）直接放行，不访问 Redis；
+ *   命中后再查询 Redis 确认，排除误判
+ * - 注销通过 Redis 发布/订阅即时同步到其他节点；另按固定间隔用 SCAN 重建过滤器，
+ *   清除已过期的 ID，并补齐订阅断开期间漏掉的消息
+ * - 写入本地过滤器与重建时的替换在同一把锁内完成：重建期间收到的 ID 同时写入新过滤器，
+ *   不会因替换时机或 SCAN 漏掉新增的 key 而丢失
+ * - Redis 确认失败时按已注销处理（宁可拒绝，不放过已注销 Token）
+ */
+@Component
+public class TokenRevocationService implements MessageListener {
+
+	private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+	/**
+	 * 注销消息频道
+	 */
+	public static final String REVOKE_CHANNEL = "channel:token_revoke";
+
+	private static final int SCAN_BATCH = 1000;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private RedisMessageListenerContainer listenerContainer;
+
+	@Value("${jwt.revocation.expected-insertions:100000}")
+	private int expectedInsertions;
+
+	@Value("${jwt.revocation.fpp:0.001}")
+	private double fpp;
+
+	private volatile RevokedTokenBloomFilter filter;
+
+	/**
+	 * 重建期间的新过滤器；不为 null 时新注销的 ID 同时写入两个过滤器（由 swapLock 保护）
+	 */
+	private RevokedTokenBloomFilter rebuilding;
+
+	/**
+	 * 保护“写入本地过滤器”与“开始重建、替换过滤器”；SCAN 期间不持有
+	 */
+	private final Object swapLock = new Object();
+
+	@PostConstruct
+	public void init() {
+		filter = new RevokedTokenBloomFilter(expectedInsertions, fpp);
+		listenerContainer.addMessageListener(this, new ChannelTopic(REVOKE_CHANNEL));
+		try {
+			rebuild();
+		} catch (RuntimeException e) {
+			log.warn("加载Token注销名单失败，将在下次定时刷新时重试：{}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 注销 Token
+	 *
+	 * @param tokenId   Token ID（jti）
+	 * @param expiresAt Token 过期时间（毫秒时间戳）
+	 */
+	public void revoke(String tokenId, long expiresAt) {
+		if (tokenId == null) {
+			return;
+		}
+		long ttl = expiresAt - System.currentTimeMillis();
+		if (ttl <= 0) {
+			return;
+		}
+		stringRedisTemplate.opsForValue().set(CacheConstants.REVOKED_TOKEN_KEY + tokenId, "1", ttl, TimeUnit.MILLISECONDS);
+		addLocal(tokenId);
+		stringRedisTemplate.convertAndSend(REVOKE_CHANNEL, tokenId);
+	}
+
+	/**
+	 * Token 是否已注销；本地过滤器未命中时不访问 Redis
+	 */
+	public boolean isRevoked(String tokenId) {
+		if (tokenId == null || !filter.mightContain(tokenId)) {
+			return false;
+		}
+		try {
+			return Boolean.TRUE.equals(stringRedisTemplate.hasKey(CacheConstants.REVOKED_TOKEN_KEY + tokenId));
+		} catch (RuntimeException e) {
+			log.warn("确认Token注销状态失败，按已注销处理：{}", e.getMessage());
+			return true;
+		}
+	}
+
+	/**
+	 * 接收其他节点的注销消息
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		addLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * 定时重建过滤器：清除已过期的 ID，并补齐漏收的注销消息
+	 */
+	@Scheduled(initialDelayString = "${jwt.revocation.refresh-ms:60000}", fixedDelayString = "${jwt.revocation.refresh-ms:60000}")
+	public void refresh() {
+		try {
+			rebuild();
+		} catch (RuntimeException e) {
+			log.warn("刷新Token注销名单失败：{}", e.getMessage());
+		}
+	}
+
+	private synchronized void rebuild() {
+		RevokedTokenBloomFilter next = new RevokedTokenBloomFilter(expectedInsertions, fpp);
+		synchronized (swapLock) {
+			rebuilding = next;
+		}
+		try {
+			int prefixLength = CacheConstants.REVOKED_TOKEN_KEY.length();
+			ScanOptions options = ScanOptions.scanOptions()
+				.match(CacheConstants.REVOKED_TOKEN_KEY + "*")
+				.count(SCAN_BATCH)
+				.build();
+			int count = stringRedisTemplate.execute((RedisCallback<Integer>) connection -> {
+				int n = 0;
+				try (Cursor<byte[]> cursor = connection.scan(options)) {
+					while (cursor.hasNext()) {
+						String key = new String(cursor.next(), StandardCharsets.UTF_8);
+						next.add(key.substring(prefixLength));
+						n++;
+					}
+				}
+				return n;
+			});
+			synchronized (swapLock) {
+				filter = next;
+				rebuilding = null;
+			}
+			if (count > expectedInsertions) {
+				log.warn("已注销Token数量（{}）超过布隆过滤器预期容量（{}），误判率将升高", count, expectedInsertions);
+			}
+		} finally {
+			synchronized (swapLock) {
+				rebuilding = null;
+			}
+		}
+	}
+
+	private void addLocal(String tokenId) {
+		synchronized (swapLock) {
+			filter.add(tokenId);
+			if (rebuilding != null) {
+				rebuilding.add(tokenId);
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.hrone.framework.security.route;
+
+/**
+ * 路由认证模式
+ */
+public enum AuthMode {
+
+	/**
+	 * 公开访问：不校验 Token
+	 */
+	PUBLIC,
+
+	/**
+	 * 可选认证：携带有效 Token 时解析用户，否则匿名放行
+	 */
+	OPTIONAL,
+
+	/**
+	 * API Key 认证：校验请求头中的 API Key
+	 */
+	API_KEY,
+
+	/**
+	 * 必须登录：Token 无效返回 401
+	 */
+	AUTHENTICATED
+}
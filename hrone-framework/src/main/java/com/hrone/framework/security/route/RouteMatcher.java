@@ -0,0 +1,188 @@
+package com.hrone.framework.security.route;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 路由规则匹配器（启动时编译为按路径段组织的前缀树）
+ *
+ * 说明：
+ * - 匹配只沿请求路径逐段下行，耗时取决于路径深度，与规则条数无关
+ * - 优先级：字面量段 > * > **；同一位置回溯一次即可确定最具体的规则
+ * - 未命中规则时：位于静态资源目录下且扩展名属于静态资源的放行，其余使用默认模式
+ * - 传入的路径须已规范化（不含 ;参数、.. 与编码的分隔符），由调用方保证
+ * - 编译完成后只读，可被多线程共享
+ */
+public final class RouteMatcher {
+
+	private static final String SINGLE = "*";
+	private static final String MULTI = "**";
+
+	private final Node root = new Node();
+
+	private final Set<String> staticExtensions = new HashSet<>();
+
+	private final List<String> staticPrefixes = new ArrayList<>();
+
+	private final AuthMode defaultMode;
+
+	private RouteMatcher(AuthMode defaultMode) {
+		this.defaultMode = defaultMode == null ? AuthMode.AUTHENTICATED : defaultMode;
+	}
+
+	/**
+	 * 根据配置编译匹配器
+	 *
+	 * @throws IllegalArgumentException 规则格式非法
+	 */
+	public static RouteMatcher compile(RouteRuleProperties properties) {
+		RouteMatcher matcher = new RouteMatcher(properties.getDefaultMode());
+		List<RouteRuleProperties.Rule> rules = properties.getRules();
+		if (rules == null || rules.isEmpty()) {
+			rules = RouteRuleProperties.defaultRules();
+		}
+		for (RouteRuleProperties.Rule rule : rules) {
+			matcher.add(rule.getPattern(), rule.getMode());
+		}
+		if (properties.getStaticExtensions() != null) {
+			for (String ext : properties.getStaticExtensions()) {
+				String e = ext.trim().toLowerCase(Locale.ROOT);
+				matcher.staticExtensions.add(e.startsWith(".") ? e.substring(1) : e);
+			}
+		}
+		if (properties.getStaticPrefixes() != null) {
+			for (String prefix : properties.getStaticPrefixes()) {
+				String p = prefix.trim();
+				if (!p.startsWith("/") || "/".equals(p)) {
+					throw new IllegalArgumentException("静态资源目录必须以 / 开头且不能是根目录：" + prefix);
+				}
+				matcher.staticPrefixes.add(p.endsWith("/") ? p.substring(0, p.length() - 1) : p);
+			}
+		}
+		return matcher;
+	}
+
+	/**
+	 * 匹配请求路径（不含 context-path）
+	 */
+	public AuthMode match(String path) {
+		AuthMode mode = match(root, path, 0);
+		if (mode != null) {
+			return mode;
+		}
+		if (!staticExtensions.isEmpty() && inStaticLocation(path) && isStaticResource(path)) {
+			return AuthMode.PUBLIC;
+		}
+		return defaultMode;
+	}
+
+	private void add(String pattern, AuthMode mode) {
+		if (pattern == null || !pattern.startsWith("/")) {
+			throw new IllegalArgumentException("路由规则必须以 / 开头：" + pattern);
+		}
+		if (mode == null) {
+			throw new IllegalArgumentException("路由规则缺少认证模式：" + pattern);
+		}
+		String[] segments = pattern.split("/");
+		Node node = root;
+		for (int i = 0; i < segments.length; i++) {
+			String seg = segments[i];
+			if (seg.isEmpty()) {
+				continue;
+			}
+			if (MULTI.equals(seg)) {
+				if (i != segments.length - 1) {
+					throw new IllegalArgumentException("** 只能出现在路由规则末尾：" + pattern);
+				}
+				if (node.tailMode == null) {
+					node.tailMode = mode;
+				}
+				return;
+			}
+			if (seg.contains(SINGLE)) {
+				if (!SINGLE.equals(seg)) {
+					throw new IllegalArgumentException("不支持段内通配符：" + pattern);
+				}
+				if (node.single == null) {
+					node.single = new Node();
+				}
+				node = node.single;
+			} else {
+				node = node.literals.computeIfAbsent(seg, k -> new Node());
+			}
+		}
+		// 同一 pattern 重复配置时以先出现的为准
+		if (node.mode == null) {
+			node.mode = mode;
+		}
+	}
+
+	/**
+	 * 从 pos 开始匹配剩余路径；未命中返回 null
+	 */
+	private static AuthMode match(Node node, String path, int pos) {
+		int len = path.length();
+		// 跳过连续的 /
+		while (pos < len && path.charAt(pos) == '/') {
+			pos++;
+		}
+		if (pos >= len) {
+			return node.mode != null ? node.mode : node.tailMode;
+		}
+		int end = path.indexOf('/', pos);
+		if (end < 0) {
+			end = len;
+		}
+		if (!node.literals.isEmpty()) {
+			Node literal = node.literals.get(path.substring(pos, end));
+			if (literal != null) {
+				AuthMode mode = match(literal, path, end);
+				if (mode != null) {
+					return mode;
+				}
+			}
+		}
+		if (node.single != null) {
+			AuthMode mode = match(node.single, path, end);
+			if (mode != null) {
+				return mode;
+			}
+		}
+		return node.tailMode;
+	}
+
+	/**
+	 * 是否位于静态资源目录下（等于目录本身，或以“目录/”开头）
+	 */
+	private boolean inStaticLocation(String path) {
+		for (String prefix : staticPrefixes) {
+			if (path.startsWith(prefix)
+				&& (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isStaticResource(String path) {
+		int dot = path.lastIndexOf('.');
+		if (dot < 0 || dot < path.lastIndexOf('/') || dot == path.length() - 1) {
+			return false;
+		}
+		return staticExtensions.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+	}
+
+	private static final class Node {
+		private final Map<String, Node> literals = new HashMap<>();
+		private Node single;
+		/** 精确匹配到此节点时的模式 */
+		private AuthMode mode;
+		/** 以此节点为前缀的 ** 规则模式 */
+		private AuthMode tailMode;
+	}
+}
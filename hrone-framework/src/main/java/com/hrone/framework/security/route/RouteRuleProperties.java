@@ -0,0 +1,157 @@
+package com.hrone.framework.security.route;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 路由认证规则配置（hrone.security）
+ *
+ * 示例：
+ * <pre>
+ * hrone:
+ *   security:
+ *     default-mode: AUTHENTICATED
+ *     static-prefixes: [/static, /assets]
+ *     static-extensions: [js, css, png]
+ *     rules:
+ *       - pattern: /auth/**
+ *         mode: PUBLIC
+ * </pre>
+ *
+ * 说明：
+ * - pattern 以 / 开头，按段匹配：* 匹配一段，** 只能放在末尾，匹配零到多段
+ * - 多条规则同时命中时，字面量段优先于 *，* 优先于 **（越具体越优先）
+ * - 未配置 rules 时使用内置默认规则（与原白名单一致）
+ */
+@Component
+@ConfigurationProperties(prefix = "hrone.security")
+public class RouteRuleProperties {
+
+	/**
+	 * 未命中任何规则时的认证模式
+	 */
+	private AuthMode defaultMode = AuthMode.AUTHENTICATED;
+
+	/**
+	 * API Key 请求头名称
+	 */
+	private String apiKeyHeader = "X-API-Key";
+
+	/**
+	 * 允许的 API Key 列表
+	 */
+	private List<String> apiKeys = new ArrayList<>();
+
+	/**
+	 * 静态资源扩展名（未命中规则、且位于 staticPrefixes 下时直接放行）
+	 */
+	private List<String> staticExtensions = new ArrayList<>();
+
+	/**
+	 * 静态资源目录（如 /static）；为空时不按扩展名放行任何路径
+	 */
+	private List<String> staticPrefixes = new ArrayList<>();
+
+	/**
+	 * 路由规则
+	 */
+	private List<Rule> rules = new ArrayList<>();
+
+	public AuthMode getDefaultMode() {
+		return defaultMode;
+	}
+
+	public void setDefaultMode(AuthMode defaultMode) {
+		this.defaultMode = defaultMode;
+	}
+
+	public String getApiKeyHeader() {
+		return apiKeyHeader;
+	}
+
+	public void setApiKeyHeader(String apiKeyHeader) {
+		this.apiKeyHeader = apiKeyHeader;
+	}
+
+	public List<String> getApiKeys() {
+		return apiKeys;
+	}
+
+	public void setApiKeys(List<String> apiKeys) {
+		this.apiKeys = apiKeys;
+	}
+
+	public List<String> getStaticExtensions() {
+		return staticExtensions;
+	}
+
+	public void setStaticExtensions(List<String> staticExtensions) {
+		this.staticExtensions = staticExtensions;
+	}
+
+	public List<String> getStaticPrefixes() {
+		return staticPrefixes;
+	}
+
+	public void setStaticPrefixes(List<String> staticPrefixes) {
+		this.staticPrefixes = staticPrefixes;
+	}
+
+	public List<Rule> getRules() {
+		return rules;
+	}
+
+	public void setRules(List<Rule> rules) {
+		this.rules = rules;
+	}
+
+	/**
+	 * 内置默认规则（与原 JwtAuthenticationFilter 白名单一致）
+	 */
+	public static List<Rule> defaultRules() {
+		return Arrays.asList(
+			new Rule("/", AuthMode.PUBLIC),
+			new Rule("/auth/**", AuthMode.PUBLIC),
+			new Rule("/error/**", AuthMode.PUBLIC),
+			new Rule("/druid/**", AuthMode.PUBLIC),
+			new Rule("/test/**", AuthMode.PUBLIC),
+			new Rule("/actuator/**", AuthMode.PUBLIC)
+		);
+	}
+
+	/**
+	 * 单条路由规则
+	 */
+	public static class Rule {
+		private String pattern;
+		private AuthMode mode = AuthMode.AUTHENTICATED;
+
+		public Rule() {
+		}
+
+		public Rule(String pattern, AuthMode mode) {
+			this.pattern = pattern;
+			this.mode = mode;
+		}
+
+		public String getPattern() {
+			return pattern;
+		}
+
+		public void setPattern(String pattern) {
+			this.pattern = pattern;
+		}
+
+		public AuthMode getMode() {
+			return mode;
+		}
+
+		public void setMode(AuthMode mode) {
+			this.mode = mode;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.hrone.framework.service;
+
+import com.hrone.system.event.AuthorizationChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 授权变更事件的跨节点转发
+ *
+ * 说明：
+ * - 本节点发布的 AuthorizationChangedEvent 在事务提交后写入 Redis 频道
+ * - 其他节点收到后以 remote = true 在本地重新发布，供数据权限缓存等只有本地失效能力的监听方使用
+ * - 消息格式：“节点ID|类型|userId,userId”，影响所有用户时为“节点ID|类型|*”；忽略自己发出的消息
+ */
+@Component
+public class AuthorizationEventBroadcaster implements MessageListener {
+
+	private static final Logger log = LoggerFactory.getLogger(AuthorizationEventBroadcaster.class);
+
+	/**
+	 * 授权变更消息频道
+	 */
+	public static final String CHANNEL = "channel:authorization_change";
+
+	private final String nodeId = UUID.randomUUID().toString();
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private RedisMessageListenerContainer listenerContainer;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@PostConstruct
+	public void init() {
+		listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAuthorizationChanged(AuthorizationChangedEvent event) {
+		if (event.isRemote()) {
+			return;
+		}
+		StringBuilder message = new StringBuilder(nodeId).append('|').append(event.getType().name()).append('|');
+		if (event.isGlobal()) {
+			message.append('*');
+		} else {
+			int i = 0;
+			for (Long userId : event.getUserIds()) {
+				if (i++ > 0) {
+					message.append(',');
+				}
+				message.append(userId);
+			}
+		}
+		try {
+			stringRedisTemplate.convertAndSend(CHANNEL, message.toString());
+		} catch (RuntimeException e) {
+			log.error("转发授权变更失败：{}，{}", event, e.getMessage());
+		}
+	}
+
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+		if (parts.length < 3 || nodeId.equals(parts[0])) {
+			return;
+		}
+		AuthorizationChangedEvent.ChangeType type;
+		try {
+			type = AuthorizationChangedEvent.ChangeType.valueOf(parts[1]);
+		} catch (IllegalArgumentException e) {
+			return;
+		}
+		AuthorizationChangedEvent event;
+		if ("*".equals(parts[2])) {
+			event = AuthorizationChangedEvent.ofAll(type);
+		} else {
+			List<Long> userIds = new ArrayList<>();
+			for (String id : parts[2].split(",")) {
+				try {
+					userIds.add(Long.valueOf(id.trim()));
+				} catch (NumberFormatException ignored) {
+					// 跳过无法识别的ID
+				}
+			}
+			if (userIds.isEmpty()) {
+				return;
+			}
+			event = AuthorizationChangedEvent.ofUsers(type, userIds);
+		}
+		eventPublisher.publishEvent(event.asRemote());
+	}
+}
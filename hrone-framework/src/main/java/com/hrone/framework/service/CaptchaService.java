@@ -0,0 +1,368 @@
+package com.hrone.framework.service;
+
+import com.hrone.common.constant.CacheConstants;
+import com.hrone.common.exception.ServiceException;
+import com.hrone.common.utils.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 图片验证码服务
+ *
+ * 说明：
+ * - 启动时把字符表中的每个字符按不同角度/颜色预渲染为字形图集，生成验证码时只在像素数组上贴图、画干扰线与噪点，
+ *   不再逐字排版；PNG 直接编码，不经过 ImageIO
+ * - 验证码字符与验证码ID由线程内的 SecureRandom 生成（每线程一个实例，避免锁竞争）；
+ *   ThreadLocalRandom 的输出可被逆推，只用于干扰线、噪点等不影响安全的绘制
+ * - 签发与按 IP 限流在同一个 Lua 脚本中完成；校验使用 Lua 原子地读取并删除，一次往返且只能使用一次
+ */
+@Service
+public class CaptchaService {
+
+	/**
+	 * 字符表（去掉易混淆的 I、O、0、1）
+	 */
+	private static final char[] ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+
+	private static final int WIDTH = 120;
+	private static final int HEIGHT = 40;
+	private static final int GLYPH_WIDTH = 26;
+	private static final int GLYPH_HEIGHT = 36;
+
+	/**
+	 * 每个字符预渲染的变体数量
+	 */
+	private static final int VARIANTS = 8;
+
+	private static final Color[] PALETTE = {
+		new Color(32, 64, 160), new Color(160, 40, 40), new Color(30, 120, 60),
+		new Color(110, 50, 140), new Color(150, 90, 20), new Color(20, 110, 130)
+	};
+
+	private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+	private static final ThreadLocal<byte[]> RAW_BUFFER = ThreadLocal.withInitial(() -> new byte[HEIGHT * (1 + WIDTH * 3)]);
+
+	/**
+	 * 验证码字符与ID的随机源（不可预测；每线程一个实例）
+	 */
+	private static final ThreadLocal<SecureRandom> SECURE_RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+	/**
+	 * 验证码长度上限（受图片宽度限制）
+	 */
+	private static final int MAX_LENGTH = 8;
+
+	private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+	/**
+	 * 按 IP 计数并签发：超过限额返回 0，否则写入验证码并返回 1
+	 */
+	private static final RedisScript<Long> ISSUE_SCRIPT = new DefaultRedisScript<>(
+		"local n = redis.call('incr', KEYS[1]) "
+			+ "if n == 1 then redis.call('expire', KEYS[1], ARGV[2]) end "
+			+ "if n > tonumber(ARGV[1]) then return 0 end "
+			+ "redis.call('set', KEYS[2], ARGV[3], 'EX', ARGV[4]) "
+			+ "return 1",
+		Long.class);
+
+	/**
+	 * 读取并删除（Redis 6.2 以下没有 GETDEL）
+	 */
+	private static final RedisScript<String> TAKE_SCRIPT = new DefaultRedisScript<>(
+		"local v = redis.call('get', KEYS[1]) "
+			+ "if v then redis.call('del', KEYS[1]) end "
+			+ "return v",
+		String.class);
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Value("${captcha.length:4}")
+	private int length;
+
+	@Value("${captcha.rate-limit.count:30}")
+	private int rateLimitCount;
+
+	@Value("${captcha.rate-limit.seconds:60}")
+	private int rateLimitSeconds;
+
+	@Value("${captcha.expose-code:false}")
+	private boolean exposeCode;
+
+	/**
+	 * 字形图集：[字符下标][变体] -> ARGB 像素
+	 */
+	private int[][][] atlas;
+
+	@PostConstruct
+	public void init() {
+		if (length <= 0 || length > MAX_LENGTH) {
+			throw new IllegalStateException("captcha.length 必须在 1 到 " + MAX_LENGTH + " 之间：" + length);
+		}
+		Font font = new Font(Font.SANS_SERIF, Font.BOLD, 28);
+		atlas = new int[ALPHABET.length][VARIANTS][];
+		for (int c = 0; c < ALPHABET.length; c++) {
+			for (int v = 0; v < VARIANTS; v++) {
+				double angle = Math.toRadians(-25 + 50.0 * v / (VARIANTS - 1));
+				atlas[c][v] = renderGlyph(ALPHABET[c], font, angle, PALETTE[(c + v) % PALETTE.length]);
+			}
+		}
+	}
+
+	/**
+	 * 签发验证码
+	 *
+	 * @param ip 客户端IP（用于限流；应为 request.getRemoteAddr()，不能取自客户端可伪造的请求头）
+	 * @return 验证码
+	 * @throws ServiceException 超过签发频率（429）
+	 */
+	public Captcha create(String ip) {
+		SecureRandom random = SECURE_RANDOM.get();
+		int[] indexes = new int[length];
+		char[] code = new char[length];
+		for (int i = 0; i < length; i++) {
+			indexes[i] = random.nextInt(ALPHABET.length);
+			code[i] = ALPHABET[indexes[i]];
+		}
+		String uuid = Long.toHexString(random.nextLong() | Long.MIN_VALUE) + Long.toHexString(random.nextLong() | Long.MIN_VALUE);
+		Long issued = stringRedisTemplate.execute(ISSUE_SCRIPT,
+			Arrays.asList(CacheConstants.RATE_LIMIT_KEY + "captcha:"
+					+ (StringUtils.isNotEmpty(ip) ? LoginLockService.boundedKeyPart(ip, true) : "unknown"),
+				CacheConstants.CAPTCHA_CODE_KEY + uuid),
+			String.valueOf(rateLimitCount),
+			String.valueOf(rateLimitSeconds),
+			new String(code),
+			String.valueOf(TimeUnit.MINUTES.toSeconds(CacheConstants.CAPTCHA_EXPIRATION)));
+		if (issued == null || issued == 0L) {
+			throw new ServiceException("获取验证码过于频繁，请稍后再试", 429);
+		}
+		return new Captcha(uuid, render(indexes), exposeCode ? new String(code) : null);
+	}
+
+	/**
+	 * 校验验证码（无论成功与否都会删除，只能使用一次）
+	 *
+	 * @throws ServiceException 验证码为空、已过期或错误（400）
+	 */
+	public void validate(String uuid, String code) {
+		if (StringUtils.isEmpty(uuid) || StringUtils.isEmpty(code)) {
+			throw new ServiceException("验证码不能为空", 400);
+		}
+		String cached = stringRedisTemplate.execute(TAKE_SCRIPT,
+			Collections.singletonList(CacheConstants.CAPTCHA_CODE_KEY + uuid));
+		if (cached == null) {
+			throw new ServiceException("验证码已过期", 400);
+		}
+		if (!cached.equalsIgnoreCase(code)) {
+			throw new ServiceException("验证码错误", 400);
+		}
+	}
+
+	/**
+	 * 用图集拼出验证码图片，返回 PNG 的 Base64
+	 *
+	 * 直接在 int[] 像素数组上贴图与画线，再用 BEST_SPEED 压缩编码 PNG，
+	 * 不经过 Graphics2D 与 ImageIO（两者的固定开销占单张图片耗时的大部分）
+	 */
+	private String render(int[] indexes) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int[] pixels = new int[WIDTH * HEIGHT];
+		Arrays.fill(pixels, 0xF0F0F0 | (random.nextInt(16) << 16) | (random.nextInt(16) << 8) | random.nextInt(16));
+		for (int i = 0; i < 4; i++) {
+			drawLine(pixels, random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(WIDTH), random.nextInt(HEIGHT),
+				PALETTE[random.nextInt(PALETTE.length)].getRGB());
+		}
+		int step = (WIDTH - 8) / indexes.length;
+		for (int i = 0; i < indexes.length; i++) {
+			int[] glyph = atlas[indexes[i]][random.nextInt(VARIANTS)];
+			int x = 4 + i * step + random.nextInt(Math.max(1, step - GLYPH_WIDTH + 4));
+			int y = random.nextInt(Math.max(1, HEIGHT - GLYPH_HEIGHT + 4)) - 2;
+			blit(pixels, glyph, x, y);
+		}
+		for (int i = 0; i < WIDTH * HEIGHT / 40; i++) {
+			pixels[random.nextInt(pixels.length)] = random.nextInt(0x1000000);
+		}
+		return Base64.getEncoder().encodeToString(encodePng(pixels));
+	}
+
+	/**
+	 * 按 alpha 把字形叠加到画布上（超出画布的部分裁掉）
+	 */
+	private static void blit(int[] pixels, int[] glyph, int x0, int y0) {
+		for (int gy = 0; gy < GLYPH_HEIGHT; gy++) {
+			int y = y0 + gy;
+			if (y < 0 || y >= HEIGHT) {
+				continue;
+			}
+			for (int gx = 0; gx < GLYPH_WIDTH; gx++) {
+				int x = x0 + gx;
+				int src = glyph[gy * GLYPH_WIDTH + gx];
+				int a = src >>> 24;
+				if (a == 0 || x < 0 || x >= WIDTH) {
+					continue;
+				}
+				int idx = y * WIDTH + x;
+				int dst = pixels[idx];
+				int r = (((src >> 16) & 0xFF) * a + ((dst >> 16) & 0xFF) * (255 - a)) / 255;
+				int g = (((src >> 8) & 0xFF) * a + ((dst >> 8) & 0xFF) * (255 - a)) / 255;
+				int b = ((src & 0xFF) * a + (dst & 0xFF) * (255 - a)) / 255;
+				pixels[idx] = (r << 16) | (g << 8) | b;
+			}
+		}
+	}
+
+	/**
+	 * Bresenham 画线
+	 */
+	private static void drawLine(int[] pixels, int x0, int y0, int x1, int y1, int rgb) {
+		int dx = Math.abs(x1 - x0);
+		int dy = -Math.abs(y1 - y0);
+		int sx = x0 < x1 ? 1 : -1;
+		int sy = y0 < y1 ? 1 : -1;
+		int err = dx + dy;
+		while (true) {
+			pixels[y0 * WIDTH + x0] = rgb;
+			if (x0 == x1 && y0 == y1) {
+				return;
+			}
+			int e2 = 2 * err;
+			if (e2 >= dy) {
+				err += dy;
+				x0 += sx;
+			}
+			if (e2 <= dx) {
+				err += dx;
+				y0 += sy;
+			}
+		}
+	}
+
+	/**
+	 * 编码为 24 位 RGB 的 PNG（不做行过滤，BEST_SPEED 压缩）
+	 */
+	private static byte[] encodePng(int[] pixels) {
+		byte[] raw = RAW_BUFFER.get();
+		int p = 0;
+		for (int y = 0; y < HEIGHT; y++) {
+			raw[p++] = 0;
+			for (int x = 0; x < WIDTH; x++) {
+				int rgb = pixels[y * WIDTH + x];
+				raw[p++] = (byte) (rgb >> 16);
+				raw[p++] = (byte) (rgb >> 8);
+				raw[p++] = (byte) rgb;
+			}
+		}
+		Deflater deflater = DEFLATER.get();
+		deflater.reset();
+		deflater.setInput(raw, 0, p);
+		deflater.finish();
+		ByteArrayOutputStream idat = new ByteArrayOutputStream(4096);
+		byte[] chunk = new byte[4096];
+		while (!deflater.finished()) {
+			int n = deflater.deflate(chunk);
+			idat.write(chunk, 0, n);
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(idat.size() + 64);
+		out.write(PNG_SIGNATURE, 0, PNG_SIGNATURE.length);
+		ByteBuffer ihdr = ByteBuffer.allocate(13);
+		ihdr.putInt(WIDTH).putInt(HEIGHT).put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+		writeChunk(out, "IHDR", ihdr.array(), ihdr.position());
+		writeChunk(out, "IDAT", idat.toByteArray(), idat.size());
+		writeChunk(out, "IEND", new byte[0], 0);
+		return out.toByteArray();
+	}
+
+	private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data, int length) {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		writeInt(out, length);
+		out.write(typeBytes, 0, typeBytes.length);
+		out.write(data, 0, length);
+		writeInt(out, (int) crc.getValue());
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int v) {
+		out.write(v >>> 24);
+		out.write(v >>> 16);
+		out.write(v >>> 8);
+		out.write(v);
+	}
+
+	private static int[] renderGlyph(char ch, Font font, double angle, Color color) {
+		BufferedImage glyph = new BufferedImage(GLYPH_WIDTH, GLYPH_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = glyph.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			g.setFont(font);
+			g.setColor(color);
+			g.rotate(angle, GLYPH_WIDTH / 2.0, GLYPH_HEIGHT / 2.0);
+			int w = g.getFontMetrics().charWidth(ch);
+			int ascent = g.getFontMetrics().getAscent();
+			int descent = g.getFontMetrics().getDescent();
+			g.drawString(String.valueOf(ch), (GLYPH_WIDTH - w) / 2, (GLYPH_HEIGHT + ascent - descent) / 2);
+		} finally {
+			g.dispose();
+		}
+		return glyph.getRGB(0, 0, GLYPH_WIDTH, GLYPH_HEIGHT, null, 0, GLYPH_WIDTH);
+	}
+
+	/**
+	 * 验证码
+	 */
+	public static final class Captcha {
+		private final String uuid;
+		private final String img;
+		private final String code;
+
+		private Captcha(String uuid, String img, String code) {
+			this.uuid = uuid;
+			this.img = img;
+			this.code = code;
+		}
+
+		public String getUuid() {
+			return uuid;
+		}
+
+		/**
+		 * PNG 图片的 Base64（不含 data: 前缀）
+		 */
+		public String getImg() {
+			return img;
+		}
+
+		/**
+		 * 验证码文本，仅在 captcha.expose-code 开启时返回（联调用）
+		 */
+		public String getCode() {
+			return code;
+		}
+	}
+}
@@ -0,0 +1,309 @@
+package com.hrone.framework.service;
+
+import com.hrone.common.constant.CacheConstants;
+import com.hrone.common.exception.ServiceException;
+import com.hrone.system.mapper.LogPartitionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 日志保留任务（操作日志、登录日志）
+ *
+ * 说明：
+ * - 日志表按月分区（见 sql/update_log_partition.sql），每天定时提前创建之后 monthsAhead 个月的分区
+ * - 超过保留天数的整月分区直接删除（DROP 模式）或交换到归档表后删除（ARCHIVE 模式，归档表名为 表名_yyyyMM），
+ *   耗时与数据量无关，不产生 undo
+ * - 分区边界所在月份中剩余的过期数据按时间索引分批删除，每批之间暂停 deletePauseMs，避免长时间锁表与主从延迟
+ * - 表未分区时（未执行升级脚本）只做分批删除
+ * - 多节点通过 Redis 锁保证同一时间只有一个节点执行
+ */
+@Service
+public class LogRetentionService {
+
+	private static final Logger log = LoggerFactory.getLogger(LogRetentionService.class);
+
+	private static final String FUTURE_PARTITION = "p_future";
+
+	private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+	/**
+	 * 锁的最长持有时间（节点异常退出时自动释放）
+	 */
+	private static final long LOCK_TIMEOUT_MINUTES = 60;
+
+	/**
+	 * 只删除自己持有的锁
+	 */
+	private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+		"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+		Long.class);
+
+	/**
+	 * 受管理的日志表（表名、列名只来自这里，会直接拼接进 SQL）
+	 */
+	public enum LogTable {
+		OPER_LOG("sys_oper_log", "oper_time"),
+		LOGIN_LOG("sys_login_log", "login_time");
+
+		private final String table;
+
+		private final String timeColumn;
+
+		LogTable(String table, String timeColumn) {
+			this.table = table;
+			this.timeColumn = timeColumn;
+		}
+
+		public String getTable() {
+			return table;
+		}
+
+		public String getTimeColumn() {
+			return timeColumn;
+		}
+	}
+
+	/**
+	 * 过期分区的处理方式
+	 */
+	public enum Mode {
+		/** 直接删除 */
+		DROP,
+		/** 交换到归档表后删除 */
+		ARCHIVE
+	}
+
+	@Autowired
+	private LogPartitionMapper partitionMapper;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Value("${log.retention.enabled:true}")
+	private boolean enabled;
+
+	@Value("${log.retention.oper-log-days:180}")
+	private int operLogDays;
+
+	@Value("${log.retention.login-log-days:90}")
+	private int loginLogDays;
+
+	@Value("${log.retention.mode:DROP}")
+	private Mode mode;
+
+	@Value("${log.retention.months-ahead:3}")
+	private int monthsAhead;
+
+	@Value("${log.retention.delete-batch-size:5000}")
+	private int deleteBatchSize;
+
+	@Value("${log.retention.delete-pause-ms:200}")
+	private long deletePauseMs;
+
+	@PostConstruct
+	public void init() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			withLock(() -> {
+				for (LogTable table : LogTable.values()) {
+					ensurePartitions(table);
+				}
+				return null;
+			});
+		} catch (RuntimeException e) {
+			log.warn("创建日志表分区失败，将在定时任务中重试：{}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 每日维护：提前创建分区，清理超过保留天数的日志
+	 */
+	@Scheduled(cron = "${log.retention.cron:0 30 2 * * ?}")
+	public void maintain() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			Map<String, Object> result = withLock(() -> {
+				Map<String, Object> r = new LinkedHashMap<>();
+				for (LogTable table : LogTable.values()) {
+					ensurePartitions(table);
+					int days = table == LogTable.OPER_LOG ? operLogDays : loginLogDays;
+					if (days > 0) {
+						r.put(table.getTable(), purge(table, LocalDate.now().minusDays(days)));
+					}
+				}
+				return r;
+			});
+			if (result == null) {
+				log.info("日志保留任务正在其他节点执行，本次跳过");
+			} else {
+				log.info("日志保留任务完成：{}", result);
+			}
+		} catch (RuntimeException e) {
+			log.error("日志保留任务失败：{}", e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 删除 days 天之前的日志（按自然日，今天之前 days 天的 0 点之前）
+	 *
+	 * @return 删除的分区、归档表与分批删除的条数
+	 */
+	public Map<String, Object> purgeOlderThan(LogTable table, int days) {
+		if (days < 1) {
+			throw new ServiceException("保留天数不能小于1", 400);
+		}
+		Map<String, Object> result = withLock(() -> purge(table, LocalDate.now().minusDays(days)));
+		if (result == null) {
+			throw new ServiceException("日志清理任务正在执行，请稍后再试", 409);
+		}
+		return result;
+	}
+
+	/**
+	 * 保证 p_future 之前已有到 (当前月 + monthsAhead) 为止的月分区
+	 */
+	private void ensurePartitions(LogTable table) {
+		List<Map<String, Object>> partitions = partitionMapper.selectPartitions(table.getTable());
+		if (partitions.isEmpty()) {
+			return;
+		}
+		LocalDate last = null;
+		boolean hasFuture = false;
+		for (Map<String, Object> partition : partitions) {
+			LocalDate bound = parseBound(partition.get("bound"));
+			if (bound == null) {
+				hasFuture = FUTURE_PARTITION.equals(String.valueOf(partition.get("name")));
+			} else {
+				last = bound;
+			}
+		}
+		if (!hasFuture || last == null) {
+			log.warn("日志表{}的分区不符合约定（缺少 {}），跳过分区维护", table.getTable(), FUTURE_PARTITION);
+			return;
+		}
+		LocalDate target = LocalDate.now().withDayOfMonth(1).plusMonths(monthsAhead + 1L);
+		while (last.isBefore(target)) {
+			LocalDate next = last.withDayOfMonth(1).plusMonths(1);
+			String name = "p" + last.format(MONTH);
+			partitionMapper.addPartition(table.getTable(), name, next.toString());
+			log.info("日志表{}已创建分区{}（< {}）", table.getTable(), name, next);
+			last = next;
+		}
+	}
+
+	/**
+	 * 清理 cutoff 之前的日志：整月分区删除或归档，剩余的分批删除
+	 */
+	private Map<String, Object> purge(LogTable table, LocalDate cutoff) {
+		int droppedPartitions = 0;
+		int archivedPartitions = 0;
+		List<Map<String, Object>> partitions = partitionMapper.selectPartitions(table.getTable());
+		// 至少保留一个有上界的分区，p_future 之前的月分区才能继续拆分
+		for (int i = 0; i + 1 < partitions.size(); i++) {
+			String name = String.valueOf(partitions.get(i).get("name"));
+			LocalDate bound = parseBound(partitions.get(i).get("bound"));
+			// 上界不晚于 cutoff 的分区中全部是过期数据
+			if (bound == null || bound.isAfter(cutoff) || parseBound(partitions.get(i + 1).get("bound")) == null) {
+				break;
+			}
+			if (mode == Mode.ARCHIVE) {
+				String archiveTable = table.getTable() + "_" + name.substring(name.startsWith("p_") ? 2 : 1);
+				partitionMapper.createArchiveTable(archiveTable, table.getTable());
+				partitionMapper.removePartitioning(archiveTable);
+				partitionMapper.exchangePartition(table.getTable(), name, archiveTable);
+				archivedPartitions++;
+				log.info("日志表{}的分区{}已归档到{}", table.getTable(), name, archiveTable);
+			}
+			partitionMapper.dropPartition(table.getTable(), name);
+			droppedPartitions++;
+			log.info("日志表{}已删除分区{}（< {}）", table.getTable(), name, bound);
+		}
+
+		long deletedRows = deleteInChunks(table, toDate(cutoff));
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("cutoff", cutoff.toString());
+		result.put("droppedPartitions", droppedPartitions);
+		result.put("archivedPartitions", archivedPartitions);
+		result.put("deletedRows", deletedRows);
+		return result;
+	}
+
+	/**
+	 * 分批删除（每批单独提交，批间暂停）
+	 */
+	private long deleteInChunks(LogTable table, Date before) {
+		long total = 0;
+		while (true) {
+			int n = partitionMapper.deleteBefore(table.getTable(), table.getTimeColumn(), before, deleteBatchSize);
+			total += n;
+			if (n < deleteBatchSize) {
+				return total;
+			}
+			if (deletePauseMs > 0) {
+				try {
+					Thread.sleep(deletePauseMs);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return total;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 取得锁后执行，未取得锁时返回 null
+	 */
+	private <T> T withLock(Supplier<T> task) {
+		String token = UUID.randomUUID().toString();
+		Boolean locked = stringRedisTemplate.opsForValue()
+			.setIfAbsent(CacheConstants.LOG_RETENTION_LOCK_KEY, token, LOCK_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+		if (!Boolean.TRUE.equals(locked)) {
+			return null;
+		}
+		try {
+			return task.get();
+		} finally {
+			stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(CacheConstants.LOG_RETENTION_LOCK_KEY), token);
+		}
+	}
+
+	/**
+	 * 解析分区上界（'2026-11-01 00:00:00' 或 '2026-11-01'），MAXVALUE 返回 null
+	 */
+	private static LocalDate parseBound(Object bound) {
+		String text = bound != null ? bound.toString().replace("'", "").trim() : "";
+		if (text.length() < 10 || "MAXVALUE".equalsIgnoreCase(text)) {
+			return null;
+		}
+		return LocalDate.parse(text.substring(0, 10));
+	}
+
+	private static Date toDate(LocalDate date) {
+		return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+}
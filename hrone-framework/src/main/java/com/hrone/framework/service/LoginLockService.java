@@ -0,0 +1,250 @@
+package com.hrone.framework.service;
+
+import com.hrone.common.constant.CacheConstants;
+import com.hrone.common.exception.ServiceException;
+import com.hrone.common.utils.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录失败锁定服务（防暴力破解）
+ *
+ * 说明：
+ * - 按用户名与 IP 分别计数：pwd_err_cnt:user:{username}、pwd_err_cnt:ip:{ip}
+ * - IP 为容器解析的客户端地址（request.getRemoteAddr()，只信任 server.tomcat.remoteip 配置的代理），
+ *   不直接读取 X-Forwarded-For；用户名或 IP 超长、含非法字符时以摘要作为 key，避免任意长度的 key
+ * - 失败计数使用 Lua 脚本：自增、首次设置过期时间、返回当前值与剩余过期时间，一次往返完成
+ * - 达到上限后在本节点记录锁定截止时间（按 Redis 中的剩余过期时间），之后的请求在查库与 BCrypt 之前直接拒绝，不访问 Redis
+ * - 本地未锁定时用一次 Lua 调用读取两个计数及剩余过期时间，以发现其他节点触发的锁定
+ * - 清除失败计数时通过发布/订阅通知所有节点删除本地锁定记录
+ */
+@Service
+public class LoginLockService implements MessageListener {
+
+	/**
+	 * 解除锁定消息频道；消息内容为计数 key
+	 */
+	public static final String UNLOCK_CHANNEL = "channel:login_unlock";
+
+	/**
+	 * 依次对每个 key 自增，首次自增时设置过期时间（秒），返回各 key 的计数与剩余过期时间（毫秒）
+	 */
+	private static final RedisScript<List> INCR_SCRIPT = new DefaultRedisScript<>(
+		"local r = {} "
+			+ "for i, key in ipairs(KEYS) do "
+			+ "  local n = redis.call('incr', key) "
+			+ "  if n == 1 then redis.call('expire', key, ARGV[1]) end "
+			+ "  r[2 * i - 1] = n "
+			+ "  r[2 * i] = redis.call('pttl', key) "
+			+ "end "
+			+ "return r",
+		List.class);
+
+	/**
+	 * 读取每个 key 的计数与剩余过期时间（毫秒）；key 不存在时计数为 0
+	 */
+	private static final RedisScript<List> GET_SCRIPT = new DefaultRedisScript<>(
+		"local r = {} "
+			+ "for i, key in ipairs(KEYS) do "
+			+ "  r[2 * i - 1] = tonumber(redis.call('get', key) or '0') "
+			+ "  r[2 * i] = redis.call('pttl', key) "
+			+ "end "
+			+ "return r",
+		List.class);
+
+	/**
+	 * 超过该长度的用户名、IP 以摘要作为 key
+	 */
+	private static final int MAX_KEY_PART_LENGTH = 64;
+
+	/**
+	 * 本地锁定记录上限，超过时先清理已过期记录
+	 */
+	private static final int LOCAL_MAX_SIZE = 10000;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private RedisMessageListenerContainer listenerContainer;
+
+	@Value("${login.lock.ip-max-count:20}")
+	private int ipMaxCount;
+
+	/**
+	 * 本地锁定记录：计数 key -> 锁定截止时间（毫秒）
+	 */
+	private final Map<String, Long> locked = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		listenerContainer.addMessageListener(this, new ChannelTopic(UNLOCK_CHANNEL));
+	}
+
+	/**
+	 * 登录前检查是否已锁定
+	 *
+	 * @throws ServiceException 用户名或 IP 已锁定（429）
+	 */
+	public void checkLocked(String username, String ip) {
+		String userKey = userKey(username);
+		String ipKey = ipKey(ip);
+		long now = System.currentTimeMillis();
+		if (isLocallyLocked(userKey, now) || isLocallyLocked(ipKey, now)) {
+			throw lockedException();
+		}
+		List<?> counts = stringRedisTemplate.execute(GET_SCRIPT, Arrays.asList(userKey, ipKey));
+		if (counts == null || counts.size() < 4) {
+			return;
+		}
+		boolean lockedNow = false;
+		if (toInt(counts.get(0)) >= CacheConstants.PWD_ERR_MAX_COUNT) {
+			lockLocally(userKey, now, toLong(counts.get(1)));
+			lockedNow = true;
+		}
+		if (toInt(counts.get(2)) >= ipMaxCount) {
+			lockLocally(ipKey, now, toLong(counts.get(3)));
+			lockedNow = true;
+		}
+		if (lockedNow) {
+			throw lockedException();
+		}
+	}
+
+	/**
+	 * 记录一次失败（用户不存在或密码错误）
+	 *
+	 * @return 该用户名的累计失败次数
+	 */
+	public int recordFailure(String username, String ip) {
+		String userKey = userKey(username);
+		String ipKey = ipKey(ip);
+		List<?> counts = stringRedisTemplate.execute(INCR_SCRIPT, Arrays.asList(userKey, ipKey),
+			String.valueOf(TimeUnit.MINUTES.toSeconds(CacheConstants.PWD_ERR_CNT_EXPIRATION)));
+		if (counts == null || counts.size() < 4) {
+			return 0;
+		}
+		long now = System.currentTimeMillis();
+		int userCount = toInt(counts.get(0));
+		if (userCount >= CacheConstants.PWD_ERR_MAX_COUNT) {
+			lockLocally(userKey, now, toLong(counts.get(1)));
+		}
+		if (toInt(counts.get(2)) >= ipMaxCount) {
+			lockLocally(ipKey, now, toLong(counts.get(3)));
+		}
+		return userCount;
+	}
+
+	/**
+	 * 登录成功后清除该用户名的失败计数，并通知所有节点删除本地锁定记录
+	 */
+	public void clearFailures(String username) {
+		String userKey = userKey(username);
+		locked.remove(userKey);
+		stringRedisTemplate.delete(userKey);
+		stringRedisTemplate.convertAndSend(UNLOCK_CHANNEL, userKey);
+	}
+
+	/**
+	 * 其他节点清除了失败计数
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		locked.remove(new String(message.getBody(), StandardCharsets.UTF_8));
+	}
+
+	private boolean isLocallyLocked(String key, long now) {
+		Long until = locked.get(key);
+		if (until == null) {
+			return false;
+		}
+		if (until <= now) {
+			locked.remove(key, until);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 本地锁定到 Redis 计数过期为止
+	 *
+	 * @param ttlMillis 计数的剩余过期时间（PTTL；无过期时间或未知时按完整锁定时长）
+	 */
+	private void lockLocally(String key, long now, long ttlMillis) {
+		if (locked.size() >= LOCAL_MAX_SIZE) {
+			locked.values().removeIf(until -> until <= now);
+		}
+		long window = TimeUnit.MINUTES.toMillis(CacheConstants.PWD_ERR_CNT_EXPIRATION);
+		locked.put(key, now + (ttlMillis > 0 ? Math.min(ttlMillis, window) : window));
+	}
+
+	private static ServiceException lockedException() {
+		return new ServiceException(StringUtils.format("密码输入错误次数过多，帐户锁定{}分钟",
+			CacheConstants.PWD_ERR_CNT_EXPIRATION), 429);
+	}
+
+	private static String userKey(String username) {
+		return CacheConstants.PWD_ERR_CNT_KEY + "user:" + boundedKeyPart(username, false);
+	}
+
+	private static String ipKey(String ip) {
+		return CacheConstants.PWD_ERR_CNT_KEY + "ip:" + (StringUtils.isNotEmpty(ip) ? boundedKeyPart(ip, true) : "unknown");
+	}
+
+	/**
+	 * 长度不超过 MAX_KEY_PART_LENGTH（IP 还要求只含十六进制数字、. 与 :）时原样使用，否则使用 SHA-256 摘要
+	 */
+	static String boundedKeyPart(String value, boolean ip) {
+		boolean plain = value.length() <= MAX_KEY_PART_LENGTH;
+		for (int i = 0; plain && ip && i < value.length(); i++) {
+			char c = value.charAt(i);
+			plain = Character.digit(c, 16) >= 0 || c == '.' || c == ':';
+		}
+		if (plain) {
+			return value;
+		}
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+			return "sha256:" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("当前JVM不支持SHA-256", e);
+		}
+	}
+
+	private static long toLong(Object value) {
+		return value instanceof Number ? ((Number) value).longValue() : -1L;
+	}
+
+	private static int toInt(Object value) {
+		if (value instanceof Number) {
+			return ((Number) value).intValue();
+		}
+		if (value instanceof String && !((String) value).isEmpty()) {
+			try {
+				return Integer.parseInt((String) value);
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+		return 0;
+	}
+}
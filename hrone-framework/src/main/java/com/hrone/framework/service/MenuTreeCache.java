@@ -0,0 +1,131 @@
+package com.hrone.framework.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hrone.common.core.domain.AjaxResult;
+import com.hrone.system.domain.SysMenu;
+import com.hrone.system.event.AuthorizationChangedEvent;
+import com.hrone.system.service.ISysMenuService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 菜单树缓存（按角色组合缓存已序列化的响应）
+ *
+ * 说明：
+ * - 用户路由菜单只取决于其角色，缓存键为排序后的角色ID（“1,2,5”），角色相同的用户共用一份
+ * - 缓存内容为整个响应（AjaxResult）的 JSON 字节，命中时直接写出，不构建菜单对象、不再序列化
+ * - 完整菜单树（/system/menu/tree 不带查询条件时）单独缓存一份
+ * - 菜单变更、角色变更、角色菜单授权变更时整体清空；用户角色变更只影响用户的角色ID，不影响缓存内容
+ * - 其他节点的变更由 AuthorizationEventBroadcaster 转发为 remote 事件，处理方式相同
+ */
+@Component
+public class MenuTreeCache {
+
+	/**
+	 * 完整菜单树的缓存键
+	 */
+	private static final String FULL_TREE_KEY = "*";
+
+	@Autowired
+	private ISysMenuService menuService;
+
+	@Autowired
+	private PermissionCacheService permissionCacheService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * 最多缓存的角色组合数，超出时清空重建
+	 */
+	@Value("${menu.cache.max-entries:1000}")
+	private int maxEntries;
+
+	private final Map<String, byte[]> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * 失效计数；构建期间或写入前后发生失效时不保留写入的结果，避免旧结果覆盖
+	 */
+	private final AtomicLong epoch = new AtomicLong();
+
+	/**
+	 * 用户的路由菜单树（已序列化的 AjaxResult）
+	 */
+	public byte[] getUserMenuTree(Long userId) {
+		long[] roleIds = permissionCacheService.getRoleIds(userId);
+		long[] sorted = roleIds.clone();
+		Arrays.sort(sorted);
+		StringBuilder key = new StringBuilder();
+		List<Long> ids = new ArrayList<>(sorted.length);
+		for (long roleId : sorted) {
+			if (key.length() > 0) {
+				key.append(',');
+			}
+			key.append(roleId);
+			ids.add(roleId);
+		}
+		return get(key.toString(), () -> menuService.selectMenusByRoleIds(ids));
+	}
+
+	/**
+	 * 完整菜单树（已序列化的 AjaxResult）
+	 */
+	public byte[] getFullMenuTree() {
+		return get(FULL_TREE_KEY, () -> menuService.selectMenuList(new SysMenu()));
+	}
+
+	/**
+	 * 序列化响应（与 Spring MVC 使用同一个 ObjectMapper，输出一致）
+	 */
+	public byte[] toJson(AjaxResult result) {
+		try {
+			return objectMapper.writeValueAsBytes(result);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("菜单树序列化失败", e);
+		}
+	}
+
+	private byte[] get(String key, Supplier<List<SysMenu>> loader) {
+		byte[] cached = cache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		long current = epoch.get();
+		byte[] json = toJson(AjaxResult.success(menuService.buildMenuTree(loader.get())));
+		if (epoch.get() == current) {
+			if (cache.size() >= maxEntries) {
+				cache.clear();
+			}
+			cache.put(key, json);
+			// 检查与写入之间发生了失效：撤回本次写入（失效方先自增再清空，这里自增后必然能看到）
+			if (epoch.get() != current) {
+				cache.remove(key, json);
+			}
+		}
+		return json;
+	}
+
+	/**
+	 * 授权数据变更（事务提交后执行；无事务时立即执行）
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAuthorizationChanged(AuthorizationChangedEvent event) {
+		if (event.getType() == AuthorizationChangedEvent.ChangeType.MENU
+			|| event.getType() == AuthorizationChangedEvent.ChangeType.ROLE
+			|| event.getType() == AuthorizationChangedEvent.ChangeType.ROLE_MENU) {
+			epoch.incrementAndGet();
+			cache.clear();
+		}
+	}
+}
@@ -0,0 +1,372 @@
+package com.hrone.framework.service;
+
+import com.hrone.common.constant.CacheConstants;
+import com.hrone.common.utils.ServletUtils;
+import com.hrone.common.utils.StringUtils;
+import com.hrone.framework.security.jwt.JwtPrincipal;
+import com.hrone.framework.security.jwt.RefreshTokenService;
+import com.hrone.framework.security.jwt.TokenRevocationService;
+import com.hrone.system.domain.SysUserOnline;
+import com.hrone.system.event.UserCredentialChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在线用户服务（Redis 会话登记 + 滑动过期）
+ *
+ * 说明：
+ * - 登录时写入 login_tokens:{jti}（Hash），过期时间为 LOGIN_TOKEN_EXPIRATION，访问时顺延
+ * - 请求线程只在本地记录最后访问时间（touch），不访问 Redis；
+ *   定时任务按批次用管道统一刷新过期时间与最后访问时间
+ * - 刷新时发现会话已不存在（闲置超时），注销对应 Token；闲置超时的判定最多延迟一个刷新周期
+ * - 用户停用、删除、改密后（事务提交后），注销其全部刷新令牌、Access Token 与在线会话
+ */
+@Service
+public class OnlineUserService {
+
+	private static final Logger log = LoggerFactory.getLogger(OnlineUserService.class);
+
+	/**
+	 * 会话存在时顺延过期时间并更新最后访问时间；不存在时返回 0（不会重新创建 key）
+	 */
+	private static final byte[] TOUCH_SCRIPT = (
+		"if redis.call('expire', KEYS[1], ARGV[2]) == 1 then "
+			+ "redis.call('hset', KEYS[1], 'lastAccessTime', ARGV[1]) return 1 end "
+			+ "return 0").getBytes(StandardCharsets.UTF_8);
+
+	private static final int BATCH_SIZE = 500;
+
+	private static final String F_USER_ID = "userId";
+	private static final String F_USER_NAME = "userName";
+	private static final String F_IPADDR = "ipaddr";
+	private static final String F_BROWSER = "browser";
+	private static final String F_OS = "os";
+	private static final String F_LOGIN_TIME = "loginTime";
+	private static final String F_LAST_ACCESS_TIME = "lastAccessTime";
+	private static final String F_EXPIRE_TIME = "expireTime";
+	private static final String F_FAMILY_ID = "familyId";
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private TokenRevocationService revocationService;
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Value("${online.expire-minutes:30}")
+	private long expireMinutes;
+
+	/**
+	 * 待刷新的访问记录：jti -> 访问信息
+	 */
+	private final Map<String, Touch> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * 登记在线会话
+	 *
+	 * @param userId    用户ID
+	 * @param userName  用户名
+	 * @param tokenId   Token ID（jti）
+	 * @param familyId  刷新令牌 family ID（强退时一并删除）
+	 * @param expiresAt Token 过期时间（毫秒时间戳）
+	 */
+	public void register(Long userId, String userName, String tokenId, String familyId, long expiresAt) {
+		long now = System.currentTimeMillis();
+		String userAgent = ServletUtils.getRequest() != null ? ServletUtils.getUserAgent() : null;
+		Map<String, String> fields = new HashMap<>();
+		fields.put(F_USER_ID, String.valueOf(userId));
+		fields.put(F_USER_NAME, userName);
+		fields.put(F_IPADDR, ServletUtils.getRequest() != null ? ServletUtils.getRemoteAddr() : "");
+		fields.put(F_BROWSER, parseBrowser(userAgent));
+		fields.put(F_OS, parseOs(userAgent));
+		fields.put(F_LOGIN_TIME, String.valueOf(now));
+		fields.put(F_LAST_ACCESS_TIME, String.valueOf(now));
+		fields.put(F_EXPIRE_TIME, String.valueOf(expiresAt));
+		fields.put(F_FAMILY_ID, familyId != null ? familyId : "");
+		String key = CacheConstants.LOGIN_TOKEN_KEY + tokenId;
+		stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+			Map<byte[], byte[]> raw = new HashMap<>();
+			fields.forEach((k, v) -> raw.put(k.getBytes(StandardCharsets.UTF_8), String.valueOf(v).getBytes(StandardCharsets.UTF_8)));
+			connection.hMSet(rawKey, raw);
+			connection.expire(rawKey, TimeUnit.MINUTES.toSeconds(expireMinutes));
+			return null;
+		});
+	}
+
+	/**
+	 * 记录一次访问（只写本地内存，由定时任务批量刷新到 Redis）
+	 */
+	public void touch(JwtPrincipal principal) {
+		String tokenId = principal.getTokenId();
+		if (tokenId == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		Touch touch = pending.get(tokenId);
+		if (touch != null) {
+			touch.lastAccess = now;
+			return;
+		}
+		pending.putIfAbsent(tokenId, new Touch(now, principal.getExpiresAt()));
+	}
+
+	/**
+	 * 查询在线用户
+	 *
+	 * @param ipaddr   登录地址（为空不过滤）
+	 * @param userName 用户名（为空不过滤）
+	 */
+	public List<SysUserOnline> list(String ipaddr, String userName) {
+		List<String> keys = scanKeys();
+		List<SysUserOnline> result = new ArrayList<>();
+		for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+			List<String> batch = keys.subList(from, Math.min(from + BATCH_SIZE, keys.size()));
+			List<Object> values = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+				for (String key : batch) {
+					connection.hGetAll(key.getBytes(StandardCharsets.UTF_8));
+				}
+				return null;
+			});
+			for (int i = 0; i < batch.size(); i++) {
+				@SuppressWarnings("unchecked")
+				Map<Object, Object> hash = (Map<Object, Object>) values.get(i);
+				if (hash == null || hash.isEmpty()) {
+					continue;
+				}
+				SysUserOnline online = toOnline(batch.get(i).substring(CacheConstants.LOGIN_TOKEN_KEY.length()), hash);
+				if (StringUtils.isNotEmpty(ipaddr) && !ipaddr.equals(online.getIpaddr())) {
+					continue;
+				}
+				if (StringUtils.isNotEmpty(userName) && !userName.equals(online.getUserName())) {
+					continue;
+				}
+				result.add(online);
+			}
+		}
+		result.sort(Comparator.comparing(SysUserOnline::getLoginTime, Comparator.nullsLast(Comparator.reverseOrder())));
+		return result;
+	}
+
+	/**
+	 * 查询单个会话；不存在返回 null
+	 */
+	public SysUserOnline get(String tokenId) {
+		Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(CacheConstants.LOGIN_TOKEN_KEY + tokenId);
+		return hash.isEmpty() ? null : toOnline(tokenId, hash);
+	}
+
+	/**
+	 * 强退：注销 Token、删除刷新令牌与会话
+	 *
+	 * @return 会话不存在时返回 false
+	 */
+	public boolean forceLogout(String tokenId) {
+		Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(CacheConstants.LOGIN_TOKEN_KEY + tokenId);
+		if (hash.isEmpty()) {
+			return false;
+		}
+		Date expireTime = toDate(hash.get(F_EXPIRE_TIME));
+		if (expireTime != null) {
+			revocationService.revoke(tokenId, expireTime.getTime());
+		}
+		refreshTokenService.revokeFamily((String) hash.get(F_FAMILY_ID));
+		remove(tokenId);
+		return true;
+	}
+
+	/**
+	 * 删除会话（退出登录）
+	 */
+	public void remove(String tokenId) {
+		pending.remove(tokenId);
+		stringRedisTemplate.delete(CacheConstants.LOGIN_TOKEN_KEY + tokenId);
+	}
+
+	/**
+	 * 用户凭据变更：注销该用户的全部会话
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onUserCredentialChanged(UserCredentialChangedEvent event) {
+		if (event.getUserId() == null) {
+			return;
+		}
+		try {
+			for (String tokenId : refreshTokenService.revokeUser(event.getUserId())) {
+				remove(tokenId);
+			}
+		} catch (RuntimeException e) {
+			log.warn("注销用户会话失败：{}，{}", event, e.getMessage());
+		}
+	}
+
+	/**
+	 * 批量刷新访问记录
+	 */
+	@Scheduled(fixedDelayString = "${online.flush-ms:5000}")
+	public void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		List<String> tokenIds = new ArrayList<>(Math.min(pending.size(), BATCH_SIZE));
+		List<Touch> touches = new ArrayList<>(Math.min(pending.size(), BATCH_SIZE));
+		Iterator<Map.Entry<String, Touch>> it = pending.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, Touch> entry = it.next();
+			it.remove();
+			tokenIds.add(entry.getKey());
+			touches.add(entry.getValue());
+			if (tokenIds.size() == BATCH_SIZE) {
+				flushBatch(tokenIds, touches);
+				tokenIds.clear();
+				touches.clear();
+			}
+		}
+		if (!tokenIds.isEmpty()) {
+			flushBatch(tokenIds, touches);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		flush();
+	}
+
+	private void flushBatch(List<String> tokenIds, List<Touch> touches) {
+		byte[] ttl = String.valueOf(TimeUnit.MINUTES.toSeconds(expireMinutes)).getBytes(StandardCharsets.UTF_8);
+		List<Object> results;
+		try {
+			results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+				for (int i = 0; i < tokenIds.size(); i++) {
+					byte[] key = (CacheConstants.LOGIN_TOKEN_KEY + tokenIds.get(i)).getBytes(StandardCharsets.UTF_8);
+					byte[] lastAccess = String.valueOf(touches.get(i).lastAccess).getBytes(StandardCharsets.UTF_8);
+					connection.eval(TOUCH_SCRIPT, ReturnType.INTEGER, 1, key, lastAccess, ttl);
+				}
+				return null;
+			});
+		} catch (RuntimeException e) {
+			log.warn("刷新在线会话失败（{}条）：{}", tokenIds.size(), e.getMessage());
+			return;
+		}
+		for (int i = 0; i < tokenIds.size(); i++) {
+			Object r = results.get(i);
+			if (r instanceof Number && ((Number) r).longValue() == 0) {
+				// 会话已闲置超时
+				revocationService.revoke(tokenIds.get(i), touches.get(i).expiresAt);
+			}
+		}
+	}
+
+	private List<String> scanKeys() {
+		ScanOptions options = ScanOptions.scanOptions()
+			.match(CacheConstants.LOGIN_TOKEN_KEY + "*")
+			.count(BATCH_SIZE)
+			.build();
+		return stringRedisTemplate.execute((RedisCallback<List<String>>) connection -> {
+			List<String> keys = new ArrayList<>();
+			try (Cursor<byte[]> cursor = connection.scan(options)) {
+				while (cursor.hasNext()) {
+					keys.add(new String(cursor.next(), StandardCharsets.UTF_8));
+				}
+			}
+			return keys;
+		});
+	}
+
+	private static SysUserOnline toOnline(String tokenId, Map<Object, Object> hash) {
+		SysUserOnline online = new SysUserOnline();
+		online.setTokenId(tokenId);
+		String userId = (String) hash.get(F_USER_ID);
+		online.setUserId(StringUtils.isNotEmpty(userId) && !"null".equals(userId) ? Long.valueOf(userId) : null);
+		online.setUserName((String) hash.get(F_USER_NAME));
+		online.setIpaddr((String) hash.get(F_IPADDR));
+		online.setBrowser((String) hash.get(F_BROWSER));
+		online.setOs((String) hash.get(F_OS));
+		online.setLoginTime(toDate(hash.get(F_LOGIN_TIME)));
+		online.setLastAccessTime(toDate(hash.get(F_LAST_ACCESS_TIME)));
+		online.setExpireTime(toDate(hash.get(F_EXPIRE_TIME)));
+		return online;
+	}
+
+	private static Date toDate(Object millis) {
+		return millis instanceof String && !((String) millis).isEmpty() ? new Date(Long.parseLong((String) millis)) : null;
+	}
+
+	private static String parseBrowser(String ua) {
+		if (ua == null) {
+			return "Unknown";
+		}
+		if (ua.contains("Edg/")) {
+			return "Edge";
+		}
+		if (ua.contains("Chrome/")) {
+			return "Chrome";
+		}
+		if (ua.contains("Firefox/")) {
+			return "Firefox";
+		}
+		if (ua.contains("Safari/")) {
+			return "Safari";
+		}
+		return "Unknown";
+	}
+
+	private static String parseOs(String ua) {
+		if (ua == null) {
+			return "Unknown";
+		}
+		if (ua.contains("Windows")) {
+			return "Windows";
+		}
+		if (ua.contains("Android")) {
+			return "Android";
+		}
+		if (ua.contains("iPhone") || ua.contains("iPad")) {
+			return "iOS";
+		}
+		if (ua.contains("Mac OS")) {
+			return "Mac OS";
+		}
+		if (ua.contains("Linux")) {
+			return "Linux";
+		}
+		return "Unknown";
+	}
+
+	/**
+	 * 访问记录
+	 */
+	private static final class Touch {
+		private volatile long lastAccess;
+		private final long expiresAt;
+
+		private Touch(long lastAccess, long expiresAt) {
+			this.lastAccess = lastAccess;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package com.hrone.framework.service;
+
+import com.hrone.common.exception.ServiceException;
+import com.hrone.system.service.ISysUserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 密码服务（BCrypt 校验与加密）
+ *
+ * 说明：
+ * - BCrypt 计算放在独立的有界线程池中执行，线程数默认等于 CPU 核数，不占用 Tomcat 请求线程的 CPU 配额
+ * - 等待队列写满时立即返回 503，登录风暴时快速失败而不是让请求线程堆积
+ * - 全局共享一个 BCryptPasswordEncoder 实例
+ * - 登录成功后，明文密码或强度低于当前配置的 BCrypt 密码会在后台透明地重新加密
+ */
+@Service
+public class PasswordService {
+
+	private static final Logger log = LoggerFactory.getLogger(PasswordService.class);
+
+	@Autowired
+	private ISysUserService userService;
+
+	@Value("${password.bcrypt-strength:10}")
+	private int strength;
+
+	@Value("${password.pool-size:0}")
+	private int poolSize;
+
+	@Value("${password.queue-capacity:200}")
+	private int queueCapacity;
+
+	@Value("${password.timeout-ms:5000}")
+	private long timeoutMs;
+
+	private BCryptPasswordEncoder encoder;
+
+	private ThreadPoolExecutor executor;
+
+	private final LongAdder rejected = new LongAdder();
+
+	@PostConstruct
+	public void init() {
+		encoder = new BCryptPasswordEncoder(strength);
+		int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+		AtomicInteger seq = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(queueCapacity),
+			r -> {
+				Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			},
+			new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@PreDestroy
+	public void destroy() {
+		executor.shutdown();
+	}
+
+	/**
+	 * 校验密码（兼容明文与 BCrypt）
+	 *
+	 * @param raw    用户输入的密码
+	 * @param stored 数据库中的密码
+	 * @throws ServiceException 线程池繁忙或等待超时（503）
+	 */
+	public boolean matches(String raw, String stored) {
+		if (raw == null || stored == null) {
+			return false;
+		}
+		if (!isBcrypt(stored)) {
+			return raw.equals(stored);
+		}
+		return call(() -> encoder.matches(raw, stored));
+	}
+
+	/**
+	 * 加密密码
+	 *
+	 * @throws ServiceException 线程池繁忙或等待超时（503）
+	 */
+	public String encode(String raw) {
+		return call(() -> encoder.encode(raw));
+	}
+
+	/**
+	 * 是否需要重新加密（明文，或 BCrypt 强度低于当前配置）
+	 */
+	public boolean needsUpgrade(String stored) {
+		return stored != null && (!isBcrypt(stored) || encoder.upgradeEncoding(stored));
+	}
+
+	/**
+	 * 登录成功后在后台重新加密密码；线程池繁忙时跳过，下次登录再处理
+	 *
+	 * @param userId 用户ID
+	 * @param raw    本次登录校验通过的明文密码
+	 * @param stored 数据库中的密码
+	 */
+	public void upgradeIfNecessary(Long userId, String raw, String stored) {
+		if (userId == null || !needsUpgrade(stored)) {
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					// 比较并更新：排队期间密码被修改或重置时不覆盖
+					if (userService.updateUserPassword(userId, encoder.encode(raw), stored) == 0) {
+						log.debug("用户{}密码已变化，跳过重新加密", userId);
+					}
+				} catch (RuntimeException e) {
+					log.warn("用户{}密码重新加密失败：{}", userId, e.getMessage());
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+		}
+	}
+
+	/**
+	 * 累计被拒绝的任务数
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	/**
+	 * 当前排队的任务数
+	 */
+	public int getQueueSize() {
+		return executor.getQueue().size();
+	}
+
+	private <T> T call(Callable<T> task) {
+		Future<T> future;
+		try {
+			future = executor.submit(task);
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new ServiceException("登录请求过多，请稍后重试", 503);
+		}
+		try {
+			return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new ServiceException("登录请求过多，请稍后重试", 503);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ServiceException("密码校验被中断", 503);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private static boolean isBcrypt(String stored) {
+		return stored.startsWith("$2a$") || stored.startsWith("$2b$") || stored.startsWith("$2y$");
+	}
+}
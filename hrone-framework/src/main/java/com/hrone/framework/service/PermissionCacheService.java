@@ -0,0 +1,386 @@
+package com.hrone.framework.service;
+
+import com.hrone.common.constant.CacheConstants;
+import com.hrone.system.event.AuthorizationChangedEvent;
+import com.hrone.system.mapper.SysUserRoleMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户权限缓存（本地 + Redis 两级，带版本号）
+ *
+ * 说明：
+ * - 缓存内容为用户的角色ID；有效权限由 PermissionRegistry 的角色位图按位或得到，每个用户只占几十个字节
+ * - 本地缓存命中且权限索引未重建时直接返回位图，不访问 Redis，也不查库
+ * - Redis 中 permission:{userId} 保存“角色ID,角色ID”，供其他节点与重启后复用
+ * - permission:version 为权限索引版本：菜单、角色变更时自增，各节点收到后重建权限索引，用户缓存无需失效
+ * - permission:seq 每次变更都自增；回填 Redis 时比较加载前后的 seq，期间有变更则放弃写入，避免旧数据覆盖
+ * - 用户角色变更只失效受影响用户：删除其 Redis 缓存，并通过发布/订阅通知各节点删除本地缓存
+ * - 定时读取版本，补齐订阅断开期间漏掉的变更；本地缓存另有最长存活时间兜底
+ */
+@Service
+public class PermissionCacheService implements MessageListener {
+
+	private static final Logger log = LoggerFactory.getLogger(PermissionCacheService.class);
+
+	/**
+	 * 权限变更消息频道；消息格式：“版本:*”或“版本:userId,userId”
+	 */
+	public static final String CHANGE_CHANNEL = "channel:permission_change";
+
+	private static final String VERSION_KEY = CacheConstants.PERMISSION_KEY + "version";
+
+	private static final String SEQ_KEY = CacheConstants.PERMISSION_KEY + "seq";
+
+	/**
+	 * 权限索引变更：seq 与 version 各自增一次，返回新版本
+	 */
+	private static final RedisScript<Long> BUMP_ALL_SCRIPT = new DefaultRedisScript<>(
+		"redis.call('incr', KEYS[1]) return redis.call('incr', KEYS[2])", Long.class);
+
+	/**
+	 * 按用户失效：seq 自增并删除用户缓存，返回当前版本
+	 */
+	private static final RedisScript<Long> BUMP_USERS_SCRIPT = new DefaultRedisScript<>(
+		"redis.call('incr', KEYS[1]) "
+			+ "for i = 3, #KEYS do redis.call('del', KEYS[i]) end "
+			+ "return tonumber(redis.call('get', KEYS[2]) or '0')",
+		Long.class);
+
+	/**
+	 * 回填：seq 与加载前一致时才写入
+	 */
+	private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+		"if (redis.call('get', KEYS[1]) or '0') ~= ARGV[1] then return 0 end "
+			+ "redis.call('set', KEYS[2], ARGV[2], 'EX', ARGV[3]) return 1",
+		Long.class);
+
+	@Autowired
+	private SysUserRoleMapper userRoleMapper;
+
+	@Autowired
+	private PermissionRegistry registry;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private RedisMessageListenerContainer listenerContainer;
+
+	@Value("${permission.cache.local-ttl-seconds:300}")
+	private long localTtlSeconds;
+
+	private final Map<Long, Entry> local = new ConcurrentHashMap<>();
+
+	/**
+	 * 本节点已知的权限索引版本
+	 */
+	private final AtomicLong version = new AtomicLong(-1);
+
+	/**
+	 * 本地失效计数；加载期间发生失效时不写入本地缓存
+	 */
+	private final AtomicLong localEpoch = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		listenerContainer.addMessageListener(this, new ChannelTopic(CHANGE_CHANNEL));
+		syncVersion();
+	}
+
+	/**
+	 * 获取用户的权限位图（只读，调用方不得修改）
+	 */
+	public long[] getPermissionBits(Long userId) {
+		return getEntry(userId).bits;
+	}
+
+	/**
+	 * 获取用户的角色ID（只读，调用方不得修改）
+	 */
+	public long[] getRoleIds(Long userId) {
+		return getEntry(userId).roleIds;
+	}
+
+	private Entry getEntry(Long userId) {
+		long now = System.currentTimeMillis();
+		Entry entry = local.get(userId);
+		if (entry != null && entry.expireAt > now) {
+			PermissionRegistry.Snapshot snapshot = registry.current();
+			if (entry.snapshot == snapshot) {
+				return entry;
+			}
+			// 权限索引已重建：用缓存的角色重新计算位图，不查库
+			Entry refreshed = new Entry(entry.roleIds, snapshot, entry.expireAt);
+			local.replace(userId, entry, refreshed);
+			return refreshed;
+		}
+
+		long epoch = localEpoch.get();
+		String userKey = CacheConstants.PERMISSION_KEY + userId;
+		long expireAt = now + TimeUnit.SECONDS.toMillis(localTtlSeconds);
+		String seq = "0";
+		try {
+			List<String> values = stringRedisTemplate.opsForValue().multiGet(Arrays.asList(VERSION_KEY, SEQ_KEY, userKey));
+			if (values != null) {
+				advanceVersion(parseLong(values.get(0)));
+				seq = values.get(1) != null ? values.get(1) : "0";
+				if (values.get(2) != null) {
+					Entry cached = new Entry(decode(values.get(2)), registry.current(), expireAt);
+					putLocal(userId, cached, epoch);
+					return cached;
+				}
+			}
+		} catch (RuntimeException e) {
+			log.warn("读取Redis权限缓存失败，直接查库：{}", e.getMessage());
+			seq = null;
+		}
+
+		long[] roleIds = loadRoleIds(userId);
+		if (seq != null) {
+			try {
+				stringRedisTemplate.execute(PUT_SCRIPT, Arrays.asList(SEQ_KEY, userKey), seq, encode(roleIds),
+					String.valueOf(TimeUnit.MINUTES.toSeconds(CacheConstants.CACHE_EXPIRATION)));
+			} catch (RuntimeException e) {
+				log.warn("写入Redis权限缓存失败：{}", e.getMessage());
+			}
+		}
+		Entry loaded = new Entry(roleIds, registry.current(), expireAt);
+		putLocal(userId, loaded, epoch);
+		return loaded;
+	}
+
+	/**
+	 * 获取用户的权限标识（用于接口返回，不用于校验）
+	 */
+	public Set<String> getPermissions(Long userId) {
+		return new LinkedHashSet<>(registry.toNames(getPermissionBits(userId)));
+	}
+
+	/**
+	 * 失效指定用户的权限缓存（所有节点）
+	 */
+	public void evictUsers(Set<Long> userIds) {
+		if (userIds == null || userIds.isEmpty()) {
+			return;
+		}
+		List<String> keys = new ArrayList<>(userIds.size() + 2);
+		keys.add(SEQ_KEY);
+		keys.add(VERSION_KEY);
+		for (Long userId : userIds) {
+			keys.add(CacheConstants.PERMISSION_KEY + userId);
+		}
+		evictLocal(userIds);
+		Long current = stringRedisTemplate.execute(BUMP_USERS_SCRIPT, keys);
+		StringBuilder message = new StringBuilder().append(current != null ? current : 0).append(':');
+		int i = 0;
+		for (Long userId : userIds) {
+			if (i++ > 0) {
+				message.append(',');
+			}
+			message.append(userId);
+		}
+		stringRedisTemplate.convertAndSend(CHANGE_CHANNEL, message.toString());
+	}
+
+	/**
+	 * 重建所有节点的权限索引（菜单、角色授权变更后调用）
+	 */
+	public void refreshRegistry() {
+		Long next = stringRedisTemplate.execute(BUMP_ALL_SCRIPT, Arrays.asList(SEQ_KEY, VERSION_KEY));
+		if (next == null || !advanceVersion(next)) {
+			registry.rebuild();
+		}
+		stringRedisTemplate.convertAndSend(CHANGE_CHANNEL, (next != null ? next : 0) + ":*");
+	}
+
+	/**
+	 * 授权数据变更（事务提交后执行；无事务时立即执行）
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAuthorizationChanged(AuthorizationChangedEvent event) {
+		// 其他节点的变更已通过本类自己的频道同步
+		if (event.isRemote()) {
+			return;
+		}
+		try {
+			switch (event.getType()) {
+				case USER_ROLE:
+					evictUsers(event.getUserIds());
+					break;
+				case ROLE:
+				case MENU:
+				case ROLE_MENU:
+					// 角色、菜单变更不改变用户拥有的角色，只需重建角色位图
+					refreshRegistry();
+					break;
+				default:
+					break;
+			}
+		} catch (RuntimeException e) {
+			log.error("失效权限缓存失败：{}，{}", event, e.getMessage());
+		}
+	}
+
+	/**
+	 * 接收其他节点的变更消息
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		int colon = body.indexOf(':');
+		if (colon < 0) {
+			return;
+		}
+		advanceVersion(parseLong(body.substring(0, colon)));
+		String users = body.substring(colon + 1);
+		if ("*".equals(users)) {
+			return;
+		}
+		Set<Long> userIds = new HashSet<>();
+		for (String id : users.split(",")) {
+			long userId = parseLong(id);
+			if (userId > 0) {
+				userIds.add(userId);
+			}
+		}
+		evictLocal(userIds);
+	}
+
+	/**
+	 * 定时同步版本，补齐漏收的权限索引变更
+	 */
+	@Scheduled(initialDelayString = "${permission.cache.sync-ms:30000}", fixedDelayString = "${permission.cache.sync-ms:30000}")
+	public void syncVersion() {
+		try {
+			advanceVersion(parseLong(stringRedisTemplate.opsForValue().get(VERSION_KEY)));
+		} catch (RuntimeException e) {
+			log.warn("同步权限缓存版本失败：{}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 版本前进时重建权限索引
+	 *
+	 * @return 是否已重建
+	 */
+	private boolean advanceVersion(long next) {
+		long current = version.get();
+		while (next > current) {
+			if (version.compareAndSet(current, next)) {
+				// 首次获知版本时，权限索引已在启动时加载
+				if (current < 0) {
+					return false;
+				}
+				try {
+					registry.rebuild();
+					return true;
+				} catch (RuntimeException e) {
+					log.warn("重建权限索引失败：{}", e.getMessage());
+					version.compareAndSet(next, current);
+					return false;
+				}
+			}
+			current = version.get();
+		}
+		return false;
+	}
+
+	private void evictLocal(Set<Long> userIds) {
+		localEpoch.incrementAndGet();
+		for (Long userId : userIds) {
+			local.remove(userId);
+		}
+	}
+
+	private void putLocal(Long userId, Entry entry, long epoch) {
+		if (localEpoch.get() == epoch) {
+			local.put(userId, entry);
+		}
+	}
+
+	private long[] loadRoleIds(Long userId) {
+		List<Long> ids = userRoleMapper.selectRoleIdsByUserId(userId);
+		long[] roleIds = new long[ids.size()];
+		for (int i = 0; i < roleIds.length; i++) {
+			roleIds[i] = ids.get(i);
+		}
+		return roleIds;
+	}
+
+	private static String encode(long[] roleIds) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < roleIds.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(roleIds[i]);
+		}
+		return sb.toString();
+	}
+
+	private static long[] decode(String value) {
+		if (value.isEmpty()) {
+			return new long[0];
+		}
+		String[] parts = value.split(",");
+		long[] roleIds = new long[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			roleIds[i] = parseLong(parts[i]);
+		}
+		return roleIds;
+	}
+
+	private static long parseLong(String value) {
+		if (value == null || value.isEmpty()) {
+			return 0;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * 缓存条目：角色ID与按当前权限索引计算的位图
+	 */
+	private static final class Entry {
+		private final long[] roleIds;
+		private final PermissionRegistry.Snapshot snapshot;
+		private final long[] bits;
+		private final long expireAt;
+
+		private Entry(long[] roleIds, PermissionRegistry.Snapshot snapshot, long expireAt) {
+			this.roleIds = roleIds;
+			this.snapshot = snapshot;
+			this.bits = snapshot.union(roleIds);
+			this.expireAt = expireAt;
+		}
+	}
+}
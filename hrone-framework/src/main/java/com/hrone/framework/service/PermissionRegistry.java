@@ -0,0 +1,320 @@
+package com.hrone.framework.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hrone.common.utils.StringUtils;
+import com.hrone.system.domain.SysMenu;
+import com.hrone.system.domain.SysRole;
+import com.hrone.system.domain.SysRoleMenu;
+import com.hrone.system.mapper.SysMenuMapper;
+import com.hrone.system.mapper.SysRoleMapper;
+import com.hrone.system.mapper.SysRoleMenuMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限索引（权限标识 -> 整数下标，角色 -> 位图）
+ *
+ * 说明：
+ * - 启动时及菜单、角色变更后，把 sys_menu.perms 中的每个权限标识登记为一个连续的整数下标
+ * - 下标只增不减：已登记的标识下标不变，注解上预先解析好的下标在重建后仍然有效
+ * - 每个角色的授权保存为 long[] 位图；用户的有效权限为其角色位图按位或
+ * - 所有已登记的标识按“:”分段构成前缀树，“*”段匹配任意一段，末尾的“*”还匹配其后所有段
+ *   （system:* 覆盖 system:user:list，*:*:* 覆盖所有三段式权限）；
+ *   解析所需权限时在树上找出所有能覆盖它的授权（含通配授权），得到一个位图掩码
+ * - 同时加载角色标识 -> 角色ID，用于角色校验
+ * - 重建时生成新的只读快照并整体替换，读取方无需加锁；快照带递增的代号，注解解析结果据此判断是否过期
+ */
+@Component
+public class PermissionRegistry {
+
+	private static final Logger log = LoggerFactory.getLogger(PermissionRegistry.class);
+
+	private static final long[] EMPTY = new long[0];
+
+	@Autowired
+	private SysMenuMapper menuMapper;
+
+	@Autowired
+	private SysRoleMenuMapper roleMenuMapper;
+
+	@Autowired
+	private SysRoleMapper roleMapper;
+
+	/**
+	 * 通配符段
+	 */
+	public static final String WILDCARD = "*";
+
+	/**
+	 * 权限标识 -> 下标（只增不减）
+	 */
+	private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+
+	/**
+	 * 下标 -> 权限标识
+	 */
+	private volatile String[] names = new String[0];
+
+	private volatile Snapshot snapshot = new Snapshot(0, Collections.<Long, long[]>emptyMap(),
+		Collections.<String, Long>emptyMap(), new TrieNode());
+
+	private volatile boolean loaded;
+
+	@PostConstruct
+	public void init() {
+		try {
+			rebuild();
+		} catch (RuntimeException e) {
+			log.warn("加载权限索引失败，将在首次权限校验时重试：{}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 从数据库重新构建角色位图
+	 */
+	public synchronized void rebuild() {
+		LambdaQueryWrapper<SysMenu> wrapper = new LambdaQueryWrapper<>();
+		wrapper.select(SysMenu::getMenuId, SysMenu::getPerms)
+			.eq(SysMenu::getStatus, "0")
+			.in(SysMenu::getMenuType, "M", "C", "F")
+			.isNotNull(SysMenu::getPerms)
+			.ne(SysMenu::getPerms, "");
+		Map<Long, int[]> menuPerms = new HashMap<>();
+		for (SysMenu menu : menuMapper.selectList(wrapper)) {
+			int[] ids = intern(menu.getPerms());
+			if (ids.length > 0) {
+				menuPerms.put(menu.getMenuId(), ids);
+			}
+		}
+
+		int words = wordCount(names.length);
+		Map<Long, long[]> roles = new HashMap<>();
+		for (SysRoleMenu rm : roleMenuMapper.selectRoleMenus()) {
+			int[] ids = menuPerms.get(rm.getMenuId());
+			if (ids == null) {
+				continue;
+			}
+			long[] bits = roles.computeIfAbsent(rm.getRoleId(), k -> new long[words]);
+			for (int id : ids) {
+				bits[id >>> 6] |= 1L << id;
+			}
+		}
+
+		LambdaQueryWrapper<SysRole> roleWrapper = new LambdaQueryWrapper<>();
+		roleWrapper.select(SysRole::getRoleId, SysRole::getRoleKey);
+		Map<String, Long> roleKeys = new HashMap<>();
+		for (SysRole role : roleMapper.selectList(roleWrapper)) {
+			if (StringUtils.isNotEmpty(role.getRoleKey())) {
+				roleKeys.put(role.getRoleKey(), role.getRoleId());
+			}
+		}
+
+		snapshot = new Snapshot(snapshot.generation + 1, roles, roleKeys, buildTrie(names));
+		loaded = true;
+		log.info("权限索引已重建：权限标识{}个，角色{}个", names.length, roles.size());
+	}
+
+	/**
+	 * 当前快照（启动时加载失败的，在此重试）
+	 */
+	public Snapshot current() {
+		if (!loaded) {
+			synchronized (this) {
+				if (!loaded) {
+					rebuild();
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * 是否包含掩码中的任一权限
+	 */
+	public static boolean containsAny(long[] have, long[] mask) {
+		int n = Math.min(have.length, mask.length);
+		for (int i = 0; i < n; i++) {
+			if ((have[i] & mask[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 把位图还原为权限标识（用于接口返回）
+	 */
+	public List<String> toNames(long[] bits) {
+		String[] all = names;
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < bits.length; i++) {
+			long word = bits[i];
+			while (word != 0) {
+				int id = (i << 6) + Long.numberOfTrailingZeros(word);
+				if (id < all.length) {
+					result.add(all[id]);
+				}
+				word &= word - 1;
+			}
+		}
+		return result;
+	}
+
+	private int[] intern(String perms) {
+		String[] parts = perms.split(",");
+		int[] ids = new int[parts.length];
+		int n = 0;
+		for (String part : parts) {
+			String perm = part.trim();
+			if (!perm.isEmpty()) {
+				ids[n++] = indexOf(perm);
+			}
+		}
+		return n == ids.length ? ids : Arrays.copyOf(ids, n);
+	}
+
+	private int indexOf(String perm) {
+		Integer id = indexes.get(perm);
+		if (id != null) {
+			return id;
+		}
+		synchronized (indexes) {
+			id = indexes.get(perm);
+			if (id == null) {
+				String[] next = Arrays.copyOf(names, names.length + 1);
+				id = names.length;
+				next[id] = perm;
+				names = next;
+				indexes.put(perm, id);
+			}
+			return id;
+		}
+	}
+
+	private static int wordCount(int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	private static TrieNode buildTrie(String[] all) {
+		TrieNode root = new TrieNode();
+		for (int id = 0; id < all.length; id++) {
+			TrieNode node = root;
+			for (String segment : all[id].split(":")) {
+				node = node.children.computeIfAbsent(segment.trim(), k -> new TrieNode());
+			}
+			node.index = id;
+		}
+		return root;
+	}
+
+	/**
+	 * 前缀树节点（按“:”分段）
+	 */
+	private static final class TrieNode {
+		private final Map<String, TrieNode> children = new HashMap<>();
+		private int index = -1;
+	}
+
+	/**
+	 * 只读快照：角色ID -> 权限位图
+	 */
+	public static final class Snapshot {
+
+		private final int generation;
+
+		private final Map<Long, long[]> roles;
+
+		private final Map<String, Long> roleKeys;
+
+		private final TrieNode trie;
+
+		private Snapshot(int generation, Map<Long, long[]> roles, Map<String, Long> roleKeys, TrieNode trie) {
+			this.generation = generation;
+			this.roles = roles;
+			this.roleKeys = roleKeys;
+			this.trie = trie;
+		}
+
+		/**
+		 * 快照代号，每次重建加一
+		 */
+		public int getGeneration() {
+			return generation;
+		}
+
+		/**
+		 * 所有能覆盖该权限的授权（精确授权与通配授权）组成的位图掩码
+		 */
+		public long[] impliers(String perm) {
+			long[][] mask = {EMPTY};
+			collect(trie, perm.trim().split(":"), 0, mask);
+			return mask[0];
+		}
+
+		/**
+		 * 角色标识对应的角色ID，不存在时返回 null
+		 */
+		public Long roleId(String roleKey) {
+			return roleKeys.get(roleKey);
+		}
+
+		private static void collect(TrieNode node, String[] segments, int depth, long[][] mask) {
+			if (depth == segments.length) {
+				set(mask, node.index);
+				return;
+			}
+			String segment = segments[depth];
+			TrieNode exact = node.children.get(segment);
+			if (exact != null) {
+				collect(exact, segments, depth + 1, mask);
+			}
+			TrieNode any = node.children.get(WILDCARD);
+			if (any != null && any != exact) {
+				// 以“*”结尾的授权覆盖本段及其后所有段
+				set(mask, any.index);
+				collect(any, segments, depth + 1, mask);
+			}
+		}
+
+		private static void set(long[][] mask, int id) {
+			if (id < 0) {
+				return;
+			}
+			if ((id >>> 6) >= mask[0].length) {
+				mask[0] = Arrays.copyOf(mask[0], (id >>> 6) + 1);
+			}
+			mask[0][id >>> 6] |= 1L << id;
+		}
+
+		/**
+		 * 多个角色的权限位图按位或
+		 */
+		public long[] union(long[] roleIds) {
+			long[] result = EMPTY;
+			for (long roleId : roleIds) {
+				long[] bits = roles.get(roleId);
+				if (bits == null) {
+					continue;
+				}
+				if (result.length < bits.length) {
+					result = Arrays.copyOf(result, bits.length);
+				}
+				for (int i = 0; i < bits.length; i++) {
+					result[i] |= bits[i];
+				}
+			}
+			return result;
+		}
+	}
+}
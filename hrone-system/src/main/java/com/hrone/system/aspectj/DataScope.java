@@ -1,19 +1,30 @@
- package com.hrone.system.aspectj;
+package com.hrone.system.aspectj;
 
 import java.lang.annotation.*;
 
 /**
  * 数据权限注解（第7阶段）
  *
- * 演示规则：
+ * 规则（多个角色的条件取并集）：
  * - 角色 data_scope = '1' 全部数据：不做限制
+ * - 角色 data_scope = '2' 自定义：按角色绑定的部门过滤
  * - 角色 data_scope = '3' 本部门：按当前用户 deptId 过滤
+ * - 角色 data_scope = '4' 本部门及以下：按部门祖级列表过滤
+ * - 角色 data_scope = '5' 仅本人：按当前用户 userId 过滤
+ *
+ * 条件由 DataScopeInnerInterceptor 追加到方法内查询的 WHERE 中；多表查询时用别名指明部门、用户所在的表
  */
 @Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface DataScope {
+	/**
+	 * dept_id 所在表的别名
+	 */
 	String deptAlias() default "";
-}
-
 
+	/**
+	 * user_id 所在表的别名
+	 */
+	String userAlias() default "";
+}
@@ -5,8 +5,7 @@ import com.hrone.common.constant.UserConstants;
 import com.hrone.common.exception.ServiceException;
 import com.hrone.system.domain.SysRole;
 import com.hrone.system.domain.SysUser;
-import com.hrone.system.mapper.SysRoleDeptMapper;
-import com.hrone.system.service.ISysDeptService;
+import com.hrone.system.service.DeptTreeIndex;
 import com.hrone.system.service.ISysRoleService;
 import com.hrone.system.service.ISysUserService;
 import org.aspectj.lang.JoinPoint;
@@ -17,10 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Aspect
 @Component
@@ -33,86 +29,58 @@ public class DataScopeAspect {
 	private ISysRoleService roleService;
 
 	@Autowired
-	private ISysDeptService deptService;
+	private HttpServletRequest request;
 
 	@Autowired
-	private SysRoleDeptMapper roleDeptMapper;
+	private DataScopeCache dataScopeCache;
 
 	@Autowired
-	private HttpServletRequest request;
+	private DeptTreeIndex deptTreeIndex;
 
-	@Before("@annotation(com.hrone.system.aspectj.DataScope)")
-	public void before(JoinPoint joinPoint) {
+	@Before("@annotation(dataScope)")
+	public void before(JoinPoint joinPoint, DataScope dataScope) {
 		Object uid = request.getAttribute(Constants.LOGIN_USER_KEY);
 		if (uid == null) {
 			return;
 		}
-		Long userId = Long.valueOf(String.valueOf(uid));
+		// 命中缓存时不查库；具体条件由 DataScopeInnerInterceptor 写入 SQL
+		DataScopeCache.Scope scope = dataScopeCache.get(Long.valueOf(String.valueOf(uid)), this::resolve);
+		DataScopeContext.set(scope, dataScope.deptAlias(), dataScope.userAlias());
+	}
+
+	/**
+	 * 根据用户与角色解析数据范围（部门子树、自定义部门在 SQL 中展开）
+	 */
+	private DataScopeCache.Scope resolve(Long userId) {
 		SysUser user = userService.selectUserById(userId);
 		if (user == null) {
 			throw new ServiceException("用户不存在，无法进行数据权限过滤", 401);
 		}
 		List<SysRole> roles = roleService.selectRolesByUserId(userId);
 		if (roles == null || roles.isEmpty()) {
-			DataScopeContext.setSelfScope(userId);
-			return;
+			return DataScopeCache.Scope.of(userId, null, false, false, false, true);
 		}
 
 		// 1) 全部数据：直接放行
-		boolean allData = roles.stream()
-			.anyMatch(r -> UserConstants.DATA_SCOPE_ALL.equals(r.getDataScope()));
-		if (allData) {
-			DataScopeContext.clear();
-			return;
+		if (hasScope(roles, UserConstants.DATA_SCOPE_ALL)) {
+			return DataScopeCache.Scope.ALL;
 		}
 
-		Set<Long> deptIds = new HashSet<>();
-
-		// 2) 自定义数据权限（角色绑定的部门）
-		List<Long> customRoleIds = roles.stream()
-			.filter(r -> UserConstants.DATA_SCOPE_CUSTOM.equals(r.getDataScope()))
-			.map(SysRole::getRoleId)
-			.collect(Collectors.toList());
-		if (!customRoleIds.isEmpty()) {
-			List<Long> customDeptIds = roleDeptMapper.selectDeptIdsByRoleIds(customRoleIds);
-			if (customDeptIds != null) {
-				deptIds.addAll(customDeptIds);
-			}
+		// 2) 自定义 / 本部门 / 本部门及以下 / 仅本人，多个角色取并集
+		boolean dept = hasScope(roles, UserConstants.DATA_SCOPE_DEPT);
+		boolean deptAndChild = hasScope(roles, UserConstants.DATA_SCOPE_DEPT_AND_CHILD);
+		if (deptAndChild && deptTreeIndex.current().isLeaf(user.getDeptId())) {
+			// 没有下级部门时“本部门及以下”等同“本部门”，省去子查询
+			dept = true;
+			deptAndChild = false;
 		}
+		return DataScopeCache.Scope.of(userId, user.getDeptId(),
+			hasScope(roles, UserConstants.DATA_SCOPE_CUSTOM), dept, deptAndChild,
+			hasScope(roles, UserConstants.DATA_SCOPE_SELF));
+	}
 
-		// 3) 本部门 / 本部门及以下
-		Long deptId = user.getDeptId();
-		if (deptId != null) {
-			boolean deptOnly = roles.stream()
-				.anyMatch(r -> UserConstants.DATA_SCOPE_DEPT.equals(r.getDataScope()));
-			if (deptOnly) {
-				deptIds.add(deptId);
-			}
-
-			boolean deptAndChild = roles.stream()
-				.anyMatch(r -> UserConstants.DATA_SCOPE_DEPT_AND_CHILD.equals(r.getDataScope()));
-			if (deptAndChild) {
-				deptIds.add(deptId);
-				List<Long> childDeptIds = deptService.selectChildDeptIds(deptId);
-				if (childDeptIds != null) {
-					deptIds.addAll(childDeptIds);
-				}
-			}
-		}
-
-		// 4) 仅本人
-		boolean selfScope = roles.stream()
-			.anyMatch(r -> UserConstants.DATA_SCOPE_SELF.equals(r.getDataScope()));
-
-		if (!deptIds.isEmpty()) {
-			DataScopeContext.setDeptIds(deptIds);
-			DataScopeContext.setSelfScope(null);
-		} else if (selfScope) {
-			DataScopeContext.setSelfScope(userId);
-			DataScopeContext.setDeptIds(null);
-		} else {
-			DataScopeContext.clear();
-		}
+	private static boolean hasScope(List<SysRole> roles, String dataScope) {
+		return roles.stream().anyMatch(r -> dataScope.equals(r.getDataScope()));
 	}
 
 	@After("@annotation(com.hrone.system.aspectj.DataScope)")
@@ -120,5 +88,3 @@ public class DataScopeAspect {
 		DataScopeContext.clear();
 	}
 }
-
-
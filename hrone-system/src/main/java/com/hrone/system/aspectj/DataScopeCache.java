@@ -0,0 +1,174 @@
+package com.hrone.system.aspectj;
+
+import com.hrone.system.event.AuthorizationChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 数据权限缓存（按用户缓存解析后的数据范围）
+ *
+ * 说明：
+ * - 缓存内容为用户适用的条件（全部 / 自定义 / 本部门 / 本部门及以下 / 仅本人）及其用户ID、部门ID，命中时不查库
+ * - 部门子树、自定义部门在 SQL 中展开，角色部门变更不影响缓存内容；
+ *   叶子部门的“本部门及以下”按部门树索引简化为“本部门”，因此部门树变更时清空缓存（在索引重建之后执行）
+ * - 条目有最长存活时间（datascope.cache.ttl-seconds），到期后重新解析
+ * - 用户所属部门、用户角色、角色数据范围变更时失效相关用户
+ * - 其他节点的变更由 framework 模块转发为 remote 事件，处理方式相同
+ */
+@Component
+public class DataScopeCache {
+
+	/**
+	 * 超过此条数时先清理已过期条目
+	 */
+	private static final int MAX_SIZE = 10000;
+
+	@Value("${datascope.cache.ttl-seconds:300}")
+	private long ttlSeconds;
+
+	private final Map<Long, Scope> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * 失效计数；解析期间发生失效时不写入缓存，避免旧结果覆盖
+	 */
+	private final AtomicLong epoch = new AtomicLong();
+
+	/**
+	 * 获取用户的数据范围，未命中或已过期时调用 loader 解析
+	 */
+	public Scope get(Long userId, Function<Long, Scope> loader) {
+		long now = System.currentTimeMillis();
+		Scope scope = cache.get(userId);
+		if (scope != null && scope.expireAt > now) {
+			return scope;
+		}
+		long current = epoch.get();
+		Scope loaded = loader.apply(userId).withExpireAt(now + TimeUnit.SECONDS.toMillis(ttlSeconds));
+		if (epoch.get() == current) {
+			if (cache.size() >= MAX_SIZE) {
+				cache.values().removeIf(s -> s.expireAt <= now);
+			}
+			cache.put(userId, loaded);
+		}
+		return loaded;
+	}
+
+	/**
+	 * 授权数据变更（事务提交后执行；无事务时立即执行）
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAuthorizationChanged(AuthorizationChangedEvent event) {
+		if (event.getType() == AuthorizationChangedEvent.ChangeType.MENU
+			|| event.getType() == AuthorizationChangedEvent.ChangeType.ROLE_MENU) {
+			return;
+		}
+		epoch.incrementAndGet();
+		if (event.isGlobal()) {
+			cache.clear();
+		} else {
+			for (Long userId : event.getUserIds()) {
+				cache.remove(userId);
+			}
+		}
+	}
+
+	/**
+	 * 解析后的数据范围（不可变）：各角色条件的并集，具体部门在 SQL 中按闭包表展开
+	 */
+	public static final class Scope {
+
+		/** 全部数据 */
+		public static final Scope ALL = new Scope(true, null, null, false, false, false, false, Long.MAX_VALUE);
+
+		private final boolean all;
+
+		private final Long userId;
+
+		private final Long deptId;
+
+		private final boolean custom;
+
+		private final boolean dept;
+
+		private final boolean deptAndChild;
+
+		private final boolean self;
+
+		private final long expireAt;
+
+		private Scope(boolean all, Long userId, Long deptId, boolean custom, boolean dept, boolean deptAndChild,
+					  boolean self, long expireAt) {
+			this.all = all;
+			this.userId = userId;
+			this.deptId = deptId;
+			this.custom = custom;
+			this.dept = dept;
+			this.deptAndChild = deptAndChild;
+			this.self = self;
+			this.expireAt = expireAt;
+		}
+
+		/**
+		 * 按条件过滤；没有任何可用条件时只能看本人数据
+		 *
+		 * @param userId       当前用户ID
+		 * @param deptId       当前用户部门ID（可为空）
+		 * @param custom       是否有自定义数据权限角色
+		 * @param dept         是否有本部门角色
+		 * @param deptAndChild 是否有本部门及以下角色
+		 * @param self         是否有仅本人角色
+		 */
+		public static Scope of(Long userId, Long deptId, boolean custom, boolean dept, boolean deptAndChild, boolean self) {
+			boolean hasDept = deptId != null;
+			dept = dept && hasDept && !deptAndChild;
+			deptAndChild = deptAndChild && hasDept;
+			if (!custom && !dept && !deptAndChild) {
+				self = true;
+			}
+			return new Scope(false, userId, deptId, custom, dept, deptAndChild, self, Long.MAX_VALUE);
+		}
+
+		private Scope withExpireAt(long expireAt) {
+			return new Scope(all, userId, deptId, custom, dept, deptAndChild, self, expireAt);
+		}
+
+		public boolean isAll() {
+			return all;
+		}
+
+		public Long getUserId() {
+			return userId;
+		}
+
+		public Long getDeptId() {
+			return deptId;
+		}
+
+		/** 自定义：角色绑定的部门 */
+		public boolean isCustom() {
+			return custom;
+		}
+
+		/** 仅本部门 */
+		public boolean isDept() {
+			return dept;
+		}
+
+		/** 本部门及以下 */
+		public boolean isDeptAndChild() {
+			return deptAndChild;
+		}
+
+		/** 仅本人 */
+		public boolean isSelf() {
+			return self;
+		}
+	}
+}
@@ -3,48 +3,53 @@ package com.hrone.system.aspectj;
 /**
  * 数据权限上下文（ThreadLocal）
  *
- * 支持：
- * - 部门ID集合（自定义/本部门/本部门及以下）
- * - 仅本人数据范围
+ * 保存当前 @DataScope 方法的数据范围与表别名，由 DataScopeInnerInterceptor 在执行查询时改写 SQL
  */
 public final class DataScopeContext {
-	private static final ThreadLocal<java.util.Set<Long>> DEPT_IDS_HOLDER = new ThreadLocal<>();
-	private static final ThreadLocal<Long> SELF_USER_HOLDER = new ThreadLocal<>();
+	private static final ThreadLocal<Filter> FILTER_HOLDER = new ThreadLocal<>();
 
 	private DataScopeContext() {}
 
-	public static void setDeptIds(java.util.Set<Long> deptIds) {
-		if (deptIds == null || deptIds.isEmpty()) {
-			DEPT_IDS_HOLDER.remove();
+	public static void set(DataScopeCache.Scope scope, String deptAlias, String userAlias) {
+		if (scope == null || scope.isAll()) {
+			FILTER_HOLDER.remove();
 			return;
 		}
-		DEPT_IDS_HOLDER.set(deptIds);
+		FILTER_HOLDER.set(new Filter(scope, deptAlias, userAlias));
 	}
 
-	public static java.util.Set<Long> getDeptIds() {
-		return DEPT_IDS_HOLDER.get();
+	public static Filter get() {
+		return FILTER_HOLDER.get();
 	}
 
-	public static void setSelfScope(Long userId) {
-		if (userId == null) {
-			SELF_USER_HOLDER.remove();
-		} else {
-			SELF_USER_HOLDER.set(userId);
-		}
+	public static void clear() {
+		FILTER_HOLDER.remove();
 	}
 
-	public static boolean isSelfScope() {
-		return SELF_USER_HOLDER.get() != null;
-	}
+	/**
+	 * 数据范围与表别名
+	 */
+	public static final class Filter {
+		private final DataScopeCache.Scope scope;
+		private final String deptAlias;
+		private final String userAlias;
+
+		private Filter(DataScopeCache.Scope scope, String deptAlias, String userAlias) {
+			this.scope = scope;
+			this.deptAlias = deptAlias;
+			this.userAlias = userAlias;
+		}
 
-	public static Long getSelfUserId() {
-		return SELF_USER_HOLDER.get();
-	}
+		public DataScopeCache.Scope getScope() {
+			return scope;
+		}
 
-	public static void clear() {
-		DEPT_IDS_HOLDER.remove();
-		SELF_USER_HOLDER.remove();
+		public String getDeptAlias() {
+			return deptAlias;
+		}
+
+		public String getUserAlias() {
+			return userAlias;
+		}
 	}
 }
-
-
@@ -0,0 +1,157 @@
+package com.hrone.system.aspectj;
+
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.parser.JsqlParserSupport;
+import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
+import com.hrone.common.constant.UserConstants;
+import com.hrone.common.utils.StringUtils;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectBody;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据权限 SQL 改写拦截器
+ *
+ * 说明：
+ * - 在 @DataScope 方法内执行的 SELECT 语句，向最外层 WHERE 追加数据范围条件（多个角色的条件用 OR 连接）
+ * - 本部门及以下按 sys_dept_closure 闭包表子查询展开，自定义按 sys_role_dept 子查询展开，
+ *   不再在 Java 中展开部门ID，SQL 长度与部门树大小无关
+ * - 用户ID、部门ID以占位符参数传入，同一种条件组合只产生一种 SQL 文本，预编译语句缓存可复用
+ * - 在 willDoQuery 阶段改写，须排在分页插件之前，分页的 count 语句同样带上条件
+ * - 无法可靠追加条件的语句（UNION 等复合查询）直接拒绝执行，不会不加过滤地返回全部数据
+ */
+public class DataScopeInnerInterceptor extends JsqlParserSupport implements InnerInterceptor {
+
+	private static final String USER_PARAM = "dataScopeUserId";
+
+	private static final String DEPT_PARAM = "dataScopeDeptId";
+
+	/**
+	 * 条件文本缓存：条件组合 + 别名 -> 条件 SQL
+	 */
+	private final Map<String, String> conditions = new ConcurrentHashMap<>();
+
+	@Override
+	public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+							   ResultHandler resultHandler, BoundSql boundSql) {
+		DataScopeContext.Filter filter = DataScopeContext.get();
+		if (filter == null || ms.getSqlCommandType() != SqlCommandType.SELECT) {
+			return true;
+		}
+		PluginUtils.MPBoundSql mpBs = PluginUtils.mpBoundSql(boundSql);
+		String sql = parserSingle(mpBs.sql(), filter);
+		if (sql.equals(mpBs.sql())) {
+			return true;
+		}
+		bindParameters(ms, boundSql, mpBs, sql, filter.getScope());
+		return true;
+	}
+
+	@Override
+	protected void processSelect(Select select, int index, String sql, Object obj) {
+		SelectBody body = select.getSelectBody();
+		if (!(body instanceof PlainSelect)) {
+			// 外层包一层子查询也无法确定部门、用户列的来源，按拒绝处理
+			throw new IllegalStateException("数据权限不支持 UNION 等复合查询，已拒绝执行：" + sql);
+		}
+		DataScopeContext.Filter filter = (DataScopeContext.Filter) obj;
+		Expression condition = buildCondition(filter);
+		PlainSelect plainSelect = (PlainSelect) body;
+		Expression where = plainSelect.getWhere();
+		plainSelect.setWhere(where == null ? condition : new AndExpression(new Parenthesis(where), condition));
+	}
+
+	/**
+	 * 生成条件表达式（命名参数 :dataScopeUserId / :dataScopeDeptId，改写后替换为 ?）
+	 */
+	private Expression buildCondition(DataScopeContext.Filter filter) {
+		DataScopeCache.Scope scope = filter.getScope();
+		String d = StringUtils.isNotEmpty(filter.getDeptAlias()) ? filter.getDeptAlias() + "." : "";
+		String u = StringUtils.isNotEmpty(filter.getUserAlias()) ? filter.getUserAlias() + "." : "";
+		String key = (scope.isCustom() ? "C" : "") + (scope.isDept() ? "D" : "") + (scope.isDeptAndChild() ? "T" : "")
+			+ (scope.isSelf() ? "S" : "") + "|" + d + "|" + u;
+		String text = conditions.computeIfAbsent(key, k -> {
+			List<String> parts = new ArrayList<>();
+			if (scope.isCustom()) {
+				parts.add(d + "dept_id IN (SELECT rd.dept_id FROM sys_role_dept rd"
+					+ " JOIN sys_user_role ur ON ur.role_id = rd.role_id"
+					+ " JOIN sys_role r ON r.role_id = rd.role_id"
+					+ " WHERE ur.user_id = :" + USER_PARAM
+					+ " AND r.data_scope = '" + UserConstants.DATA_SCOPE_CUSTOM + "' AND r.del_flag = '0')");
+			}
+			if (scope.isDept()) {
+				parts.add(d + "dept_id = :" + DEPT_PARAM);
+			}
+			if (scope.isDeptAndChild()) {
+				parts.add(d + "dept_id IN (SELECT dc.descendant FROM sys_dept_closure dc"
+					+ " WHERE dc.ancestor = :" + DEPT_PARAM + ")");
+			}
+			if (scope.isSelf()) {
+				parts.add(u + "user_id = :" + USER_PARAM);
+			}
+			return String.join(" OR ", parts);
+		});
+		try {
+			return new Parenthesis(CCJSqlParserUtil.parseCondExpression(text));
+		} catch (JSQLParserException e) {
+			throw new IllegalStateException("数据权限条件解析失败：" + text, e);
+		}
+	}
+
+	/**
+	 * 把命名参数替换为 ?，并按出现位置插入参数映射
+	 */
+	private void bindParameters(MappedStatement ms, BoundSql boundSql, PluginUtils.MPBoundSql mpBs, String sql,
+								DataScopeCache.Scope scope) {
+		List<ParameterMapping> mappings = mpBs.parameterMappings();
+		StringBuilder out = new StringBuilder(sql.length());
+		int position = 0;
+		char quote = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+				out.append(c);
+				continue;
+			}
+			if (c == '\'' || c == '"' || c == '`') {
+				quote = c;
+			} else if (c == '?') {
+				position++;
+			} else if (c == ':') {
+				String name = sql.startsWith(USER_PARAM, i + 1) ? USER_PARAM
+					: sql.startsWith(DEPT_PARAM, i + 1) ? DEPT_PARAM : null;
+				if (name != null) {
+					mappings.add(position++, new ParameterMapping.Builder(ms.getConfiguration(), name, Long.class).build());
+					out.append('?');
+					i += name.length();
+					continue;
+				}
+			}
+			out.append(c);
+		}
+		boundSql.setAdditionalParameter(USER_PARAM, scope.getUserId());
+		boundSql.setAdditionalParameter(DEPT_PARAM, scope.getDeptId());
+		mpBs.sql(out.toString());
+		mpBs.parameterMappings(mappings);
+	}
+}
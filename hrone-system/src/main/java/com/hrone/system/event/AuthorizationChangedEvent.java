@@ -0,0 +1,103 @@
+package com.hrone.system.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 授权变更事件（角色、菜单、用户角色关系、部门、用户所属部门修改后发布）
+ *
+ * 说明：
+ * - userIds 为受影响的用户；为空表示影响所有用户（如菜单权限标识变更、部门树变更）
+ * - 监听方在事务提交后失效本节点的权限缓存、数据权限缓存
+ * - framework 模块把本节点发布的事件通过 Redis 转发给其他节点，在其他节点以 remote = true 重新发布
+ */
+public class AuthorizationChangedEvent {
+
+	/**
+	 * 变更类型
+	 */
+	public enum ChangeType {
+		/** 角色新增、修改、删除 */
+		ROLE,
+		/** 菜单新增、修改、删除 */
+		MENU,
+		/** 用户角色关系变更或用户删除 */
+		USER_ROLE,
+		/** 部门新增、修改、删除（部门树变更） */
+		DEPT,
+		/** 用户所属部门变更 */
+		USER,
+		/** 角色菜单授权变更（只影响角色权限位图与菜单树） */
+		ROLE_MENU
+	}
+
+	private final ChangeType type;
+
+	private final Set<Long> userIds;
+
+	private final boolean remote;
+
+	private AuthorizationChangedEvent(ChangeType type, Set<Long> userIds, boolean remote) {
+		this.type = type;
+		this.userIds = userIds;
+		this.remote = remote;
+	}
+
+	/**
+	 * 影响指定用户的变更
+	 */
+	public static AuthorizationChangedEvent ofUsers(ChangeType type, Collection<Long> userIds) {
+		Set<Long> ids = new LinkedHashSet<>();
+		if (userIds != null) {
+			for (Long userId : userIds) {
+				if (userId != null) {
+					ids.add(userId);
+				}
+			}
+		}
+		return new AuthorizationChangedEvent(type, Collections.unmodifiableSet(ids), false);
+	}
+
+	/**
+	 * 影响所有用户的变更
+	 */
+	public static AuthorizationChangedEvent ofAll(ChangeType type) {
+		return new AuthorizationChangedEvent(type, Collections.<Long>emptySet(), false);
+	}
+
+	/**
+	 * 由其他节点转发而来的同一事件
+	 */
+	public AuthorizationChangedEvent asRemote() {
+		return new AuthorizationChangedEvent(type, userIds, true);
+	}
+
+	public ChangeType getType() {
+		return type;
+	}
+
+	public Set<Long> getUserIds() {
+		return userIds;
+	}
+
+	/**
+	 * 是否由其他节点转发而来
+	 */
+	public boolean isRemote() {
+		return remote;
+	}
+
+	/**
+	 * 是否影响所有用户
+	 */
+	public boolean isGlobal() {
+		return userIds.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "AuthorizationChangedEvent{type=" + type + ", userIds=" + (isGlobal() ? "*" : userIds) + ", remote=" + remote + "}";
+	}
+}
@@ -0,0 +1,45 @@
+package com.hrone.system.event;
+
+/**
+ * 用户凭据变更事件（用户停用、删除、修改密码后发布）
+ *
+ * 说明：
+ * - 监听方在事务提交后注销该用户的全部刷新令牌与在线会话，已签发的令牌不能再续期
+ * - 注销操作作用于 Redis，只在发布事件的节点执行一次，不向其他节点转发
+ */
+public class UserCredentialChangedEvent {
+
+	/**
+	 * 变更原因
+	 */
+	public enum Reason {
+		/** 用户停用 */
+		DISABLED,
+		/** 用户删除 */
+		DELETED,
+		/** 修改密码 */
+		PASSWORD_CHANGED
+	}
+
+	private final Long userId;
+
+	private final Reason reason;
+
+	public UserCredentialChangedEvent(Long userId, Reason reason) {
+		this.userId = userId;
+		this.reason = reason;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public Reason getReason() {
+		return reason;
+	}
+
+	@Override
+	public String toString() {
+		return "UserCredentialChangedEvent{userId=" + userId + ", reason=" + reason + "}";
+	}
+}
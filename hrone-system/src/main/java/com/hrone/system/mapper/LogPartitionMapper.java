@@ -0,0 +1,100 @@
+package com.hrone.system.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 日志表分区维护 Mapper（按月 RANGE COLUMNS 分区）
+ *
+ * 说明：
+ * - 表名、列名、分区名只能由调用方的固定常量或按规则生成，不接受外部输入（${} 直接拼接）
+ * - 分区 DDL 隐式提交，不能放在事务中
+ */
+@Mapper
+public interface LogPartitionMapper {
+
+	/**
+	 * 查询表的分区（未分区的表返回空列表）
+	 *
+	 * @param table 表名
+	 * @return name 分区名，bound 上界（如 '2026-11-01 00:00:00' 或 MAXVALUE），按分区顺序
+	 */
+	@Select({
+		"SELECT PARTITION_NAME AS name, PARTITION_DESCRIPTION AS bound FROM information_schema.PARTITIONS",
+		"WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table} AND PARTITION_NAME IS NOT NULL",
+		"ORDER BY PARTITION_ORDINAL_POSITION"
+	})
+	List<Map<String, Object>> selectPartitions(@Param("table") String table);
+
+	/**
+	 * 从 p_future 中拆出一个新分区（p_future 为空时只改元数据）
+	 *
+	 * @param table     表名
+	 * @param partition 新分区名
+	 * @param lessThan  新分区上界（yyyy-MM-dd）
+	 */
+	@Update({
+		"ALTER TABLE ${table} REORGANIZE PARTITION p_future INTO (",
+		"PARTITION ${partition} VALUES LESS THAN ('${lessThan}'),",
+		"PARTITION p_future VALUES LESS THAN (MAXVALUE))"
+	})
+	void addPartition(@Param("table") String table, @Param("partition") String partition,
+					  @Param("lessThan") String lessThan);
+
+	/**
+	 * 删除分区（连同其中的数据，耗时与数据量无关）
+	 *
+	 * @param table     表名
+	 * @param partition 分区名
+	 */
+	@Update("ALTER TABLE ${table} DROP PARTITION ${partition}")
+	void dropPartition(@Param("table") String table, @Param("partition") String partition);
+
+	/**
+	 * 创建与日志表结构相同的归档表（已存在时报错，避免把旧归档数据换回日志表）
+	 *
+	 * @param archiveTable 归档表名
+	 * @param table        日志表名
+	 */
+	@Update("CREATE TABLE ${archiveTable} LIKE ${table}")
+	void createArchiveTable(@Param("archiveTable") String archiveTable, @Param("table") String table);
+
+	/**
+	 * 去掉归档表的分区定义（EXCHANGE PARTITION 要求目标表未分区）
+	 *
+	 * @param archiveTable 归档表名
+	 */
+	@Update("ALTER TABLE ${archiveTable} REMOVE PARTITIONING")
+	void removePartitioning(@Param("archiveTable") String archiveTable);
+
+	/**
+	 * 把分区数据整体交换到空的归档表（只改元数据）
+	 *
+	 * @param table        日志表名
+	 * @param partition    分区名
+	 * @param archiveTable 归档表名
+	 */
+	@Update("ALTER TABLE ${table} EXCHANGE PARTITION ${partition} WITH TABLE ${archiveTable}")
+	void exchangePartition(@Param("table") String table, @Param("partition") String partition,
+						   @Param("archiveTable") String archiveTable);
+
+	/**
+	 * 按时间删除一批旧数据（沿时间索引删除，单次最多 limit 条）
+	 *
+	 * @param table      表名
+	 * @param timeColumn 时间列
+	 * @param before     删除早于该时间的数据
+	 * @param limit      单次条数
+	 * @return 删除条数
+	 */
+	@Delete("DELETE FROM ${table} WHERE ${timeColumn} < #{before} ORDER BY ${timeColumn} LIMIT #{limit}")
+	int deleteBefore(@Param("table") String table, @Param("timeColumn") String timeColumn,
+					 @Param("before") Date before, @Param("limit") int limit);
+}
@@ -0,0 +1,109 @@
+package com.hrone.system.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 部门闭包表 Mapper
+ *
+ * 说明：
+ * - sys_dept_closure 保存每个部门与其所有祖先（含自身，depth=0）的关系
+ * - 子树、祖先路径、层级查询都走 (ancestor, descendant) 主键或 (descendant, depth) 索引
+ * - 移动子树时只改写“子树内节点 x 原祖先”的行，子树内部的关系保持不变
+ */
+@Mapper
+public interface SysDeptClosureMapper {
+
+	/**
+	 * 新增部门：复制父部门的祖先关系（距离加一），并加上自身
+	 *
+	 * @param deptId   部门ID
+	 * @param parentId 父部门ID（根节点为0）
+	 * @return 新增条数
+	 */
+	@Insert({
+		"INSERT INTO sys_dept_closure (ancestor, descendant, depth)",
+		"SELECT ancestor, #{deptId}, depth + 1 FROM sys_dept_closure WHERE descendant = #{parentId}",
+		"UNION ALL SELECT #{deptId}, #{deptId}, 0"
+	})
+	int insertNode(@Param("deptId") Long deptId, @Param("parentId") Long parentId);
+
+	/**
+	 * 删除部门的所有关系（仅用于叶子部门）
+	 *
+	 * @param deptId 部门ID
+	 * @return 删除条数
+	 */
+	@Delete("DELETE FROM sys_dept_closure WHERE descendant = #{deptId} OR ancestor = #{deptId}")
+	int deleteNode(@Param("deptId") Long deptId);
+
+	/**
+	 * 移动子树第一步：断开子树与原祖先之间的关系
+	 *
+	 * @param deptId 子树根部门ID
+	 * @return 删除条数
+	 */
+	@Delete({
+		"DELETE c FROM sys_dept_closure c",
+		"JOIN sys_dept_closure s ON s.descendant = c.descendant AND s.ancestor = #{deptId}",
+		"JOIN sys_dept_closure p ON p.ancestor = c.ancestor AND p.descendant = #{deptId} AND p.depth > 0"
+	})
+	int detachSubtree(@Param("deptId") Long deptId);
+
+	/**
+	 * 移动子树第二步：新父部门的每个祖先（含自身） x 子树内每个节点
+	 *
+	 * @param deptId   子树根部门ID
+	 * @param parentId 新父部门ID（根节点为0）
+	 * @return 新增条数
+	 */
+	@Insert({
+		"INSERT INTO sys_dept_closure (ancestor, descendant, depth)",
+		"SELECT p.ancestor, s.descendant, p.depth + s.depth + 1",
+		"FROM sys_dept_closure p JOIN sys_dept_closure s",
+		"WHERE p.descendant = #{parentId} AND s.ancestor = #{deptId}"
+	})
+	int attachSubtree(@Param("deptId") Long deptId, @Param("parentId") Long parentId);
+
+	/**
+	 * 查询所有下级部门ID（不含自身）
+	 *
+	 * @param deptId 部门ID
+	 * @return 下级部门ID列表
+	 */
+	@Select("SELECT descendant FROM sys_dept_closure WHERE ancestor = #{deptId} AND depth > 0")
+	List<Long> selectDescendantIds(@Param("deptId") Long deptId);
+
+	/**
+	 * 查询祖先路径（不含自身，从根到父部门）
+	 *
+	 * @param deptId 部门ID
+	 * @return 祖先部门ID列表
+	 */
+	@Select("SELECT ancestor FROM sys_dept_closure WHERE descendant = #{deptId} AND depth > 0 ORDER BY depth DESC")
+	List<Long> selectAncestorIds(@Param("deptId") Long deptId);
+
+	/**
+	 * 查询部门层级（根部门为0，不存在时返回 null）
+	 *
+	 * @param deptId 部门ID
+	 * @return 层级
+	 */
+	@Select("SELECT MAX(depth) FROM sys_dept_closure WHERE descendant = #{deptId}")
+	Integer selectDepth(@Param("deptId") Long deptId);
+
+	/**
+	 * 是否为祖先-后代关系（含自身）
+	 *
+	 * @param ancestor   祖先部门ID
+	 * @param descendant 后代部门ID
+	 * @return 条数
+	 */
+	@Select("SELECT COUNT(1) FROM sys_dept_closure WHERE ancestor = #{ancestor} AND descendant = #{descendant}")
+	int countPath(@Param("ancestor") Long ancestor, @Param("descendant") Long descendant);
+}
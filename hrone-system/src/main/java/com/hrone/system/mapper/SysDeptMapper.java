@@ -3,6 +3,8 @@ package com.hrone.system.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hrone.system.domain.SysDept;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 /**
  * 部门管理 Mapper接口
@@ -11,6 +13,20 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface SysDeptMapper extends BaseMapper<SysDept> {
-    
-}
 
+    /**
+     * 批量替换下级部门祖级列表的前缀（按闭包表定位子树）
+     *
+     * @param deptId       部门ID
+     * @param oldAncestors 原祖级列表
+     * @param newAncestors 新祖级列表
+     * @return 更新条数
+     */
+    @Update({
+        "UPDATE sys_dept d JOIN sys_dept_closure c ON c.descendant = d.dept_id",
+        "SET d.ancestors = CONCAT(#{newAncestors}, SUBSTRING(d.ancestors, CHAR_LENGTH(#{oldAncestors}) + 1))",
+        "WHERE c.ancestor = #{deptId} AND c.depth > 0"
+    })
+    int updateChildrenAncestors(@Param("deptId") Long deptId, @Param("oldAncestors") String oldAncestors,
+                                @Param("newAncestors") String newAncestors);
+}
@@ -1,10 +1,63 @@
 package com.hrone.system.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.hrone.system.domain.SysLoginLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.List;
 
 @Mapper
 public interface SysLoginLogMapper extends BaseMapper<SysLoginLog> {
-}
 
+	/**
+	 * 批量新增登录日志（单条多值 INSERT）
+	 *
+	 * @param list 登录日志
+	 * @return 插入条数
+	 */
+	@Insert({
+		"<script>",
+		"INSERT INTO sys_login_log (user_name, ipaddr, login_location, browser, os, status, msg, login_time)",
+		"VALUES",
+		"<foreach collection='list' item='item' separator=','>",
+		"(#{item.userName}, #{item.ipaddr}, #{item.loginLocation}, #{item.browser}, #{item.os},",
+		"#{item.status}, #{item.msg}, IFNULL(#{item.loginTime}, NOW()))",
+		"</foreach>",
+		"</script>"
+	})
+	int insertBatch(@Param("list") List<SysLoginLog> list);
+
+	/**
+	 * 清空登录日志（TRUNCATE 重建表，不逐行删除、不产生大量 undo；隐式提交，不能放在事务中）
+	 */
+	@Update("TRUNCATE TABLE sys_login_log")
+	void truncate();
+
+	/**
+	 * 登录日志估算行数（取自表统计信息，不扫描数据，误差可能较大）
+	 */
+	@Select("SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sys_login_log'")
+	Long selectEstimatedCount();
+
+	/**
+	 * 流式查询登录日志（用于导出）
+	 *
+	 * fetchSize = Integer.MIN_VALUE 时 MySQL 驱动逐行读取结果，不把整个结果集放入内存；
+	 * 必须在事务（同一连接）中遍历完并关闭游标，期间该连接不能执行其他语句
+	 *
+	 * @param queryWrapper 查询条件
+	 * @return 游标
+	 */
+	@Select("SELECT * FROM sys_login_log ${ew.customSqlSegment}")
+	@Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+	Cursor<SysLoginLog> selectCursor(@Param(Constants.WRAPPER) Wrapper<SysLoginLog> queryWrapper);
+}
@@ -28,5 +28,20 @@ public interface SysMenuMapper extends BaseMapper<SysMenu> {
             "  AND m.menu_type IN ('M','C','F') " +
             "ORDER BY m.parent_id ASC, m.order_num ASC")
     List<SysMenu> selectMenusByUserId(@Param("userId") Long userId);
+
+    /**
+     * 根据角色ID集合查询可见菜单（与 selectMenusByUserId 条件一致）
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT m.* " +
+            "FROM sys_menu m " +
+            "JOIN sys_role_menu rm ON rm.menu_id = m.menu_id " +
+            "WHERE rm.role_id IN " +
+            "<foreach collection='roleIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "  AND m.status = '0' " +
+            "  AND m.menu_type IN ('M','C','F') " +
+            "ORDER BY m.parent_id ASC, m.order_num ASC" +
+            "</script>")
+    List<SysMenu> selectMenusByRoleIds(@Param("roleIds") List<Long> roleIds);
 }
 
@@ -1,5 +1,7 @@
 package com.hrone.system.mapper;
 
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -29,5 +31,48 @@ public interface SysRoleDeptMapper {
 		"</script>"
 	})
 	List<Long> selectDeptIdsByRoleIds(@Param("roleIds") List<Long> roleIds);
+
+	/**
+	 * 查询角色的部门ID
+	 *
+	 * @param roleId 角色ID
+	 * @return 部门ID列表
+	 */
+	@Select("SELECT dept_id FROM sys_role_dept WHERE role_id = #{roleId}")
+	List<Long> selectDeptIdsByRoleId(@Param("roleId") Long roleId);
+
+	/**
+	 * 删除角色的指定部门
+	 *
+	 * @param roleId  角色ID
+	 * @param deptIds 部门ID集合
+	 * @return 删除条数
+	 */
+	@Delete({
+		"<script>",
+		"DELETE FROM sys_role_dept WHERE role_id = #{roleId} AND dept_id IN",
+		"<foreach collection='deptIds' item='id' open='(' separator=',' close=')'>",
+		"#{id}",
+		"</foreach>",
+		"</script>"
+	})
+	int deleteRoleDepts(@Param("roleId") Long roleId, @Param("deptIds") List<Long> deptIds);
+
+	/**
+	 * 批量新增角色部门
+	 *
+	 * @param roleId  角色ID
+	 * @param deptIds 部门ID集合
+	 * @return 新增条数
+	 */
+	@Insert({
+		"<script>",
+		"INSERT INTO sys_role_dept (role_id, dept_id) VALUES",
+		"<foreach collection='deptIds' item='deptId' separator=','>",
+		"(#{roleId}, #{deptId})",
+		"</foreach>",
+		"</script>"
+	})
+	int batchRoleDept(@Param("roleId") Long roleId, @Param("deptIds") List<Long> deptIds);
 }
 
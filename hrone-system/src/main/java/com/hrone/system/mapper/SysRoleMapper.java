@@ -23,5 +23,12 @@ public interface SysRoleMapper extends BaseMapper<SysRole> {
 		"JOIN sys_user_role ur ON ur.role_id = r.role_id " +
 		"WHERE ur.user_id = #{userId} AND r.del_flag = '0'")
 	List<SysRole> selectRolesByUserId(@Param("userId") Long userId);
-}
 
+	/**
+	 * 锁定角色行（在事务中调用，直到提交前其他授权请求在此等待）
+	 *
+	 * @return 角色ID，角色不存在时为 null
+	 */
+	@Select("SELECT role_id FROM sys_role WHERE role_id = #{roleId} AND del_flag = '0' FOR UPDATE")
+	Long lockRoleById(@Param("roleId") Long roleId);
+}
@@ -0,0 +1,71 @@
+package com.hrone.system.mapper;
+
+import com.hrone.system.domain.SysRoleMenu;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 角色与菜单关联 Mapper
+ */
+@Mapper
+public interface SysRoleMenuMapper {
+
+	/**
+	 * 查询所有未删除角色的菜单关联（用于构建权限索引）
+	 *
+	 * @return 角色菜单关联列表
+	 */
+	@Select("SELECT rm.role_id, rm.menu_id " +
+		"FROM sys_role_menu rm " +
+		"JOIN sys_role r ON r.role_id = rm.role_id " +
+		"WHERE r.del_flag = '0'")
+	List<SysRoleMenu> selectRoleMenus();
+
+	/**
+	 * 查询角色的菜单ID
+	 *
+	 * @param roleId 角色ID
+	 * @return 菜单ID列表
+	 */
+	@Select("SELECT menu_id FROM sys_role_menu WHERE role_id = #{roleId}")
+	List<Long> selectMenuIdsByRoleId(@Param("roleId") Long roleId);
+
+	/**
+	 * 删除角色的指定菜单
+	 *
+	 * @param roleId  角色ID
+	 * @param menuIds 菜单ID集合
+	 * @return 删除条数
+	 */
+	@Delete({
+		"<script>",
+		"DELETE FROM sys_role_menu WHERE role_id = #{roleId} AND menu_id IN",
+		"<foreach collection='menuIds' item='id' open='(' separator=',' close=')'>",
+		"#{id}",
+		"</foreach>",
+		"</script>"
+	})
+	int deleteRoleMenus(@Param("roleId") Long roleId, @Param("menuIds") List<Long> menuIds);
+
+	/**
+	 * 批量新增角色菜单
+	 *
+	 * @param roleId  角色ID
+	 * @param menuIds 菜单ID集合
+	 * @return 新增条数
+	 */
+	@Insert({
+		"<script>",
+		"INSERT INTO sys_role_menu (role_id, menu_id) VALUES",
+		"<foreach collection='menuIds' item='menuId' separator=','>",
+		"(#{roleId}, #{menuId})",
+		"</foreach>",
+		"</script>"
+	})
+	int batchRoleMenu(@Param("roleId") Long roleId, @Param("menuIds") List<Long> menuIds);
+}
@@ -0,0 +1,69 @@
+package com.hrone.system.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 用户与角色关联 Mapper
+ */
+@Mapper
+public interface SysUserRoleMapper {
+
+	/**
+	 * 查询拥有指定角色的用户ID
+	 *
+	 * @param roleIds 角色ID集合
+	 * @return 用户ID列表
+	 */
+	@Select({
+		"<script>",
+		"SELECT DISTINCT user_id",
+		"FROM sys_user_role",
+		"WHERE role_id IN",
+		"<foreach collection='roleIds' item='id' open='(' separator=',' close=')'>",
+		"#{id}",
+		"</foreach>",
+		"</script>"
+	})
+	List<Long> selectUserIdsByRoleIds(@Param("roleIds") List<Long> roleIds);
+
+	/**
+	 * 查询用户的角色ID
+	 *
+	 * @param userId 用户ID
+	 * @return 角色ID列表
+	 */
+	@Select("SELECT role_id FROM sys_user_role WHERE user_id = #{userId}")
+	List<Long> selectRoleIdsByUserId(@Param("userId") Long userId);
+
+	/**
+	 * 删除用户的全部角色
+	 *
+	 * @param userId 用户ID
+	 * @return 删除条数
+	 */
+	@Delete("DELETE FROM sys_user_role WHERE user_id = #{userId}")
+	int deleteUserRoleByUserId(@Param("userId") Long userId);
+
+	/**
+	 * 批量新增用户角色
+	 *
+	 * @param userId  用户ID
+	 * @param roleIds 角色ID集合
+	 * @return 新增条数
+	 */
+	@Insert({
+		"<script>",
+		"INSERT INTO sys_user_role (user_id, role_id) VALUES",
+		"<foreach collection='roleIds' item='roleId' separator=','>",
+		"(#{userId}, #{roleId})",
+		"</foreach>",
+		"</script>"
+	})
+	int batchUserRole(@Param("userId") Long userId, @Param("roleIds") List<Long> roleIds);
+}
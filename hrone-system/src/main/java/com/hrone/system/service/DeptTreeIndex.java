@@ -0,0 +1,313 @@
+package com.hrone.system.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hrone.system.domain.SysDept;
+import com.hrone.system.event.AuthorizationChangedEvent;
+import com.hrone.system.mapper.SysDeptMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 部门树内存索引（本节点只读快照）
+ *
+ * 说明：
+ * - 快照中的节点按先序（欧拉序进入顺序）存放，位置即进入编号 tin，tout 为子树结束位置（不含）；
+ *   “X 是否在 Y 之下”只需比较两次整数，子树为连续区间 [tin, tout)
+ * - 另存 parent / firstChild / nextSibling / depth 数组，同级按 order_num、dept_id 排序
+ * - 部门变更（含其他节点转发的变更）在事务提交后整体重建新快照并替换引用，读取方无需加锁
+ * - 快照带递增的版本号；启动时加载失败的，在首次访问时重试
+ */
+@Component
+public class DeptTreeIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(DeptTreeIndex.class);
+
+	@Autowired
+	private SysDeptMapper deptMapper;
+
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+	private volatile boolean loaded;
+
+	@PostConstruct
+	public void init() {
+		try {
+			rebuild();
+		} catch (RuntimeException e) {
+			log.warn("加载部门树索引失败，将在首次访问时重试：{}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 从数据库重新构建快照
+	 */
+	public synchronized void rebuild() {
+		LambdaQueryWrapper<SysDept> wrapper = new LambdaQueryWrapper<>();
+		wrapper.select(SysDept::getDeptId, SysDept::getParentId, SysDept::getOrderNum);
+		snapshot = Snapshot.build(snapshot.version + 1, deptMapper.selectList(wrapper));
+		loaded = true;
+		log.info("部门树索引已重建：版本{}，部门{}个", snapshot.version, snapshot.size());
+	}
+
+	/**
+	 * 当前快照
+	 */
+	public Snapshot current() {
+		if (!loaded) {
+			synchronized (this) {
+				if (!loaded) {
+					rebuild();
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * 部门变更后重建（先于数据权限缓存的失效执行）
+	 */
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAuthorizationChanged(AuthorizationChangedEvent event) {
+		if (event.getType() != AuthorizationChangedEvent.ChangeType.DEPT) {
+			return;
+		}
+		try {
+			rebuild();
+		} catch (RuntimeException e) {
+			loaded = false;
+			log.warn("重建部门树索引失败，将在下次访问时重试：{}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 不可变快照
+	 */
+	public static final class Snapshot {
+
+		private static final Snapshot EMPTY = new Snapshot(0, new long[0], new int[0], new int[0], new int[0],
+			new int[0], new int[0], Collections.<Long, Integer>emptyMap());
+
+		private final long version;
+
+		/** 位置 -> 部门ID（先序） */
+		private final long[] ids;
+
+		/** 父节点位置，根节点为 -1 */
+		private final int[] parent;
+
+		/** 第一个子节点位置，无子节点为 -1 */
+		private final int[] firstChild;
+
+		/** 下一个兄弟节点位置，无则为 -1 */
+		private final int[] nextSibling;
+
+		/** 子树结束位置（不含） */
+		private final int[] tout;
+
+		/** 层级，根部门为 0 */
+		private final int[] depth;
+
+		/** 部门ID -> 位置 */
+		private final Map<Long, Integer> positions;
+
+		private Snapshot(long version, long[] ids, int[] parent, int[] firstChild, int[] nextSibling, int[] tout,
+						 int[] depth, Map<Long, Integer> positions) {
+			this.version = version;
+			this.ids = ids;
+			this.parent = parent;
+			this.firstChild = firstChild;
+			this.nextSibling = nextSibling;
+			this.tout = tout;
+			this.depth = depth;
+			this.positions = positions;
+		}
+
+		/**
+		 * 由部门列表构建；父部门不在列表中的作为根节点，环上的部门不会被收录
+		 */
+		static Snapshot build(long version, List<SysDept> depts) {
+			List<SysDept> sorted = new ArrayList<>(depts);
+			sorted.sort(Comparator.comparing((SysDept d) -> d.getOrderNum() != null ? d.getOrderNum() : 0)
+				.thenComparing(SysDept::getDeptId));
+			int n = sorted.size();
+			Map<Long, Integer> input = new HashMap<>(n * 2);
+			for (int i = 0; i < n; i++) {
+				input.put(sorted.get(i).getDeptId(), i);
+			}
+
+			// 按输入顺序的子节点链表（倒序头插，保持同级顺序）
+			int[] head = new int[n + 1];
+			int[] next = new int[n];
+			Arrays.fill(head, -1);
+			for (int i = n - 1; i >= 0; i--) {
+				Integer p = input.get(sorted.get(i).getParentId());
+				int slot = p != null ? p : n;
+				next[i] = head[slot];
+				head[slot] = i;
+			}
+
+			// 非递归先序遍历，分配位置
+			long[] ids = new long[n];
+			int[] parent = new int[n];
+			int[] firstChild = new int[n];
+			int[] nextSibling = new int[n];
+			int[] tout = new int[n];
+			int[] depth = new int[n];
+			Map<Long, Integer> positions = new HashMap<>(n * 2);
+			int[] stackNode = new int[n + 1];
+			int[] stackPos = new int[n + 1];
+			int[] lastChild = new int[n];
+			int top = 0;
+			int count = 0;
+			stackNode[0] = n;
+			stackPos[0] = -1;
+			int[] cursor = head.clone();
+			while (top >= 0) {
+				int node = stackNode[top];
+				int child = cursor[node];
+				if (child < 0) {
+					if (stackPos[top] >= 0) {
+						tout[stackPos[top]] = count;
+					}
+					top--;
+					continue;
+				}
+				cursor[node] = next[child];
+				int pos = count++;
+				int parentPos = stackPos[top];
+				ids[pos] = sorted.get(child).getDeptId();
+				parent[pos] = parentPos;
+				firstChild[pos] = -1;
+				nextSibling[pos] = -1;
+				depth[pos] = parentPos >= 0 ? depth[parentPos] + 1 : 0;
+				if (parentPos >= 0) {
+					if (firstChild[parentPos] < 0) {
+						firstChild[parentPos] = pos;
+					} else {
+						nextSibling[lastChild[parentPos]] = pos;
+					}
+					lastChild[parentPos] = pos;
+				}
+				positions.put(ids[pos], pos);
+				top++;
+				stackNode[top] = child;
+				stackPos[top] = pos;
+			}
+			if (count < n) {
+				log.warn("部门树存在环，{}个部门未收录", n - count);
+				ids = Arrays.copyOf(ids, count);
+				parent = Arrays.copyOf(parent, count);
+				firstChild = Arrays.copyOf(firstChild, count);
+				nextSibling = Arrays.copyOf(nextSibling, count);
+				tout = Arrays.copyOf(tout, count);
+				depth = Arrays.copyOf(depth, count);
+			}
+			return new Snapshot(version, ids, parent, firstChild, nextSibling, tout, depth, positions);
+		}
+
+		/**
+		 * 快照版本号，每次重建加一
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		public int size() {
+			return ids.length;
+		}
+
+		/**
+		 * 部门在先序中的位置（进入编号），不存在时返回 -1
+		 */
+		public int positionOf(Long deptId) {
+			Integer pos = deptId != null ? positions.get(deptId) : null;
+			return pos != null ? pos : -1;
+		}
+
+		public boolean contains(Long deptId) {
+			return positionOf(deptId) >= 0;
+		}
+
+		/**
+		 * deptId 是否为 ancestorId 本身或其下级部门
+		 */
+		public boolean isUnder(Long deptId, Long ancestorId) {
+			int x = positionOf(deptId);
+			int y = positionOf(ancestorId);
+			return x >= 0 && y >= 0 && y <= x && x < tout[y];
+		}
+
+		/**
+		 * 是否为叶子部门（不存在的部门返回 false）
+		 */
+		public boolean isLeaf(Long deptId) {
+			int pos = positionOf(deptId);
+			return pos >= 0 && firstChild[pos] < 0;
+		}
+
+		/**
+		 * 子树中的部门ID（含自身，先序）
+		 */
+		public List<Long> subtreeIds(Long deptId) {
+			int pos = positionOf(deptId);
+			if (pos < 0) {
+				return new ArrayList<>();
+			}
+			List<Long> result = new ArrayList<>(tout[pos] - pos);
+			for (int i = pos; i < tout[pos]; i++) {
+				result.add(ids[i]);
+			}
+			return result;
+		}
+
+		/**
+		 * 直接下级部门ID
+		 */
+		public List<Long> childIds(Long deptId) {
+			List<Long> result = new ArrayList<>();
+			int pos = positionOf(deptId);
+			for (int c = pos >= 0 ? firstChild[pos] : -1; c >= 0; c = nextSibling[c]) {
+				result.add(ids[c]);
+			}
+			return result;
+		}
+
+		/**
+		 * 祖先部门ID（不含自身，从根到父部门）
+		 */
+		public List<Long> ancestorIds(Long deptId) {
+			int pos = positionOf(deptId);
+			if (pos < 0) {
+				return new ArrayList<>();
+			}
+			Long[] path = new Long[depth[pos]];
+			for (int p = parent[pos], i = path.length - 1; p >= 0; p = parent[p], i--) {
+				path[i] = ids[p];
+			}
+			return new ArrayList<>(Arrays.asList(path));
+		}
+
+		/**
+		 * 层级（根部门为0，不存在时返回 -1）
+		 */
+		public int depth(Long deptId) {
+			int pos = positionOf(deptId);
+			return pos >= 0 ? depth[pos] : -1;
+		}
+	}
+}
@@ -37,13 +37,29 @@ public interface ISysDeptService extends IService<SysDept> {
     SysDept selectDeptById(Long deptId);
 
     /**
-     * 根据ID查询所有子部门
+     * 根据ID查询所有子部门（含自身）
      * 
      * @param deptId 部门ID
      * @return 子部门ID列表
      */
     List<Long> selectChildDeptIds(Long deptId);
 
+    /**
+     * 根据ID查询祖先部门（从根到父部门）
+     * 
+     * @param deptId 部门ID
+     * @return 祖先部门ID列表
+     */
+    List<Long> selectAncestorDeptIds(Long deptId);
+
+    /**
+     * 查询部门层级
+     * 
+     * @param deptId 部门ID
+     * @return 层级（根部门为0，不存在返回-1）
+     */
+    int selectDeptDepth(Long deptId);
+
     /**
      * 是否存在子节点
      * 
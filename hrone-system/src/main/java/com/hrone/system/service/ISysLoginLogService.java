@@ -1,16 +1,41 @@
 package com.hrone.system.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.hrone.common.core.page.KeysetCursor;
+import com.hrone.common.core.page.KeysetPage;
 import com.hrone.system.domain.SysLoginLog;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ISysLoginLogService extends IService<SysLoginLog> {
 
 	void insertLoginLog(SysLoginLog loginLog);
 
+	int insertLoginLogBatch(List<SysLoginLog> loginLogs);
+
 	List<SysLoginLog> selectLoginLogList(SysLoginLog loginLog);
 
+	/**
+	 * 游标分页查询（按时间、ID 倒序）
+	 *
+	 * @param loginLog 筛选条件（时间范围取 params.beginTime / params.endTime）
+	 * @param cursor 上一页返回的游标，第一页为 null
+	 * @param pageSize 每页条数
+	 * @param count 是否返回总数（无筛选条件时为估算值，有条件时缓存 1 分钟）
+	 * @return 分页结果
+	 */
+	KeysetPage<SysLoginLog> selectLoginLogPage(SysLoginLog loginLog, KeysetCursor cursor, int pageSize, boolean count);
+
+	/**
+	 * 流式遍历符合条件的登录日志（按时间、ID 倒序），逐条交给 consumer，不在内存中汇总
+	 *
+	 * @param loginLog 筛选条件（同列表）
+	 * @param consumer 处理每一条
+	 * @return 条数
+	 */
+	long exportLoginLog(SysLoginLog loginLog, Consumer<SysLoginLog> consumer);
+
 	int deleteLoginLogByIds(Long[] infoIds);
 
 	void cleanLoginLog();
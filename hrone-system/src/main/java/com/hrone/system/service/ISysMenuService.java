@@ -44,6 +44,14 @@ public interface ISysMenuService extends IService<SysMenu> {
      */
     List<SysMenu> selectMenusByUserId(Long userId);
 
+    /**
+     * 根据角色ID集合查询菜单
+     * 
+     * @param roleIds 角色ID集合
+     * @return 菜单列表
+     */
+    List<SysMenu> selectMenusByRoleIds(List<Long> roleIds);
+
     /**
      * 是否存在子菜单
      * 
@@ -83,5 +83,38 @@ public interface ISysRoleService extends IService<SysRole> {
      * @return 结果
      */
     int deleteRoleByIds(Long[] roleIds);
-}
 
+    /**
+     * 查询角色的菜单ID
+     * 
+     * @param roleId 角色ID
+     * @return 菜单ID列表
+     */
+    List<Long> selectMenuIdsByRoleId(Long roleId);
+
+    /**
+     * 查询角色的部门ID（自定义数据权限）
+     * 
+     * @param roleId 角色ID
+     * @return 部门ID列表
+     */
+    List<Long> selectDeptIdsByRoleId(Long roleId);
+
+    /**
+     * 设置角色菜单（覆盖原有菜单，只写入差异）
+     * 
+     * @param roleId 角色ID
+     * @param menuIds 菜单ID数组
+     * @return 变更的关联条数
+     */
+    int authRoleMenu(Long roleId, Long[] menuIds);
+
+    /**
+     * 设置角色部门（覆盖原有部门，只写入差异）
+     * 
+     * @param roleId 角色ID
+     * @param deptIds 部门ID数组
+     * @return 变更的关联条数
+     */
+    int authRoleDept(Long roleId, Long[] deptIds);
+}
@@ -86,5 +86,24 @@ public interface ISysUserService extends IService<SysUser> {
      * @return 结果
      */
     int deleteUserById(Long userId);
-}
+    
+    /**
+     * 比较并更新用户密码（只更新密码列，不做超级管理员限制；用于登录后重新加密）
+     * 
+     * 仅当数据库中的密码仍为 expectedPassword 时才更新，期间密码已被修改或重置则不覆盖
+     * 
+     * @param userId 用户ID
+     * @param password 已加密的新密码
+     * @param expectedPassword 读取时数据库中的密码
+     * @return 结果（密码已变化时为 0）
+     */
+    int updateUserPassword(Long userId, String password, String expectedPassword);
 
+    /**
+     * 设置用户角色（覆盖原有角色）
+     * 
+     * @param userId 用户ID
+     * @param roleIds 角色ID数组
+     */
+    void insertUserAuth(Long userId, Long[] roleIds);
+}
@@ -8,19 +8,27 @@ import com.hrone.common.utils.StringUtils;
 import com.hrone.common.utils.TreeUtils;
 import com.hrone.system.domain.SysDept;
 import com.hrone.system.domain.SysUser;
+import com.hrone.system.event.AuthorizationChangedEvent;
+import com.hrone.system.mapper.SysDeptClosureMapper;
 import com.hrone.system.mapper.SysDeptMapper;
 import com.hrone.system.mapper.SysUserMapper;
+import com.hrone.system.service.DeptTreeIndex;
 import com.hrone.system.service.ISysDeptService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 部门管理 Service实现
  * 
+ * 部门层级关系保存在闭包表 sys_dept_closure 中，与部门表在同一事务内维护；
+ * ancestors 列保留给前端使用，移动部门时按闭包表批量改写；
+ * 树结构、子部门、祖先与层级查询读取本节点的部门树索引（DeptTreeIndex），不查库
+ * 
  * @author hrone
  */
 @Service
@@ -29,9 +37,18 @@ public class SysDeptServiceImpl extends ServiceImpl<SysDeptMapper, SysDept> impl
     @Autowired
     private SysDeptMapper deptMapper;
 
+    @Autowired
+    private SysDeptClosureMapper closureMapper;
+
     @Autowired
     private SysUserMapper userMapper;
 
+    @Autowired
+    private DeptTreeIndex deptTreeIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 查询部门列表
      */
@@ -57,17 +74,22 @@ public class SysDeptServiceImpl extends ServiceImpl<SysDeptMapper, SysDept> impl
     }
 
     /**
-     * 构建部门树结构
+     * 构建部门树结构（同级按索引中的先序排列；索引中没有的部门，如刚新增尚未重建的，排在最后）
      */
     @Override
     public List<SysDept> buildDeptTree(List<SysDept> depts) {
+        DeptTreeIndex.Snapshot index = deptTreeIndex.current();
         return TreeUtils.buildTree(
             depts,
             SysDept::getDeptId,
             SysDept::getParentId,
-            SysDept::getChildren,
             SysDept::setChildren,
-            0L
+            0L,
+            Comparator.comparingInt((SysDept d) -> {
+                int pos = index.positionOf(d.getDeptId());
+                return pos >= 0 ? pos : Integer.MAX_VALUE;
+            }),
+            depts.size() >= TreeUtils.PARALLEL_THRESHOLD
         );
     }
 
@@ -80,19 +102,27 @@ public class SysDeptServiceImpl extends ServiceImpl<SysDeptMapper, SysDept> impl
     }
 
     /**
-     * 查询所有子部门ID
+     * 查询所有子部门ID（含自身，索引中的连续区间）
      */
     @Override
     public List<Long> selectChildDeptIds(Long deptId) {
-        SysDept dept = deptMapper.selectById(deptId);
-        if (dept == null) {
-            return new ArrayList<>();
-        }
-        
-        List<SysDept> allDepts = deptMapper.selectList(null);
-        List<Object> ids = TreeUtils.getChildIds(allDepts, dept, SysDept::getDeptId, SysDept::getParentId);
-        
-        return ids.stream().map(id -> (Long) id).collect(Collectors.toList());
+        return deptTreeIndex.current().subtreeIds(deptId);
+    }
+
+    /**
+     * 查询祖先部门ID（从根到父部门）
+     */
+    @Override
+    public List<Long> selectAncestorDeptIds(Long deptId) {
+        return deptTreeIndex.current().ancestorIds(deptId);
+    }
+
+    /**
+     * 查询部门层级
+     */
+    @Override
+    public int selectDeptDepth(Long deptId) {
+        return deptTreeIndex.current().depth(deptId);
     }
 
     /**
@@ -135,6 +165,7 @@ public class SysDeptServiceImpl extends ServiceImpl<SysDeptMapper, SysDept> impl
      * 新增部门
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int insertDept(SysDept dept) {
         // 校验部门名称
         if (!checkDeptNameUnique(dept)) {
@@ -149,54 +180,67 @@ public class SysDeptServiceImpl extends ServiceImpl<SysDeptMapper, SysDept> impl
             dept.setAncestors("0");
         }
         
-        return deptMapper.insert(dept);
+        int rows = deptMapper.insert(dept);
+        closureMapper.insertNode(dept.getDeptId(), dept.getParentId());
+        publishDeptChanged();
+        return rows;
     }
 
     /**
      * 修改部门
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int updateDept(SysDept dept) {
         // 校验部门名称
         if (!checkDeptNameUnique(dept)) {
             throw new ServiceException("部门名称已存在");
         }
         
-        // 如果修改了父部门，需要更新祖级列表
+        // 如果修改了父部门，需要移动整棵子树
         SysDept oldDept = deptMapper.selectById(dept.getDeptId());
-        SysDept newParentDept = deptMapper.selectById(dept.getParentId());
-        
-        if (oldDept != null && newParentDept != null) {
-            String newAncestors = newParentDept.getAncestors() + "," + newParentDept.getDeptId();
-            String oldAncestors = oldDept.getAncestors();
-            dept.setAncestors(newAncestors);
-            updateDeptChildren(dept.getDeptId(), newAncestors, oldAncestors);
+        if (oldDept != null && dept.getParentId() != null && !dept.getParentId().equals(oldDept.getParentId())) {
+            moveDept(oldDept, dept);
         }
         
-        return deptMapper.updateById(dept);
+        int rows = deptMapper.updateById(dept);
+        publishDeptChanged();
+        return rows;
     }
 
     /**
-     * 修改子元素关系
+     * 移动子树：批量改写闭包关系与下级部门的祖级列表
      */
-    private void updateDeptChildren(Long deptId, String newAncestors, String oldAncestors) {
-        LambdaQueryWrapper<SysDept> wrapper = new LambdaQueryWrapper<>();
-        wrapper.apply("FIND_IN_SET({0}, ancestors)", deptId);
-        
-        List<SysDept> children = deptMapper.selectList(wrapper);
-        for (SysDept child : children) {
-            child.setAncestors(child.getAncestors().replaceFirst(oldAncestors, newAncestors));
+    private void moveDept(SysDept oldDept, SysDept dept) {
+        Long deptId = oldDept.getDeptId();
+        Long parentId = dept.getParentId();
+        if (closureMapper.countPath(deptId, parentId) > 0) {
+            throw new ServiceException("上级部门不能是自己或自己的下级部门");
         }
         
-        if (children.size() > 0) {
-            updateBatchById(children);
+        String newAncestors;
+        if (parentId == 0L) {
+            newAncestors = "0";
+        } else {
+            SysDept newParentDept = deptMapper.selectById(parentId);
+            if (newParentDept == null) {
+                throw new ServiceException("上级部门不存在");
+            }
+            newAncestors = newParentDept.getAncestors() + "," + parentId;
         }
+        dept.setAncestors(newAncestors);
+        
+        // 下级部门的祖级列表以 “原祖级列表,deptId” 开头，只替换前缀
+        deptMapper.updateChildrenAncestors(deptId, oldDept.getAncestors(), newAncestors);
+        closureMapper.detachSubtree(deptId);
+        closureMapper.attachSubtree(deptId, parentId);
     }
 
     /**
      * 删除部门
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int deleteDeptById(Long deptId) {
         // 检查是否有子部门
         if (hasChildByDeptId(deptId)) {
@@ -208,7 +252,16 @@ public class SysDeptServiceImpl extends ServiceImpl<SysDeptMapper, SysDept> impl
             throw new ServiceException("部门存在用户，不允许删除");
         }
         
-        return deptMapper.deleteById(deptId);
+        int rows = deptMapper.deleteById(deptId);
+        closureMapper.deleteNode(deptId);
+        publishDeptChanged();
+        return rows;
     }
-}
 
+    /**
+     * 部门树变更：失效所有用户的数据权限缓存
+     */
+    private void publishDeptChanged() {
+        eventPublisher.publishEvent(AuthorizationChangedEvent.ofAll(AuthorizationChangedEvent.ChangeType.DEPT));
+    }
+}
@@ -2,25 +2,116 @@ package com.hrone.system.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hrone.common.core.page.CountCache;
+import com.hrone.common.core.page.KeysetCursor;
+import com.hrone.common.core.page.KeysetPage;
+import com.hrone.common.exception.ServiceException;
+import com.hrone.common.utils.DateUtils;
 import com.hrone.common.utils.StringUtils;
 import com.hrone.system.domain.SysLoginLog;
 import com.hrone.system.mapper.SysLoginLogMapper;
 import com.hrone.system.service.ISysLoginLogService;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 @Service
 public class SysLoginLogServiceImpl extends ServiceImpl<SysLoginLogMapper, SysLoginLog> implements ISysLoginLogService {
 
+	/**
+	 * 单页最大条数
+	 */
+	private static final int MAX_PAGE_SIZE = 500;
+
+	/**
+	 * 带条件的总数缓存 1 分钟
+	 */
+	private final CountCache countCache = new CountCache(60_000, 1000);
+
 	@Override
 	public void insertLoginLog(SysLoginLog loginLog) {
 		this.baseMapper.insert(loginLog);
 	}
 
+	@Override
+	public int insertLoginLogBatch(List<SysLoginLog> loginLogs) {
+		if (loginLogs == null || loginLogs.isEmpty()) {
+			return 0;
+		}
+		return this.baseMapper.insertBatch(loginLogs);
+	}
+
 	@Override
 	public List<SysLoginLog> selectLoginLogList(SysLoginLog loginLog) {
+		LambdaQueryWrapper<SysLoginLog> wrapper = buildQueryWrapper(loginLog);
+		wrapper.orderByDesc(SysLoginLog::getLoginTime, SysLoginLog::getInfoId);
+		return this.baseMapper.selectList(wrapper);
+	}
+
+	@Override
+	public KeysetPage<SysLoginLog> selectLoginLogPage(SysLoginLog loginLog, KeysetCursor cursor, int pageSize, boolean count) {
+		int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+		LambdaQueryWrapper<SysLoginLog> wrapper = buildQueryWrapper(loginLog);
+
+		// 总数按筛选条件统计，与游标位置无关
+		Long total = null;
+		boolean estimated = false;
+		if (count) {
+			if (wrapper.isEmptyOfWhere()) {
+				total = this.baseMapper.selectEstimatedCount();
+				estimated = true;
+			} else {
+				String key = wrapper.getSqlSegment() + new TreeMap<>(wrapper.getParamNameValuePairs());
+				total = countCache.get(key, () -> this.baseMapper.selectCount(wrapper).longValue());
+			}
+		}
+
+		// 从上一页最后一行之后继续：(login_time, info_id) < (cursor.time, cursor.id)
+		if (cursor != null) {
+			wrapper.and(w -> w.lt(SysLoginLog::getLoginTime, cursor.getTime())
+				.or(o -> o.eq(SysLoginLog::getLoginTime, cursor.getTime()).lt(SysLoginLog::getInfoId, cursor.getId())));
+		}
+		wrapper.orderByDesc(SysLoginLog::getLoginTime, SysLoginLog::getInfoId);
+		wrapper.last("LIMIT " + (size + 1));
+
+		KeysetPage<SysLoginLog> page = KeysetPage.of(this.baseMapper.selectList(wrapper), size,
+			row -> new KeysetCursor(row.getLoginTime(), row.getInfoId()));
+		if (count) {
+			page.setTotal(total, estimated);
+		}
+		return page;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long exportLoginLog(SysLoginLog loginLog, Consumer<SysLoginLog> consumer) {
+		LambdaQueryWrapper<SysLoginLog> wrapper = buildQueryWrapper(loginLog);
+		wrapper.orderByDesc(SysLoginLog::getLoginTime, SysLoginLog::getInfoId);
+		long count = 0;
+		try (Cursor<SysLoginLog> cursor = this.baseMapper.selectCursor(wrapper)) {
+			for (SysLoginLog row : cursor) {
+				consumer.accept(row);
+				count++;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return count;
+	}
+
+	/**
+	 * 筛选条件：用户账号（模糊）、状态、IP、访问时间范围（params.beginTime / params.endTime）
+	 */
+	private LambdaQueryWrapper<SysLoginLog> buildQueryWrapper(SysLoginLog loginLog) {
 		LambdaQueryWrapper<SysLoginLog> wrapper = new LambdaQueryWrapper<>();
 		if (StringUtils.isNotEmpty(loginLog.getUserName())) {
 			wrapper.like(SysLoginLog::getUserName, loginLog.getUserName());
@@ -28,8 +119,33 @@ public class SysLoginLogServiceImpl extends ServiceImpl<SysLoginLogMapper, SysLo
 		if (StringUtils.isNotEmpty(loginLog.getStatus())) {
 			wrapper.eq(SysLoginLog::getStatus, loginLog.getStatus());
 		}
-		wrapper.orderByDesc(SysLoginLog::getLoginTime);
-		return this.baseMapper.selectList(wrapper);
+		if (StringUtils.isNotEmpty(loginLog.getIpaddr())) {
+			wrapper.eq(SysLoginLog::getIpaddr, loginLog.getIpaddr());
+		}
+		Date beginTime = rangeBound(loginLog.getParams(), "beginTime", false);
+		if (beginTime != null) {
+			wrapper.ge(SysLoginLog::getLoginTime, beginTime);
+		}
+		Date endTime = rangeBound(loginLog.getParams(), "endTime", true);
+		if (endTime != null) {
+			wrapper.lt(SysLoginLog::getLoginTime, endTime);
+		}
+		return wrapper;
+	}
+
+	/**
+	 * 读取时间范围条件，格式错误时报错（不能忽略条件返回更多数据）
+	 */
+	private static Date rangeBound(Map<String, Object> params, String key, boolean end) {
+		Object value = params.get(key);
+		if (value == null || StringUtils.isEmpty(value.toString())) {
+			return null;
+		}
+		Date time = DateUtils.parseRangeBound(value.toString(), end);
+		if (time == null) {
+			throw new ServiceException("时间格式错误：" + value, 400);
+		}
+		return time;
 	}
 
 	@Override
@@ -39,7 +155,7 @@ public class SysLoginLogServiceImpl extends ServiceImpl<SysLoginLogMapper, SysLo
 
 	@Override
 	public void cleanLoginLog() {
-		this.lambdaUpdate().remove();
+		// TRUNCATE 代替不带条件的 DELETE，不逐行加锁、不产生大量 undo
+		this.baseMapper.truncate();
 	}
 }
-
@@ -7,11 +7,14 @@ import com.hrone.common.exception.ServiceException;
 import com.hrone.common.utils.StringUtils;
 import com.hrone.common.utils.TreeUtils;
 import com.hrone.system.domain.SysMenu;
+import com.hrone.system.event.AuthorizationChangedEvent;
 import com.hrone.system.mapper.SysMenuMapper;
 import com.hrone.system.service.ISysMenuService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -25,6 +28,9 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
     @Autowired
     private SysMenuMapper menuMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 查询菜单列表
      */
@@ -56,9 +62,10 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
             menus,
             SysMenu::getMenuId,
             SysMenu::getParentId,
-            SysMenu::getChildren,
             SysMenu::setChildren,
-            0L
+            0L,
+            TreeUtils.nullsLast(SysMenu::getOrderNum),
+            menus.size() >= TreeUtils.PARALLEL_THRESHOLD
         );
     }
 
@@ -78,6 +85,17 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
         return menuMapper.selectMenusByUserId(userId);
     }
 
+    /**
+     * 根据角色ID集合查询菜单
+     */
+    @Override
+    public List<SysMenu> selectMenusByRoleIds(List<Long> roleIds) {
+        if (roleIds == null || roleIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return menuMapper.selectMenusByRoleIds(roleIds);
+    }
+
     /**
      * 是否存在子菜单
      */
@@ -113,7 +131,10 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
             throw new ServiceException("菜单名称已存在");
         }
         
-        return menuMapper.insert(menu);
+        int rows = menuMapper.insert(menu);
+        // 菜单权限标识可能被多个角色引用，失效所有用户的权限缓存
+        eventPublisher.publishEvent(AuthorizationChangedEvent.ofAll(AuthorizationChangedEvent.ChangeType.MENU));
+        return rows;
     }
 
     /**
@@ -125,7 +146,10 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
             throw new ServiceException("菜单名称已存在");
         }
         
-        return menuMapper.updateById(menu);
+        int rows = menuMapper.updateById(menu);
+        // 菜单权限标识可能被多个角色引用，失效所有用户的权限缓存
+        eventPublisher.publishEvent(AuthorizationChangedEvent.ofAll(AuthorizationChangedEvent.ChangeType.MENU));
+        return rows;
     }
 
     /**
@@ -137,7 +161,10 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
             throw new ServiceException("存在子菜单，不允许删除");
         }
         
-        return menuMapper.deleteById(menuId);
+        int rows = menuMapper.deleteById(menuId);
+        // 菜单权限标识可能被多个角色引用，失效所有用户的权限缓存
+        eventPublisher.publishEvent(AuthorizationChangedEvent.ofAll(AuthorizationChangedEvent.ChangeType.MENU));
+        return rows;
     }
 }
 
@@ -2,25 +2,116 @@ package com.hrone.system.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hrone.common.core.page.CountCache;
+import com.hrone.common.core.page.KeysetCursor;
+import com.hrone.common.core.page.KeysetPage;
+import com.hrone.common.exception.ServiceException;
+import com.hrone.common.utils.DateUtils;
 import com.hrone.common.utils.StringUtils;
 import com.hrone.system.domain.SysOperLog;
 import com.hrone.system.mapper.SysOperLogMapper;
 import com.hrone.system.service.ISysOperLogService;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 @Service
 public class SysOperLogServiceImpl extends ServiceImpl<SysOperLogMapper, SysOperLog> implements ISysOperLogService {
 
+	/**
+	 * 单页最大条数
+	 */
+	private static final int MAX_PAGE_SIZE = 500;
+
+	/**
+	 * 带条件的总数缓存 1 分钟
+	 */
+	private final CountCache countCache = new CountCache(60_000, 1000);
+
 	@Override
 	public void insertOperLog(SysOperLog operLog) {
 		this.baseMapper.insert(operLog);
 	}
 
+	@Override
+	public int insertOperLogBatch(List<SysOperLog> operLogs) {
+		if (operLogs == null || operLogs.isEmpty()) {
+			return 0;
+		}
+		return this.baseMapper.insertBatch(operLogs);
+	}
+
 	@Override
 	public List<SysOperLog> selectOperLogList(SysOperLog operLog) {
+		LambdaQueryWrapper<SysOperLog> wrapper = buildQueryWrapper(operLog);
+		wrapper.orderByDesc(SysOperLog::getOperTime, SysOperLog::getOperId);
+		return this.baseMapper.selectList(wrapper);
+	}
+
+	@Override
+	public KeysetPage<SysOperLog> selectOperLogPage(SysOperLog operLog, KeysetCursor cursor, int pageSize, boolean count) {
+		int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+		LambdaQueryWrapper<SysOperLog> wrapper = buildQueryWrapper(operLog);
+
+		// 总数按筛选条件统计，与游标位置无关
+		Long total = null;
+		boolean estimated = false;
+		if (count) {
+			if (wrapper.isEmptyOfWhere()) {
+				total = this.baseMapper.selectEstimatedCount();
+				estimated = true;
+			} else {
+				String key = wrapper.getSqlSegment() + new TreeMap<>(wrapper.getParamNameValuePairs());
+				total = countCache.get(key, () -> this.baseMapper.selectCount(wrapper).longValue());
+			}
+		}
+
+		// 从上一页最后一行之后继续：(oper_time, oper_id) < (cursor.time, cursor.id)
+		if (cursor != null) {
+			wrapper.and(w -> w.lt(SysOperLog::getOperTime, cursor.getTime())
+				.or(o -> o.eq(SysOperLog::getOperTime, cursor.getTime()).lt(SysOperLog::getOperId, cursor.getId())));
+		}
+		wrapper.orderByDesc(SysOperLog::getOperTime, SysOperLog::getOperId);
+		wrapper.last("LIMIT " + (size + 1));
+
+		KeysetPage<SysOperLog> page = KeysetPage.of(this.baseMapper.selectList(wrapper), size,
+			row -> new KeysetCursor(row.getOperTime(), row.getOperId()));
+		if (count) {
+			page.setTotal(total, estimated);
+		}
+		return page;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long exportOperLog(SysOperLog operLog, Consumer<SysOperLog> consumer) {
+		LambdaQueryWrapper<SysOperLog> wrapper = buildQueryWrapper(operLog);
+		wrapper.orderByDesc(SysOperLog::getOperTime, SysOperLog::getOperId);
+		long count = 0;
+		try (Cursor<SysOperLog> cursor = this.baseMapper.selectCursor(wrapper)) {
+			for (SysOperLog row : cursor) {
+				consumer.accept(row);
+				count++;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return count;
+	}
+
+	/**
+	 * 筛选条件：标题（模糊）、业务类型、状态、操作人、IP、操作时间范围（params.beginTime / params.endTime）
+	 */
+	private LambdaQueryWrapper<SysOperLog> buildQueryWrapper(SysOperLog operLog) {
 		LambdaQueryWrapper<SysOperLog> wrapper = new LambdaQueryWrapper<>();
 		if (StringUtils.isNotEmpty(operLog.getTitle())) {
 			wrapper.like(SysOperLog::getTitle, operLog.getTitle());
@@ -31,8 +122,36 @@ public class SysOperLogServiceImpl extends ServiceImpl<SysOperLogMapper, SysOper
 		if (operLog.getStatus() != null) {
 			wrapper.eq(SysOperLog::getStatus, operLog.getStatus());
 		}
-		wrapper.orderByDesc(SysOperLog::getOperTime);
-		return this.baseMapper.selectList(wrapper);
+		if (StringUtils.isNotEmpty(operLog.getOperName())) {
+			wrapper.eq(SysOperLog::getOperName, operLog.getOperName());
+		}
+		if (StringUtils.isNotEmpty(operLog.getOperIp())) {
+			wrapper.eq(SysOperLog::getOperIp, operLog.getOperIp());
+		}
+		Date beginTime = rangeBound(operLog.getParams(), "beginTime", false);
+		if (beginTime != null) {
+			wrapper.ge(SysOperLog::getOperTime, beginTime);
+		}
+		Date endTime = rangeBound(operLog.getParams(), "endTime", true);
+		if (endTime != null) {
+			wrapper.lt(SysOperLog::getOperTime, endTime);
+		}
+		return wrapper;
+	}
+
+	/**
+	 * 读取时间范围条件，格式错误时报错（不能忽略条件返回更多数据）
+	 */
+	private static Date rangeBound(Map<String, Object> params, String key, boolean end) {
+		Object value = params.get(key);
+		if (value == null || StringUtils.isEmpty(value.toString())) {
+			return null;
+		}
+		Date time = DateUtils.parseRangeBound(value.toString(), end);
+		if (time == null) {
+			throw new ServiceException("时间格式错误：" + value, 400);
+		}
+		return time;
 	}
 
 	@Override
@@ -42,7 +161,7 @@ public class SysOperLogServiceImpl extends ServiceImpl<SysOperLogMapper, SysOper
 
 	@Override
 	public void cleanOperLog() {
-		this.lambdaUpdate().remove();
+		// TRUNCATE 代替不带条件的 DELETE，不逐行加锁、不产生大量 undo
+		this.baseMapper.truncate();
 	}
 }
-
@@ -4,26 +4,69 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hrone.common.exception.ServiceException;
 import com.hrone.common.utils.StringUtils;
+import com.hrone.system.domain.SysDept;
+import com.hrone.system.domain.SysMenu;
 import com.hrone.system.domain.SysRole;
+import com.hrone.system.event.AuthorizationChangedEvent;
+import com.hrone.system.mapper.SysDeptMapper;
+import com.hrone.system.mapper.SysMenuMapper;
+import com.hrone.system.mapper.SysRoleDeptMapper;
 import com.hrone.system.mapper.SysRoleMapper;
+import com.hrone.system.mapper.SysRoleMenuMapper;
+import com.hrone.system.mapper.SysUserRoleMapper;
 import com.hrone.system.service.ISysRoleService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * 角色管理 Service实现
  * 
+ * 角色的菜单、部门授权按“期望的完整集合”提交：与现有关联比较后只写入差异，
+ * 新增与删除都按批拼成多行语句，在同一事务内执行；sys_menu、sys_dept 中不存在（或已删除）的ID直接丢弃
+ * 
  * @author hrone
  */
 @Service
 public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> implements ISysRoleService {
 
+    /**
+     * 单条 INSERT ... VALUES / DELETE ... IN 语句最多包含的ID数
+     */
+    private static final int BATCH_SIZE = 1000;
+
     @Autowired
     private SysRoleMapper roleMapper;
 
+    @Autowired
+    private SysRoleMenuMapper roleMenuMapper;
+
+    @Autowired
+    private SysRoleDeptMapper roleDeptMapper;
+
+    @Autowired
+    private SysUserRoleMapper userRoleMapper;
+
+    @Autowired
+    private SysMenuMapper menuMapper;
+
+    @Autowired
+    private SysDeptMapper deptMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 查询角色列表
      */
@@ -99,6 +142,7 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
      * 新增角色
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int insertRole(SysRole role) {
         // 校验角色名称
         if (!checkRoleNameUnique(role)) {
@@ -110,13 +154,16 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
             throw new ServiceException("角色权限已存在");
         }
         
-        return roleMapper.insert(role);
+        int rows = roleMapper.insert(role);
+        syncGrants(role);
+        return rows;
     }
 
     /**
      * 修改角色
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int updateRole(SysRole role) {
         // 不能修改超级管理员
         if (SysRole.isAdmin(role.getRoleId())) {
@@ -133,7 +180,10 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
             throw new ServiceException("角色权限已存在");
         }
         
-        return roleMapper.updateById(role);
+        int rows = roleMapper.updateById(role);
+        syncGrants(role);
+        publishUsersChanged(userRoleMapper.selectUserIdsByRoleIds(Collections.singletonList(role.getRoleId())));
+        return rows;
     }
 
     /**
@@ -146,7 +196,11 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
             throw new ServiceException("不允许删除超级管理员角色");
         }
         
-        return roleMapper.deleteById(roleId);
+        // 先查出受影响的用户，删除后再通知
+        List<Long> userIds = userRoleMapper.selectUserIdsByRoleIds(Collections.singletonList(roleId));
+        int rows = roleMapper.deleteById(roleId);
+        publishUsersChanged(userIds);
+        return rows;
     }
 
     /**
@@ -161,7 +215,186 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
             }
         }
         
-        return roleMapper.deleteBatchIds(Arrays.asList(roleIds));
+        List<Long> userIds = userRoleMapper.selectUserIdsByRoleIds(Arrays.asList(roleIds));
+        int rows = roleMapper.deleteBatchIds(Arrays.asList(roleIds));
+        publishUsersChanged(userIds);
+        return rows;
+    }
+
+    /**
+     * 查询角色的菜单ID
+     */
+    @Override
+    public List<Long> selectMenuIdsByRoleId(Long roleId) {
+        return roleMenuMapper.selectMenuIdsByRoleId(roleId);
+    }
+
+    /**
+     * 查询角色的部门ID（自定义数据权限）
+     */
+    @Override
+    public List<Long> selectDeptIdsByRoleId(Long roleId) {
+        return roleDeptMapper.selectDeptIdsByRoleId(roleId);
+    }
+
+    /**
+     * 设置角色菜单（覆盖原有菜单，只写入差异）
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int authRoleMenu(Long roleId, Long[] menuIds) {
+        checkRoleGrantable(roleId);
+        int changed = syncMenus(roleId, menuIds);
+        publishMenusChanged(changed);
+        return changed;
+    }
+
+    /**
+     * 设置角色部门（覆盖原有部门，只写入差异）
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int authRoleDept(Long roleId, Long[] deptIds) {
+        checkRoleGrantable(roleId);
+        // 自定义部门在数据权限 SQL 中以子查询展开，无需失效缓存
+        return syncDepts(roleId, deptIds);
+    }
+
+    private void checkRoleGrantable(Long roleId) {
+        if (roleId == null) {
+            throw new ServiceException("角色ID不能为空", 400);
+        }
+        if (SysRole.isAdmin(roleId)) {
+            throw new ServiceException("不允许修改超级管理员角色", 403);
+        }
+        lockRole(roleId);
+    }
+
+    /**
+     * 锁定角色行，使同一角色的授权串行执行：差异基于锁定后读到的现有关联计算，
+     * 并发授权不会算出相同的新增行而违反主键
+     */
+    private void lockRole(Long roleId) {
+        if (roleMapper.lockRoleById(roleId) == null) {
+            throw new ServiceException("角色不存在", 404);
+        }
+    }
+
+    /**
+     * 新增、修改角色时一并提交的菜单、部门（为 null 表示不修改）
+     */
+    private void syncGrants(SysRole role) {
+        if (role.getMenuIds() == null && role.getDeptIds() == null) {
+            return;
+        }
+        lockRole(role.getRoleId());
+        if (role.getMenuIds() != null) {
+            publishMenusChanged(syncMenus(role.getRoleId(), role.getMenuIds()));
+        }
+        if (role.getDeptIds() != null) {
+            syncDepts(role.getRoleId(), role.getDeptIds());
+        }
+    }
+
+    private int syncMenus(Long roleId, Long[] menuIds) {
+        List<Long> target = requireExisting(menuIds, "菜单", ids -> menuMapper.selectObjs(new LambdaQueryWrapper<SysMenu>()
+            .select(SysMenu::getMenuId)
+            .in(SysMenu::getMenuId, ids)));
+        return syncRelations(roleId, roleMenuMapper.selectMenuIdsByRoleId(roleId), target,
+            roleMenuMapper::deleteRoleMenus, roleMenuMapper::batchRoleMenu);
+    }
+
+    private int syncDepts(Long roleId, Long[] deptIds) {
+        List<Long> target = requireExisting(deptIds, "部门", ids -> deptMapper.selectObjs(new LambdaQueryWrapper<SysDept>()
+            .select(SysDept::getDeptId)
+            .in(SysDept::getDeptId, ids)
+            .eq(SysDept::getDelFlag, "0")));
+        return syncRelations(roleId, roleDeptMapper.selectDeptIdsByRoleId(roleId), target,
+            roleDeptMapper::deleteRoleDepts, roleDeptMapper::batchRoleDept);
+    }
+
+    /**
+     * 去重并校验ID均存在（按批查询），与用户授权角色一致：有不存在的ID时整体拒绝
+     * 
+     * @param ids 提交的ID（可为空）
+     * @param name 名称（用于错误消息）
+     * @param lookup 查询一批ID中存在的ID
+     */
+    private static List<Long> requireExisting(Long[] ids, String name, Function<List<Long>, List<Object>> lookup) {
+        if (ids == null || ids.length == 0) {
+            return Collections.emptyList();
+        }
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new ServiceException(name + "ID不合法", 400);
+            }
+            distinct.add(id);
+        }
+        List<Long> candidates = new ArrayList<>(distinct);
+        Set<Long> found = new HashSet<>();
+        for (int i = 0; i < candidates.size(); i += BATCH_SIZE) {
+            for (Object id : lookup.apply(candidates.subList(i, Math.min(i + BATCH_SIZE, candidates.size())))) {
+                found.add(((Number) id).longValue());
+            }
+        }
+        if (found.size() != candidates.size()) {
+            Set<Long> missing = new LinkedHashSet<>(candidates);
+            missing.removeAll(found);
+            throw new ServiceException(name + "不存在：" + missing, 400);
+        }
+        return candidates;
+    }
+
+    /**
+     * 比较现有关联与期望集合，分批删除多余的、新增缺少的
+     * 
+     * @return 变更的关联条数
+     */
+    private int syncRelations(Long roleId, List<Long> current, List<Long> target,
+                              BiFunction<Long, List<Long>, Integer> delete,
+                              BiFunction<Long, List<Long>, Integer> insert) {
+        Set<Long> desired = new LinkedHashSet<>(target);
+        Set<Long> existing = new HashSet<>(current);
+        
+        List<Long> removed = new ArrayList<>();
+        for (Long id : existing) {
+            if (!desired.contains(id)) {
+                removed.add(id);
+            }
+        }
+        List<Long> added = new ArrayList<>();
+        for (Long id : desired) {
+            if (!existing.contains(id)) {
+                added.add(id);
+            }
+        }
+        
+        for (int i = 0; i < removed.size(); i += BATCH_SIZE) {
+            delete.apply(roleId, removed.subList(i, Math.min(i + BATCH_SIZE, removed.size())));
+        }
+        for (int i = 0; i < added.size(); i += BATCH_SIZE) {
+            insert.apply(roleId, added.subList(i, Math.min(i + BATCH_SIZE, added.size())));
+        }
+        return removed.size() + added.size();
+    }
+
+    /**
+     * 角色菜单有变更时，通知各节点重建角色权限位图与菜单树缓存
+     */
+    private void publishMenusChanged(int changed) {
+        if (changed > 0) {
+            eventPublisher.publishEvent(AuthorizationChangedEvent.ofAll(AuthorizationChangedEvent.ChangeType.ROLE_MENU));
+        }
+    }
+
+    /**
+     * 通知拥有相关角色的用户权限已变更（没有用户时不发布）
+     */
+    private void publishUsersChanged(List<Long> userIds) {
+        if (userIds != null && !userIds.isEmpty()) {
+            eventPublisher.publishEvent(AuthorizationChangedEvent.ofUsers(AuthorizationChangedEvent.ChangeType.ROLE, userIds));
+        }
     }
 }
 
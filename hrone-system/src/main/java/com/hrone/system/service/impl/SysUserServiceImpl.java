@@ -5,12 +5,25 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hrone.common.constant.UserConstants;
 import com.hrone.common.exception.ServiceException;
 import com.hrone.common.utils.StringUtils;
+import com.hrone.system.aspectj.DataScope;
+import com.hrone.system.domain.SysRole;
 import com.hrone.system.domain.SysUser;
+import com.hrone.system.event.AuthorizationChangedEvent;
+import com.hrone.system.event.UserCredentialChangedEvent;
+import com.hrone.system.mapper.SysRoleMapper;
 import com.hrone.system.mapper.SysUserMapper;
+import com.hrone.system.mapper.SysUserRoleMapper;
 import com.hrone.system.service.ISysUserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -32,6 +45,15 @@ import java.util.Set;
 @Service
 public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> implements ISysUserService {
     
+    @Autowired
+    private SysUserRoleMapper userRoleMapper;
+    
+    @Autowired
+    private SysRoleMapper roleMapper;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * 查询用户列表
      * 
@@ -39,7 +61,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
      * @return 用户列表
      */
     @Override
-    @com.hrone.system.aspectj.DataScope
+    @DataScope
     public List<SysUser> selectUserList(SysUser user) {
         LambdaQueryWrapper<SysUser> wrapper = new LambdaQueryWrapper<>();
         
@@ -54,17 +76,6 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
             wrapper.eq(SysUser::getStatus, user.getStatus());
         }
         
-        // 数据权限：根据 DataScopeContext 过滤
-        Set<Long> scopeDeptIds = com.hrone.system.aspectj.DataScopeContext.getDeptIds();
-        if (scopeDeptIds != null && !scopeDeptIds.isEmpty()) {
-            wrapper.in(SysUser::getDeptId, scopeDeptIds);
-        } else if (com.hrone.system.aspectj.DataScopeContext.isSelfScope()) {
-            Long selfUserId = com.hrone.system.aspectj.DataScopeContext.getSelfUserId();
-            if (selfUserId != null) {
-                wrapper.eq(SysUser::getUserId, selfUserId);
-            }
-        }
-
         // 排除已删除的数据
         wrapper.eq(SysUser::getDelFlag, "0");
         
@@ -186,6 +197,18 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         
         // 更新用户
         boolean result = this.updateById(user);
+        // 所属部门变更影响该用户的数据权限
+        if (result && user.getDeptId() != null && !user.getDeptId().equals(existUser.getDeptId())) {
+            eventPublisher.publishEvent(AuthorizationChangedEvent.ofUsers(
+                AuthorizationChangedEvent.ChangeType.USER, Collections.singletonList(user.getUserId())));
+        }
+        // 停用或修改密码后，已签发的刷新令牌与在线会话一并注销
+        if (result && StringUtils.isNotEmpty(user.getStatus()) && !UserConstants.USER_NORMAL.equals(user.getStatus())
+                && UserConstants.USER_NORMAL.equals(existUser.getStatus())) {
+            eventPublisher.publishEvent(new UserCredentialChangedEvent(user.getUserId(), UserCredentialChangedEvent.Reason.DISABLED));
+        } else if (result && StringUtils.isNotEmpty(user.getPassword()) && !user.getPassword().equals(existUser.getPassword())) {
+            eventPublisher.publishEvent(new UserCredentialChangedEvent(user.getUserId(), UserCredentialChangedEvent.Reason.PASSWORD_CHANGED));
+        }
         return result ? 1 : 0;
     }
     
@@ -216,8 +239,102 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         user.setDelFlag("2");
         user.setUpdateTime(new Date());
         boolean result = this.updateById(user);
+        if (result) {
+            eventPublisher.publishEvent(AuthorizationChangedEvent.ofUsers(
+                AuthorizationChangedEvent.ChangeType.USER_ROLE, Collections.singletonList(userId)));
+            eventPublisher.publishEvent(new UserCredentialChangedEvent(userId, UserCredentialChangedEvent.Reason.DELETED));
+        }
         
         return result ? 1 : 0;
     }
+    
+    /**
+     * 比较并更新用户密码
+     * 
+     * UPDATE ... SET password = #{password} WHERE user_id = #{userId} AND password = #{expectedPassword}
+     * 
+     * @param userId 用户ID
+     * @param password 已加密的新密码
+     * @param expectedPassword 读取时数据库中的密码
+     * @return 结果（密码已变化时为 0）
+     */
+    @Override
+    public int updateUserPassword(Long userId, String password, String expectedPassword) {
+        if (userId == null || StringUtils.isEmpty(password) || StringUtils.isEmpty(expectedPassword)) {
+            throw new ServiceException("用户ID和密码不能为空", 400);
+        }
+        boolean result = this.lambdaUpdate()
+            .set(SysUser::getPassword, password)
+            .set(SysUser::getUpdateTime, new Date())
+            .eq(SysUser::getUserId, userId)
+            .eq(SysUser::getPassword, expectedPassword)
+            .update();
+        return result ? 1 : 0;
+    }
+    
+    /**
+     * 设置用户角色（先删后插，同一事务内完成）
+     * 
+     * 角色ID去重后逐个校验：必须存在、未删除且为正常状态；不允许授予超级管理员角色
+     * 
+     * @param userId 用户ID
+     * @param roleIds 角色ID数组
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void insertUserAuth(Long userId, Long[] roleIds) {
+        if (userId == null || userId <= 0) {
+            throw new ServiceException("用户ID不能为空", 400);
+        }
+        if (UserConstants.ADMIN_ID.equals(userId)) {
+            throw new ServiceException("不允许修改超级管理员", 403);
+        }
+        if (this.getById(userId) == null) {
+            throw new ServiceException("用户不存在", 404);
+        }
+        List<Long> ids = checkGrantableRoles(roleIds);
+        userRoleMapper.deleteUserRoleByUserId(userId);
+        if (!ids.isEmpty()) {
+            userRoleMapper.batchUserRole(userId, ids);
+        }
+        // 事务提交后失效该用户的权限缓存
+        eventPublisher.publishEvent(AuthorizationChangedEvent.ofUsers(
+            AuthorizationChangedEvent.ChangeType.USER_ROLE, Collections.singletonList(userId)));
+    }
+    
+    /**
+     * 去重并校验可授予的角色
+     * 
+     * @param roleIds 角色ID数组（可为空）
+     * @return 去重后的角色ID
+     */
+    private List<Long> checkGrantableRoles(Long[] roleIds) {
+        if (roleIds == null || roleIds.length == 0) {
+            return Collections.emptyList();
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long roleId : roleIds) {
+            if (roleId == null || roleId <= 0) {
+                throw new ServiceException("角色ID不合法", 400);
+            }
+            if (SysRole.isAdmin(roleId)) {
+                throw new ServiceException("不允许授予超级管理员角色", 403);
+            }
+            ids.add(roleId);
+        }
+        List<SysRole> roles = roleMapper.selectList(new LambdaQueryWrapper<SysRole>()
+            .in(SysRole::getRoleId, ids)
+            .eq(SysRole::getDelFlag, "0")
+            .eq(SysRole::getStatus, UserConstants.ROLE_NORMAL));
+        Set<Long> valid = new HashSet<>();
+        for (SysRole role : roles) {
+            valid.add(role.getRoleId());
+        }
+        if (valid.size() != ids.size()) {
+            Set<Long> invalid = new LinkedHashSet<>(ids);
+            invalid.removeAll(valid);
+            throw new ServiceException("角色不存在或已停用：" + invalid, 400);
+        }
+        return new ArrayList<>(ids);
+    }
 }
-
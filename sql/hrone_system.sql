@@ -167,9 +167,22 @@ CREATE TABLE `sys_oper_log` (
   `json_result` VARCHAR(2000) DEFAULT '' COMMENT '返回参数',
   `status` INT(1) DEFAULT 0 COMMENT '操作状态（0正常 1异常）',
   `error_msg` VARCHAR(2000) DEFAULT '' COMMENT '错误消息',
-  `oper_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
-  PRIMARY KEY (`oper_id`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='操作日志记录';
+  `oper_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
+  PRIMARY KEY (`oper_id`, `oper_time`),
+  KEY `idx_oper_time` (`oper_time`, `oper_id`),
+  KEY `idx_status_time` (`status`, `oper_time`),
+  KEY `idx_business_type_time` (`business_type`, `oper_time`),
+  KEY `idx_oper_name_time` (`oper_name`, `oper_time`),
+  KEY `idx_oper_ip_time` (`oper_ip`, `oper_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='操作日志记录'
+-- 按月分区（分区列必须包含在主键中）；之后的月份由日志保留任务提前创建，过期分区整体删除
+PARTITION BY RANGE COLUMNS (`oper_time`) (
+  PARTITION p_history VALUES LESS THAN ('2026-10-01'),
+  PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+  PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+  PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
 
 -- ==========================================
 -- 11. 登录日志表
@@ -184,9 +197,31 @@ CREATE TABLE `sys_login_log` (
   `os` VARCHAR(50) DEFAULT '' COMMENT '操作系统',
   `status` CHAR(1) DEFAULT '0' COMMENT '登录状态（0成功 1失败）',
   `msg` VARCHAR(255) DEFAULT '' COMMENT '提示消息',
-  `login_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '访问时间',
-  PRIMARY KEY (`info_id`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='系统访问记录';
+  `login_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '访问时间',
+  PRIMARY KEY (`info_id`, `login_time`),
+  KEY `idx_login_time` (`login_time`, `info_id`),
+  KEY `idx_status_time` (`status`, `login_time`),
+  KEY `idx_ipaddr_time` (`ipaddr`, `login_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='系统访问记录'
+PARTITION BY RANGE COLUMNS (`login_time`) (
+  PARTITION p_history VALUES LESS THAN ('2026-10-01'),
+  PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+  PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+  PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- ==========================================
+-- 12. 部门闭包表（祖先-后代关系，含自身 depth=0）
+-- ==========================================
+DROP TABLE IF EXISTS `sys_dept_closure`;
+CREATE TABLE `sys_dept_closure` (
+  `ancestor` BIGINT(20) NOT NULL COMMENT '祖先部门ID',
+  `descendant` BIGINT(20) NOT NULL COMMENT '后代部门ID',
+  `depth` INT(4) NOT NULL DEFAULT 0 COMMENT '层级距离（0表示自身）',
+  PRIMARY KEY (`ancestor`, `descendant`),
+  KEY `idx_descendant_depth` (`descendant`, `depth`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='部门闭包表';
 
 -- ==========================================
 -- 7. 更新用户表（添加部门字段）
@@ -223,6 +258,16 @@ INSERT INTO `sys_dept` VALUES
 (104, 101, '0,100,101', '市场部门', 2, '赵六', '15888888888', 'market@hrone.com', '0', '0', 'admin', NOW(), '', NULL, NULL),
 (105, 101, '0,100,101', '财务部门', 3, '孙七', '15888888888', 'finance@hrone.com', '0', '0', 'admin', NOW(), '', NULL, NULL);
 
+-- 初始化部门闭包数据（由祖级列表生成）
+INSERT INTO `sys_dept_closure` (`ancestor`, `descendant`, `depth`)
+SELECT `dept_id`, `dept_id`, 0 FROM `sys_dept` WHERE `del_flag` = '0'
+UNION ALL
+SELECT a.`dept_id`, d.`dept_id`,
+       (LENGTH(d.`ancestors`) - LENGTH(REPLACE(d.`ancestors`, ',', ''))) - (LENGTH(a.`ancestors`) - LENGTH(REPLACE(a.`ancestors`, ',', '')))
+FROM `sys_dept` d
+JOIN `sys_dept` a ON FIND_IN_SET(a.`dept_id`, d.`ancestors`)
+WHERE d.`del_flag` = '0' AND a.`del_flag` = '0';
+
 -- 初始化角色数据
 INSERT INTO `sys_role` VALUES 
 (1, '超级管理员', 'admin', 1, '1', '0', '0', 'admin', NOW(), '', NULL, '超级管理员'),
@@ -240,6 +285,11 @@ INSERT INTO `sys_menu` VALUES
 (102, '菜单管理', 1, 3, 'menu', 'system/menu/index', 1, 0, 'C', '0', '0', 'system:menu:list', 'tree-table', 'admin', NOW(), '', NULL, '菜单管理菜单'),
 (103, '部门管理', 1, 4, 'dept', 'system/dept/index', 1, 0, 'C', '0', '0', 'system:dept:list', 'tree', 'admin', NOW(), '', NULL, '部门管理菜单'),
 
+-- 系统监控子菜单
+(108, '在线用户', 2, 1, 'online', 'monitor/online/index', 1, 0, 'C', '0', '0', 'monitor:online:list', 'online', 'admin', NOW(), '', NULL, '在线用户菜单'),
+(109, '操作日志', 2, 2, 'operlog', 'monitor/operlog/index', 1, 0, 'C', '0', '0', 'monitor:operlog:list', 'form', 'admin', NOW(), '', NULL, '操作日志菜单'),
+(110, '登录日志', 2, 3, 'logininfor', 'monitor/logininfor/index', 1, 0, 'C', '0', '0', 'monitor:logininfor:list', 'logininfor', 'admin', NOW(), '', NULL, '登录日志菜单'),
+
 -- 用户管理按钮
 (1000, '用户查询', 100, 1, '', '', 1, 0, 'F', '0', '0', 'system:user:query', '#', 'admin', NOW(), '', NULL, ''),
 (1001, '用户新增', 100, 2, '', '', 1, 0, 'F', '0', '0', 'system:user:add', '#', 'admin', NOW(), '', NULL, ''),
@@ -250,7 +300,18 @@ INSERT INTO `sys_menu` VALUES
 (1010, '角色查询', 101, 1, '', '', 1, 0, 'F', '0', '0', 'system:role:query', '#', 'admin', NOW(), '', NULL, ''),
 (1011, '角色新增', 101, 2, '', '', 1, 0, 'F', '0', '0', 'system:role:add', '#', 'admin', NOW(), '', NULL, ''),
 (1012, '角色修改', 101, 3, '', '', 1, 0, 'F', '0', '0', 'system:role:edit', '#', 'admin', NOW(), '', NULL, ''),
-(1013, '角色删除', 101, 4, '', '', 1, 0, 'F', '0', '0', 'system:role:remove', '#', 'admin', NOW(), '', NULL, '');
+(1013, '角色删除', 101, 4, '', '', 1, 0, 'F', '0', '0', 'system:role:remove', '#', 'admin', NOW(), '', NULL, ''),
+
+-- 在线用户按钮
+(1040, '强退用户', 108, 1, '', '', 1, 0, 'F', '0', '0', 'monitor:online:forceLogout', '#', 'admin', NOW(), '', NULL, ''),
+
+-- 操作日志按钮
+(1050, '日志导出', 109, 1, '', '', 1, 0, 'F', '0', '0', 'monitor:operlog:export', '#', 'admin', NOW(), '', NULL, ''),
+(1051, '日志删除', 109, 2, '', '', 1, 0, 'F', '0', '0', 'monitor:operlog:remove', '#', 'admin', NOW(), '', NULL, ''),
+
+-- 登录日志按钮
+(1060, '日志导出', 110, 1, '', '', 1, 0, 'F', '0', '0', 'monitor:logininfor:export', '#', 'admin', NOW(), '', NULL, ''),
+(1061, '日志删除', 110, 2, '', '', 1, 0, 'F', '0', '0', 'monitor:logininfor:remove', '#', 'admin', NOW(), '', NULL, '');
 
 -- 初始化用户角色关联（admin用户为超级管理员）
 INSERT INTO `sys_user_role` VALUES (1, 1);
@@ -260,7 +321,10 @@ INSERT INTO `sys_role_menu` VALUES
 (1, 1), (1, 2),
 (1, 100), (1, 101), (1, 102), (1, 103),
 (1, 1000), (1, 1001), (1, 1002), (1, 1003),
-(1, 1010), (1, 1011), (1, 1012), (1, 1013);
+(1, 1010), (1, 1011), (1, 1012), (1, 1013),
+(1, 108), (1, 1040),
+(1, 109), (1, 110), (1, 1050), (1, 1060),
+(1, 1051), (1, 1061);
 
 -- 初始化字典类型
 INSERT INTO `sys_dict_type` (`dict_name`, `dict_type`, `status`, `remark`) VALUES
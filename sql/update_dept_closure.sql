@@ -0,0 +1,26 @@
+-- ==========================================
+-- HROne 升级脚本：部门闭包表
+-- 已有数据库执行本脚本；新库直接执行 hrone_system.sql 即可
+-- ==========================================
+
+USE hrone_db;
+
+CREATE TABLE IF NOT EXISTS `sys_dept_closure` (
+  `ancestor` BIGINT(20) NOT NULL COMMENT '祖先部门ID',
+  `descendant` BIGINT(20) NOT NULL COMMENT '后代部门ID',
+  `depth` INT(4) NOT NULL DEFAULT 0 COMMENT '层级距离（0表示自身）',
+  PRIMARY KEY (`ancestor`, `descendant`),
+  KEY `idx_descendant_depth` (`descendant`, `depth`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='部门闭包表';
+
+-- 由现有祖级列表回填（可重复执行）
+TRUNCATE TABLE `sys_dept_closure`;
+
+INSERT INTO `sys_dept_closure` (`ancestor`, `descendant`, `depth`)
+SELECT `dept_id`, `dept_id`, 0 FROM `sys_dept` WHERE `del_flag` = '0'
+UNION ALL
+SELECT a.`dept_id`, d.`dept_id`,
+       (LENGTH(d.`ancestors`) - LENGTH(REPLACE(d.`ancestors`, ',', ''))) - (LENGTH(a.`ancestors`) - LENGTH(REPLACE(a.`ancestors`, ',', '')))
+FROM `sys_dept` d
+JOIN `sys_dept` a ON FIND_IN_SET(a.`dept_id`, d.`ancestors`)
+WHERE d.`del_flag` = '0' AND a.`del_flag` = '0';
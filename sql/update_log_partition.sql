@@ -0,0 +1,49 @@
+-- ==========================================
+-- HROne 升级脚本：操作日志、登录日志按月分区并补充索引
+-- 已有数据库执行本脚本；新库直接执行 hrone_system.sql 即可
+-- 说明：
+-- - 分区列必须包含在主键中，主键改为 (id, 时间)，时间列改为 NOT NULL
+-- - 改造会重建整张表，数据量大时请在低峰期执行（或使用 pt-online-schema-change / gh-ost）
+-- - 之后的月份分区由日志保留任务（log.retention）自动提前创建
+-- ==========================================
+
+USE hrone_db;
+
+-- 1. 操作日志
+UPDATE `sys_oper_log` SET `oper_time` = NOW() WHERE `oper_time` IS NULL;
+
+ALTER TABLE `sys_oper_log`
+  MODIFY `oper_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`oper_id`, `oper_time`),
+  ADD KEY `idx_oper_time` (`oper_time`, `oper_id`),
+  ADD KEY `idx_status_time` (`status`, `oper_time`),
+  ADD KEY `idx_business_type_time` (`business_type`, `oper_time`);
+
+ALTER TABLE `sys_oper_log`
+PARTITION BY RANGE COLUMNS (`oper_time`) (
+  PARTITION p_history VALUES LESS THAN ('2026-10-01'),
+  PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+  PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+  PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- 2. 登录日志
+UPDATE `sys_login_log` SET `login_time` = NOW() WHERE `login_time` IS NULL;
+
+ALTER TABLE `sys_login_log`
+  MODIFY `login_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '访问时间',
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`info_id`, `login_time`),
+  ADD KEY `idx_login_time` (`login_time`, `info_id`),
+  ADD KEY `idx_status_time` (`status`, `login_time`);
+
+ALTER TABLE `sys_login_log`
+PARTITION BY RANGE COLUMNS (`login_time`) (
+  PARTITION p_history VALUES LESS THAN ('2026-10-01'),
+  PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+  PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+  PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
@@ -0,0 +1,16 @@
+-- ==========================================
+-- HROne 升级脚本：日志列表筛选索引
+-- 已有数据库在 update_log_partition.sql 之后执行；新库直接执行 hrone_system.sql 即可
+-- 说明：
+-- - 列表按 (时间, ID) 倒序游标分页，按操作人、IP 等值筛选时沿以下索引按时间顺序读取
+-- - 二级索引隐含主键 (ID, 时间)，索引 (列, 时间) 即可支持 (时间, ID) 的翻页条件
+-- ==========================================
+
+USE hrone_db;
+
+ALTER TABLE `sys_oper_log`
+  ADD KEY `idx_oper_name_time` (`oper_name`, `oper_time`),
+  ADD KEY `idx_oper_ip_time` (`oper_ip`, `oper_time`);
+
+ALTER TABLE `sys_login_log`
+  ADD KEY `idx_ipaddr_time` (`ipaddr`, `login_time`);
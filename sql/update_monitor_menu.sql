@@ -0,0 +1,19 @@
+-- ==========================================
+-- 系统监控菜单与按钮权限升级脚本（已有数据库执行）
+-- 在线用户、操作日志、登录日志接口需要以下权限，默认授予超级管理员
+-- ==========================================
+
+INSERT IGNORE INTO `sys_menu` VALUES
+(108, '在线用户', 2, 1, 'online', 'monitor/online/index', 1, 0, 'C', '0', '0', 'monitor:online:list', 'online', 'admin', NOW(), '', NULL, '在线用户菜单'),
+(109, '操作日志', 2, 2, 'operlog', 'monitor/operlog/index', 1, 0, 'C', '0', '0', 'monitor:operlog:list', 'form', 'admin', NOW(), '', NULL, '操作日志菜单'),
+(110, '登录日志', 2, 3, 'logininfor', 'monitor/logininfor/index', 1, 0, 'C', '0', '0', 'monitor:logininfor:list', 'logininfor', 'admin', NOW(), '', NULL, '登录日志菜单'),
+(1040, '强退用户', 108, 1, '', '', 1, 0, 'F', '0', '0', 'monitor:online:forceLogout', '#', 'admin', NOW(), '', NULL, ''),
+(1050, '日志导出', 109, 1, '', '', 1, 0, 'F', '0', '0', 'monitor:operlog:export', '#', 'admin', NOW(), '', NULL, ''),
+(1051, '日志删除', 109, 2, '', '', 1, 0, 'F', '0', '0', 'monitor:operlog:remove', '#', 'admin', NOW(), '', NULL, ''),
+(1060, '日志导出', 110, 1, '', '', 1, 0, 'F', '0', '0', 'monitor:logininfor:export', '#', 'admin', NOW(), '', NULL, ''),
+(1061, '日志删除', 110, 2, '', '', 1, 0, 'F', '0', '0', 'monitor:logininfor:remove', '#', 'admin', NOW(), '', NULL, '');
+
+INSERT IGNORE INTO `sys_role_menu` VALUES
+(1, 108), (1, 1040),
+(1, 109), (1, 110), (1, 1050), (1, 1060),
+(1, 1051), (1, 1061);